@@ -17,8 +17,12 @@ package minicp.cp;
 
 import minicp.engine.core.IntVar;
 import minicp.engine.core.Solver;
+import minicp.search.ActivityBasedSearch;
+import minicp.search.DomWdegSearch;
+import minicp.search.ImpactBasedSearch;
 import minicp.search.LimitedDiscrepancyBranching;
 import minicp.search.Sequencer;
+import minicp.search.UnfixedVariables;
 import minicp.util.Procedure;
 import minicp.util.exception.InconsistencyException;
 import minicp.util.exception.NotImplementedException;
@@ -29,6 +33,8 @@ import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
 
 import static minicp.cp.Factory.equal;
 import static minicp.cp.Factory.notEqual;
@@ -114,9 +120,102 @@ public final class BranchingScheme {
         return sel;
     }
 
+    /**
+     * Minimum selector on an int evaluation, without boxing.
+     * On ties, the first element in x is returned.
+     * <p>Example of usage.
+     * <pre>
+     * {@code
+     * IntVar xs = selectMinInt(x,xi -> xi.size() > 1,xi -> xi.size());
+     * }
+     * </pre>
+     *
+     * @param x the array on which the minimum value is searched
+     * @param p the predicate that filters the element eligible for selection
+     * @param f the evaluation function
+     * @param <T> the type of the elements in x, for instance {@link IntVar}
+     * @return the first minimum element in x that satisfies the predicate p
+     *         or null if no element satisfies the predicate.
+     * @see UnfixedVariables for a selector that skips the fixed variables
+     */
+    public static <T> T selectMinInt(T[] x, Predicate<T> p, ToIntFunction<T> f) {
+        T sel = null;
+        int best = 0;
+        for (T xi : x) {
+            if (p.test(xi)) {
+                int v = f.applyAsInt(xi);
+                if (sel == null || v < best) {
+                    sel = xi;
+                    best = v;
+                }
+            }
+        }
+        return sel;
+    }
+
+    /**
+     * Minimum selector on an int evaluation with a tie-breaking evaluation, without boxing.
+     * On remaining ties, the first element in x is returned.
+     *
+     * @param x the array on which the minimum value is searched
+     * @param p the predicate that filters the element eligible for selection
+     * @param f the evaluation function
+     * @param tieBreak the evaluation function minimized among the minima of f
+     * @param <T> the type of the elements in x, for instance {@link IntVar}
+     * @return the selected element in x or null if no element satisfies the predicate.
+     */
+    public static <T> T selectMinInt(T[] x, Predicate<T> p, ToIntFunction<T> f, ToIntFunction<T> tieBreak) {
+        T sel = null;
+        int best = 0;
+        int bestTie = 0;
+        for (T xi : x) {
+            if (p.test(xi)) {
+                int v = f.applyAsInt(xi);
+                if (sel == null || v < best) {
+                    sel = xi;
+                    best = v;
+                    bestTie = tieBreak.applyAsInt(xi);
+                } else if (v == best) {
+                    int t = tieBreak.applyAsInt(xi);
+                    if (t < bestTie) {
+                        sel = xi;
+                        bestTie = t;
+                    }
+                }
+            }
+        }
+        return sel;
+    }
+
+    /**
+     * Minimum selector on a long evaluation, without boxing.
+     * On ties, the first element in x is returned.
+     *
+     * @param x the array on which the minimum value is searched
+     * @param p the predicate that filters the element eligible for selection
+     * @param f the evaluation function
+     * @param <T> the type of the elements in x, for instance {@link IntVar}
+     * @return the first minimum element in x that satisfies the predicate p
+     *         or null if no element satisfies the predicate.
+     */
+    public static <T> T selectMinLong(T[] x, Predicate<T> p, ToLongFunction<T> f) {
+        T sel = null;
+        long best = 0;
+        for (T xi : x) {
+            if (p.test(xi)) {
+                long v = f.applyAsLong(xi);
+                if (sel == null || v < best) {
+                    sel = xi;
+                    best = v;
+                }
+            }
+        }
+        return sel;
+    }
+
     /**
      * First-Fail strategy.
-     * It selects the first variable with a domain larger than one.
+     * It selects the first unfixed variable with the smallest domain.
      * Then it creates two branches. The left branch
      * assigning the variable to its minimum value.
      * The right branch removing this minimum value from the domain.
@@ -125,13 +224,15 @@ public final class BranchingScheme {
      * @see Factory#makeDfs(Solver, Supplier)
      */
     public static Supplier<Procedure[]> firstFail(IntVar... x) {
+        if (x.length == 0)
+            return () -> EMPTY;
+        UnfixedVariables unfixed = new UnfixedVariables(x);
         return () -> {
-            IntVar xs = selectMin(x,
-                    xi -> xi.size() > 1,
-                    xi -> xi.size());
-            if (xs == null)
+            int i = unfixed.selectMin(IntVar::size);
+            if (i < 0)
                 return EMPTY;
             else {
+                IntVar xs = x[i];
                 int v = xs.min();
                 return branch(() -> xs.getSolver().post(equal(xs, v)),
                         () -> xs.getSolver().post(notEqual(xs, v)));
@@ -139,6 +240,58 @@ public final class BranchingScheme {
         };
     }
 
+    /**
+     * Dom/wdeg strategy.
+     * It selects the unfixed variable minimizing the ratio between its domain size
+     * and its weighted degree, that is one plus the number of failures
+     * raised by its active constraints.
+     * The left branch assigns the variable to its minimum value
+     * and the right branch removes this value.
+     * <p>
+     * Every constraint is weighted whatever the level at which it is posted,
+     * except the value decisions such as {@link Factory#equal(IntVar, int)}.
+     * A propagating constraint posted inside the search is thus weighted as well:
+     * if it fails, it stays in {@link Solver#getFailedConstraints()}
+     * and keeps its weight once its node is backtracked.
+     *
+     * @param x the variables on which the strategy is applied,
+     *          they must belong to the same solver
+     * @return a dom/wdeg branching strategy
+     * @see DomWdegSearch
+     * @see Factory#makeDfs(Solver, Supplier)
+     */
+    public static Supplier<Procedure[]> domWdeg(IntVar... x) {
+        if (x.length == 0)
+            return () -> EMPTY;
+        return new DomWdegSearch(x);
+    }
+
+    /**
+     * Activity-based search with a decay of 0.999
+     * and activities initialized by 10 random dives at the root.
+     *
+     * @param x the variables on which the strategy is applied,
+     *          they must belong to the same solver
+     * @return an activity-based branching strategy
+     * @see ActivityBasedSearch
+     */
+    public static Supplier<Procedure[]> activityBasedSearch(IntVar... x) {
+        return new ActivityBasedSearch(x, 0.999, 10, 0);
+    }
+
+    /**
+     * Impact-based search with a smoothing of 0.25
+     * and impacts initialized by 10 random dives at the root.
+     *
+     * @param x the variables on which the strategy is applied,
+     *          they must belong to the same solver
+     * @return an impact-based branching strategy
+     * @see ImpactBasedSearch
+     */
+    public static Supplier<Procedure[]> impactBasedSearch(IntVar... x) {
+        return new ImpactBasedSearch(x, 0.25, 10, 0);
+    }
+
     /**
      * Sequential Search combinator that linearly
      * considers a list of branching generator.
@@ -178,17 +331,18 @@ public final class BranchingScheme {
      * @param valueSelector given a variable, returns the value to which
      *                      it must be assigned on the left branch (and excluded on the right)
      */
-    private static IntVar lastConflict = null;
     public static Supplier<Procedure[]> lastConflict(Supplier<IntVar> variableSelector, Function<IntVar, Integer> valueSelector) {
+        // the state of the heuristic belongs to the branching, such that solvers do not interfere
+        IntVar[] lastConflict = new IntVar[1];
         return () -> {
-            IntVar x = (lastConflict != null && !lastConflict.isFixed()) ? lastConflict : variableSelector.get();
+            IntVar x = (lastConflict[0] != null && !lastConflict[0].isFixed()) ? lastConflict[0] : variableSelector.get();
             if (x != null && !x.isFixed()) {
                 int v = valueSelector.apply(x);
                 Procedure left = () -> {
                     try {
                         x.getSolver().post(equal(x, v));
                     } catch (InconsistencyException e) {
-                        lastConflict = x;
+                        lastConflict[0] = x;
                         throw e;
                     }
                 };
@@ -196,7 +350,7 @@ public final class BranchingScheme {
                     try {
                         x.getSolver().post(notEqual(x, v));
                     } catch (InconsistencyException e) {
-                        lastConflict = x;
+                        lastConflict[0] = x;
                         throw e;
                     }
                 };
@@ -205,13 +359,8 @@ public final class BranchingScheme {
                 return EMPTY;
             }
         };
-
-
     }
 
-
-
-
     /**
      * Conflict Ordering Search
      *
@@ -224,9 +373,10 @@ public final class BranchingScheme {
      * @param valueSelector given a variable, returns the value to which
      *                      it must be assigned on the left branch (and excluded on the right)
      */
-    private static Map<IntVar, Integer> conflictOrdering = new HashMap<>();
-    private static int nConflicts=0;
     public static Supplier<Procedure[]> conflictOrderingSearch(Supplier<IntVar> variableSelector, Function<IntVar, Integer> valueSelector) {
+        // the state of the heuristic belongs to the branching, such that solvers do not interfere
+        Map<IntVar, Integer> conflictOrdering = new HashMap<>();
+        int[] nConflicts = new int[1];
         return () -> {
             IntVar x;
             if(conflictOrdering.isEmpty() || conflictOrdering.entrySet().stream().allMatch(curr -> curr.getValue()==0 || curr.getKey().isFixed())){
@@ -245,8 +395,7 @@ public final class BranchingScheme {
                     try {
                         x.getSolver().post(equal(x, v));
                     } catch (InconsistencyException e) {
-                        nConflicts++;
-                        conflictOrdering.put(x, nConflicts);
+                        conflictOrdering.put(x, ++nConflicts[0]);
                         throw e;
                     }
                 };
@@ -254,8 +403,7 @@ public final class BranchingScheme {
                     try {
                         x.getSolver().post(notEqual(x, v));
                     } catch (InconsistencyException e) {
-                        nConflicts++;
-                        conflictOrdering.put(x, nConflicts);
+                        conflictOrdering.put(x, ++nConflicts[0]);
                         throw e;
                     }
                 };
@@ -85,11 +85,16 @@ public final class Factory {
      * @return a variable with domain equal to the set {0,...,sz-1}
      */
     public static IntVar makeIntVar(Solver cp, int sz) {
-        return new IntVarImpl(cp, sz);
+        return makeIntVar(cp, 0, sz - 1);
     }
 
     /**
      * Creates a variable with a domain equal to the specified range.
+     * Small ranges are represented with a reversible bitset
+     * (see {@link minicp.engine.core.BitSetDomain}), larger ones
+     * with a sparse-set.
+     * The variable is created in the {@link minicp.engine.core.VarStore}
+     * of the solver if it has one.
      *
      * @param cp the solver in which the variable is created
      * @param min the lower bound of the domain (included)
@@ -97,6 +102,9 @@ public final class Factory {
      * @return a variable with domain equal to the set {min,...,max}
      */
     public static IntVar makeIntVar(Solver cp, int min, int max) {
+        VarStore store = cp.getVarStore();
+        if (store != null)
+            return store.makeIntVar(min, max);
         return new IntVarImpl(cp, min, max);
     }
 
@@ -111,6 +119,38 @@ public final class Factory {
         return new IntVarImpl(cp, values);
     }
 
+    /**
+     * Creates a variable with a domain equal to the specified range
+     * represented as a list of disjoint intervals.
+     * It is suited for large ranges with few holes such as
+     * the start times of activities over a scheduling horizon
+     * since its memory does not depend on the size of the range.
+     *
+     * @param cp the solver in which the variable is created
+     * @param min the lower bound of the domain (included)
+     * @param max the upper bound of the domain (included) {@code max > min}
+     * @return a variable with domain equal to the set {min,...,max}
+     * @see IntervalListDomain
+     */
+    public static IntVar makeIntervalListIntVar(Solver cp, int min, int max) {
+        return new IntVarImpl(cp, new IntervalListDomain(cp.getStateManager(), min, max));
+    }
+
+    /**
+     * Creates an array of variables with specified domain bounds
+     * represented as lists of disjoint intervals.
+     *
+     * @param cp the solver in which the variables are created
+     * @param n the number of variables to create
+     * @param min the lower bound of the domain (included)
+     * @param max the upper bound of the domain (included) {@code max > min}
+     * @return an array of n variables each with a domain equal to the set {min,...,max}
+     * @see #makeIntervalListIntVar(Solver, int, int)
+     */
+    public static IntVar[] makeIntervalListIntVarArray(Solver cp, int n, int min, int max) {
+        return makeIntVarArray(n, i -> makeIntervalListIntVar(cp, min, max));
+    }
+
     /**
      * Creates a boolean variable.
      *
@@ -320,7 +360,7 @@ public final class Factory {
      * @return a constraint so that {@code x = v}
      */
     public static Constraint equal(IntVar x, int v) {
-        return new AbstractConstraint(x.getSolver()) {
+        return new AbstractConstraint(x.getSolver(), false) {
             @Override
             public void post() {
                 x.fix(v);
@@ -337,7 +377,7 @@ public final class Factory {
      * @return a constraint so that {@code x <= v}
      */
     public static Constraint lessOrEqual(IntVar x, int v) {
-        return new AbstractConstraint(x.getSolver()) {
+        return new AbstractConstraint(x.getSolver(), false) {
             @Override
             public void post() {
                 x.removeAbove(v);
@@ -354,7 +394,7 @@ public final class Factory {
      * @return a constraint so that {@code x >= v}
      */
     public static Constraint largerOrEqual(IntVar x, int v) {
-        return new AbstractConstraint(x.getSolver()) {
+        return new AbstractConstraint(x.getSolver(), false) {
             @Override
             public void post() {
                 x.removeBelow(v);
@@ -371,7 +411,7 @@ public final class Factory {
      * @return a constraint so that {@code x != y}
      */
     public static Constraint notEqual(IntVar x, int v) {
-        return new AbstractConstraint(x.getSolver()) {
+        return new AbstractConstraint(x.getSolver(), false) {
             @Override
             public void post() {
                 x.remove(v);
@@ -17,10 +17,13 @@ package minicp.engine.constraints;
 
 import minicp.engine.core.AbstractConstraint;
 import minicp.engine.core.IntVar;
+import minicp.state.Snapshot;
+import minicp.state.Snapshotable;
 import minicp.state.StateInt;
 import minicp.util.exception.InconsistencyException;
 import minicp.util.exception.NotImplementedException;
 
+import java.nio.ByteBuffer;
 import java.util.LinkedList;
 import java.util.stream.IntStream;
 
@@ -32,7 +35,7 @@ import java.util.stream.IntStream;
  * This filtering is weaker than the {@link AllDifferentDC}
  * but executes faster.
  */
-public class AllDifferentFWC extends AbstractConstraint {
+public class AllDifferentFWC extends AbstractConstraint implements Snapshotable {
 
     private IntVar[] x;
     private int[] fixed;
@@ -44,6 +47,23 @@ public class AllDifferentFWC extends AbstractConstraint {
         int n=this.x.length;
         nFixed=getSolver().getStateManager().makeStateInt(0);
         fixed=IntStream.range(0,n).toArray();
+        getSolver().getStateManager().getSnapshotRegistry().register(this);
+    }
+
+    @Override
+    public int snapshotSize() {
+        return 4 * fixed.length;
+    }
+
+    @Override
+    public void writeSnapshot(ByteBuffer buf) {
+        // the order of the array goes with the registered size
+        Snapshot.putInts(buf, fixed, 0, fixed.length);
+    }
+
+    @Override
+    public void readSnapshot(ByteBuffer buf) {
+        Snapshot.getInts(buf, fixed, 0, fixed.length);
     }
 
     @Override
@@ -19,10 +19,13 @@ package minicp.engine.constraints;
 import minicp.engine.core.AbstractConstraint;
 import minicp.engine.core.IntVar;
 import minicp.state.StateInt;
+import minicp.state.StateIntArray;
 import minicp.util.exception.InconsistencyException;
 import minicp.util.exception.NotImplementedException;
 import static minicp.cp.Factory.allDifferent;
 
+import java.util.stream.IntStream;
+
 /**
  * Hamiltonian Circuit Constraint with a successor model
  */
@@ -43,13 +46,17 @@ public class Circuit extends AbstractConstraint {
     public Circuit(IntVar[] x) {
         super(x[0].getSolver());
         this.x = x;
+        int[] identity = IntStream.range(0, x.length).toArray();
+        StateIntArray destArray = new StateIntArray(getSolver().getStateManager(), identity);
+        StateIntArray origArray = new StateIntArray(getSolver().getStateManager(), identity);
+        StateIntArray lengthArray = new StateIntArray(getSolver().getStateManager(), x.length, 0);
         dest = new StateInt[x.length];
         orig = new StateInt[x.length];
         lengthToDest = new StateInt[x.length];
         for (int i = 0; i < x.length; i++) {
-            dest[i] = getSolver().getStateManager().makeStateInt(i);
-            orig[i] = getSolver().getStateManager().makeStateInt(i);
-            lengthToDest[i] = getSolver().getStateManager().makeStateInt(0);
+            dest[i] = destArray.stateInt(i);
+            orig[i] = origArray.stateInt(i);
+            lengthToDest[i] = lengthArray.stateInt(i);
         }
     }
     @Override
@@ -18,12 +18,12 @@ package minicp.engine.constraints;
 import minicp.engine.core.AbstractConstraint;
 import minicp.engine.core.IntVar;
 import minicp.state.StateInt;
+import minicp.state.StateIntArray;
 import minicp.state.StateManager;
 import minicp.util.exception.InconsistencyException;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.stream.IntStream;
 
 
 /**
@@ -36,8 +36,8 @@ public class Element2D extends AbstractConstraint {
     private final int[][] matrix;
     private final IntVar x, y, z;
     private int n, m;
-    private final StateInt[] nRowsSup;
-    private final StateInt[] nColsSup;
+    private final StateIntArray nRowsSup;
+    private final StateIntArray nColsSup;
 
     private final StateInt low;
     private final StateInt up;
@@ -82,8 +82,8 @@ public class Element2D extends AbstractConstraint {
         StateManager sm = getSolver().getStateManager();
         low = sm.makeStateInt(0);
         up = sm.makeStateInt(xyz.size() - 1);
-        nColsSup = IntStream.range(0, n).mapToObj(i -> sm.makeStateInt(this.m)).toArray(StateInt[]::new);
-        nRowsSup = IntStream.range(0, this.m).mapToObj(i -> sm.makeStateInt(n)).toArray(StateInt[]::new);
+        nColsSup = new StateIntArray(sm, n, this.m);
+        nRowsSup = new StateIntArray(sm, this.m, n);
     }
 
     @Override
@@ -99,9 +99,9 @@ public class Element2D extends AbstractConstraint {
     }
 
     private void updateSupports(int lostPos) {
-        if (nColsSup[xyz.get(lostPos).x].decrement() == 0)
+        if (nColsSup.decrement(xyz.get(lostPos).x) == 0)
             x.remove(xyz.get(lostPos).x);
-        if (nRowsSup[xyz.get(lostPos).y].decrement() == 0)
+        if (nRowsSup.decrement(xyz.get(lostPos).y) == 0)
             y.remove(xyz.get(lostPos).y);
     }
 
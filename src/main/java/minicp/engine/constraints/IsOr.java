@@ -17,12 +17,17 @@ package minicp.engine.constraints;
 
 import minicp.engine.core.AbstractConstraint;
 import minicp.engine.core.BoolVar;
+import minicp.state.Snapshot;
+import minicp.state.Snapshotable;
 import minicp.state.StateInt;
 import minicp.util.exception.NotImplementedException;
+
+import java.nio.ByteBuffer;
+
 /**
  * Reified logical or constraint
  */
-public class IsOr extends AbstractConstraint { // b <=> x1 or x2 or ... xn
+public class IsOr extends AbstractConstraint implements Snapshotable { // b <=> x1 or x2 or ... xn
 
     private final BoolVar b;
     private final BoolVar[] x;
@@ -53,6 +58,23 @@ public class IsOr extends AbstractConstraint { // b <=> x1 or x2 or ... xn
         for (int i = 0; i < n; i++) {
             freeVarIndex[i] = i;
         }
+        getSolver().getStateManager().getSnapshotRegistry().register(this);
+    }
+
+    @Override
+    public int snapshotSize() {
+        return 4 * freeVarIndex.length;
+    }
+
+    @Override
+    public void writeSnapshot(ByteBuffer buf) {
+        // the order of the array goes with the registered size
+        Snapshot.putInts(buf, freeVarIndex, 0, freeVarIndex.length);
+    }
+
+    @Override
+    public void readSnapshot(ByteBuffer buf) {
+        Snapshot.getInts(buf, freeVarIndex, 0, freeVarIndex.length);
     }
 
     @Override
@@ -0,0 +1,179 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+package minicp.engine.constraints;
+
+import minicp.engine.core.IntVar;
+import minicp.engine.core.Solver;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import static minicp.util.exception.InconsistencyException.INCONSISTENCY;
+
+/**
+ * Store of nogoods, each one forbidding a conjunction of assignments
+ * {@code not(x1 = v1 and x2 = v2 and ... xk = vk)}.
+ * <p>
+ * The nogoods are propagated with two watched literals:
+ * each nogood watches two assignments that are not entailed.
+ * When a watched assignment becomes entailed, another one is watched
+ * or, if all the others are entailed, the value of the remaining one is removed.
+ * The watches need not be restored on backtrack.
+ * <p>
+ * The nogoods are permanent at the level where they are added,
+ * typically the root of a search with restarts.
+ * <p>
+ * The store is not a constraint that is posted:
+ * the nogoods are propagated by listeners on the fixing of their variables,
+ * registered the first time a variable appears in a nogood.
+ */
+public class NogoodStore {
+
+    private final Solver cp;
+
+    private final Map<IntVar, Integer> ids = new IdentityHashMap<>();
+    private IntVar[] vars = new IntVar[16];
+    private int[][] watches = new int[16][];  // for each variable, 2 * nogood + watch
+    private int[] nWatches = new int[16];
+
+    private int[][] nogoodVar = new int[16][];
+    private int[][] nogoodVal = new int[16][];
+    private int[][] watched = new int[16][];  // the two watched literals of each nogood
+    private int nNogoods = 0;
+
+    /**
+     * Creates an empty nogood store.
+     *
+     * @param cp the solver of the variables of the nogoods
+     */
+    public NogoodStore(Solver cp) {
+        this.cp = cp;
+    }
+
+    /**
+     * Returns the number of nogoods in the store.
+     *
+     * @return the number of nogoods
+     */
+    public int size() {
+        return nNogoods;
+    }
+
+    /**
+     * Adds the nogood {@code not(x[0] = v[0] and ... x[k-1] = v[k-1])}
+     * and propagates it.
+     *
+     * @param x the variables of the nogood, all different
+     * @param v the forbidden values of the variables
+     * @throws minicp.util.exception.InconsistencyException if the nogood is violated
+     */
+    public void add(IntVar[] x, int[] v) {
+        if (x.length != v.length) throw new IllegalArgumentException("one value is needed per variable");
+        int k = x.length;
+        if (k == 0) throw INCONSISTENCY;
+        int[] var = new int[k];
+        for (int i = 0; i < k; i++) {
+            if (x[i].getSolver() != cp)
+                throw new IllegalArgumentException("the variables must belong to the solver of the store");
+            var[i] = id(x[i]);
+        }
+        int c = nNogoods++;
+        if (c == nogoodVar.length) {
+            nogoodVar = Arrays.copyOf(nogoodVar, c * 2);
+            nogoodVal = Arrays.copyOf(nogoodVal, c * 2);
+            watched = Arrays.copyOf(watched, c * 2);
+        }
+        nogoodVar[c] = var;
+        nogoodVal[c] = v.clone();
+        // watch two literals that are not entailed, if possible
+        int[] w = new int[]{-1, -1};
+        for (int i = 0; i < k && w[1] < 0; i++) {
+            if (!isEntailed(c, i)) {
+                if (w[0] < 0) w[0] = i;
+                else w[1] = i;
+            }
+        }
+        if (w[0] < 0) throw INCONSISTENCY;
+        if (w[1] < 0) w[1] = w[0] == 0 ? Math.min(1, k - 1) : 0;
+        watched[c] = w;
+        watch(var[w[0]], 2 * c);
+        if (w[1] != w[0])
+            watch(var[w[1]], 2 * c + 1);
+        if (w[1] == w[0] || isEntailed(c, w[1]))
+            vars[var[w[0]]].remove(v[w[0]]);
+    }
+
+    private boolean isEntailed(int c, int i) {
+        IntVar x = vars[nogoodVar[c][i]];
+        return x.isFixed() && x.min() == nogoodVal[c][i];
+    }
+
+    private int id(IntVar x) {
+        Integer id = ids.get(x);
+        if (id != null) return id;
+        int i = ids.size();
+        ids.put(x, i);
+        if (i == vars.length) {
+            vars = Arrays.copyOf(vars, i * 2);
+            watches = Arrays.copyOf(watches, i * 2);
+            nWatches = Arrays.copyOf(nWatches, i * 2);
+        }
+        vars[i] = x;
+        watches[i] = new int[4];
+        x.whenFixed(() -> fixed(i));
+        return i;
+    }
+
+    private void watch(int var, int entry) {
+        if (nWatches[var] == watches[var].length)
+            watches[var] = Arrays.copyOf(watches[var], nWatches[var] * 2);
+        watches[var][nWatches[var]++] = entry;
+    }
+
+    /**
+     * Visits the nogoods watching an assignment of a variable that was just fixed.
+     */
+    private void fixed(int var) {
+        int value = vars[var].min();
+        int i = 0;
+        while (i < nWatches[var]) {
+            int entry = watches[var][i];
+            int c = entry >> 1;
+            int[] w = watched[c];
+            int me = entry & 1;
+            if (nogoodVal[c][w[me]] != value) {
+                i++; // the watched literal is false, the nogood is satisfied
+                continue;
+            }
+            int other = w[1 - me];
+            int[] scope = nogoodVar[c];
+            int replacement = -1;
+            for (int k = 0; k < scope.length && replacement < 0; k++)
+                if (k != w[0] && k != w[1] && !isEntailed(c, k))
+                    replacement = k;
+            if (replacement >= 0) {
+                w[me] = replacement;
+                watches[var][i] = watches[var][--nWatches[var]];
+                watch(scope[replacement], entry);
+            } else {
+                if (isEntailed(c, other))
+                    throw INCONSISTENCY;
+                vars[scope[other]].remove(nogoodVal[c][other]);
+                i++;
+            }
+        }
+    }
+}
@@ -52,6 +52,9 @@ public class Or extends AbstractConstraint { // x1 or x2 or ... xn
 
     @Override
     public void post() {
+        // the watched literals change during the search
+        for (BoolVar xi : x)
+            addToScope(xi);
         propagate();
     }
 
@@ -67,7 +70,7 @@ public class Or extends AbstractConstraint { // x1 or x2 or ... xn
 
             while (wR.value() > wL.value() && x[wR.value()].isFalse()) wR.decrement();
 
-            if (wL.value().equals(wR.value())) {
+            if (wL.value() == wR.value()) {
                 x[wL.value()].fix(1);
             }
             x[wL.value()].propagateOnFix(this);
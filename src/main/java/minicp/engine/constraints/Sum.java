@@ -18,22 +18,25 @@ package minicp.engine.constraints;
 import minicp.cp.Factory;
 import minicp.engine.core.AbstractConstraint;
 import minicp.engine.core.IntVar;
-import minicp.state.State;
+import minicp.state.Snapshot;
+import minicp.state.Snapshotable;
 import minicp.state.StateInt;
+import minicp.state.StateLong;
 import minicp.util.exception.InconsistencyException;
 import minicp.util.exception.NotImplementedException;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.stream.IntStream;
 
 /**
  * Sum Constraint
  */
-public class Sum extends AbstractConstraint {
+public class Sum extends AbstractConstraint implements Snapshotable {
 
     private int[] fixed;
     private StateInt nFixed;
-    private State<Long> sumFixed;
+    private StateLong sumFixed;
     private IntVar[] x;
     private int[] min, max;
     private int n;
@@ -78,8 +81,25 @@ public class Sum extends AbstractConstraint {
         min = new int[x.length];
         max = new int[x.length];
         nFixed = getSolver().getStateManager().makeStateInt(0);
-        sumFixed = getSolver().getStateManager().makeStateRef(Long.valueOf(0));
+        sumFixed = getSolver().getStateManager().makeStateLong(0);
         fixed = IntStream.range(0, n).toArray();
+        getSolver().getStateManager().getSnapshotRegistry().register(this);
+    }
+
+    @Override
+    public int snapshotSize() {
+        return 4 * fixed.length;
+    }
+
+    @Override
+    public void writeSnapshot(ByteBuffer buf) {
+        // the order of the array goes with the registered size
+        Snapshot.putInts(buf, fixed, 0, fixed.length);
+    }
+
+    @Override
+    public void readSnapshot(ByteBuffer buf) {
+        Snapshot.getInts(buf, fixed, 0, fixed.length);
     }
 
     @Override
@@ -17,6 +17,7 @@ package minicp.engine.constraints;
 
 import minicp.engine.core.AbstractConstraint;
 import minicp.engine.core.IntVar;
+import minicp.state.StateHint;
 import minicp.state.StateInt;
 import minicp.state.StateSparseBitSet;
 import minicp.util.exception.InconsistencyException;
@@ -66,7 +67,9 @@ public class TableCT extends AbstractConstraint {
         this.table = table;
         dom = new int[Arrays.stream(x).map(var -> var.size()).max(Integer::compare).get()];
 
-        supportedTuples = new StateSparseBitSet(this.getSolver().getStateManager(), table.length);
+        // the supported tuples shrink at almost every node
+        supportedTuples = new StateSparseBitSet(this.getSolver().getStateManager(), table.length,
+                StateHint.FREQUENTLY_MODIFIED);
 
         // Allocate supports
         supports = new StateSparseBitSet.SupportBitSet[x.length][];
@@ -16,7 +16,13 @@
 package minicp.engine.core;
 
 
-import minicp.state.State;
+import minicp.state.StateBool;
+import minicp.state.StateHint;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
 
 
 /**
@@ -30,11 +36,43 @@ public abstract class AbstractConstraint implements Constraint {
      */
     private final Solver cp;
     private boolean scheduled = false;
-    private final State<Boolean> active;
+    private final StateBool active;
+
+    // variables on which the constraint listens, not reversible,
+    // only recorded for a weighted constraint and allocated at the first one
+    private IntVar[] scope = null;
+    private int scopeSize = 0;
+    // used instead of a linear scan to avoid duplicates in large scopes
+    private Set<IntVar> scopeSet = null;
+    private boolean scopeClosed = false;
+    private int weight = 0;
+    private final boolean weighted;
 
+    /**
+     * Creates a weighted constraint.
+     *
+     * @param cp the solver in which the constraint is created
+     * @see Constraint#getWeight()
+     */
     public AbstractConstraint(Solver cp) {
+        this(cp, true);
+    }
+
+    /**
+     * Creates a constraint.
+     * A constraint that is not weighted records neither its scope
+     * nor its failures: it suits the constraints that do not outlive
+     * the node of the search in which they are posted, such as the decisions,
+     * whatever the level at which the model is built.
+     *
+     * @param cp       the solver in which the constraint is created
+     * @param weighted whether the failures of the constraint are counted
+     * @see Constraint#getWeight()
+     */
+    protected AbstractConstraint(Solver cp, boolean weighted) {
         this.cp = cp;
-        active = cp.getStateManager().makeStateRef(true);
+        this.weighted = weighted;
+        active = cp.getStateManager().makeStateBool(true, StateHint.RARELY_MODIFIED);
     }
 
     public void post() {
@@ -62,4 +100,45 @@ public abstract class AbstractConstraint implements Constraint {
     public boolean isActive() {
         return active.value();
     }
+
+    public void addToScope(IntVar x) {
+        if (!weighted || scopeClosed) return;
+        if (scope == null) scope = new IntVar[4];
+        if (scopeSet != null) {
+            if (!scopeSet.add(x)) return;
+        } else {
+            for (int i = 0; i < scopeSize; i++)
+                if (scope[i] == x) return;
+            if (scopeSize == 16) {
+                scopeSet = Collections.newSetFromMap(new IdentityHashMap<>());
+                scopeSet.addAll(Arrays.asList(scope).subList(0, scopeSize));
+                scopeSet.add(x);
+            }
+        }
+        if (scopeSize == scope.length)
+            scope = Arrays.copyOf(scope, scopeSize * 2);
+        scope[scopeSize++] = x;
+    }
+
+    public void closeScope() {
+        scopeClosed = true;
+        scopeSet = null;
+    }
+
+    public int getScopeSize() {
+        return scopeSize;
+    }
+
+    public IntVar getScopeVariable(int i) {
+        if (i >= scopeSize) throw new IndexOutOfBoundsException(i);
+        return scope[i];
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+
+    public void incrementWeight() {
+        if (weighted) weight++;
+    }
 }
@@ -0,0 +1,221 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+
+package minicp.engine.core;
+
+
+import minicp.state.StateHint;
+import minicp.state.StateLong;
+import minicp.state.StateManager;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Implementation of a domain with a reversible bitset.
+ * The domain is stored in a few {@link StateLong} words,
+ * one bit per value of the initial range.
+ * It is suited for small dense domains (at most {@link #MAX_SIZE} values)
+ * since it does not allocate any array of the size of the domain
+ * and only trails the words that are modified.
+ *
+ * @see IntVarImpl
+ */
+public class BitSetDomain implements IntDomain {
+
+    /**
+     * Maximum number of values in the initial range of a bitset domain
+     */
+    public static final int MAX_SIZE = 256;
+
+    private final StateLong[] words;
+    private final int ofs;
+    private final int n;
+
+    /**
+     * Creates a domain with the elements {@code {min,...,max}}.
+     *
+     * @param sm the state manager in which the domain is created
+     * @param min the minimum value of the domain
+     * @param max the maximum value of the domain
+     *            with {@code max >= min} and {@code max - min < MAX_SIZE}
+     */
+    public BitSetDomain(StateManager sm, int min, int max) {
+        if (min > max || (long) max - min >= MAX_SIZE)
+            throw new IllegalArgumentException("range too large for a bitset domain: [" + min + "," + max + "]");
+        this.ofs = min;
+        this.n = max - min + 1;
+        int nWords = (n + 63) >>> 6;
+        words = new StateLong[nWords];
+        for (int i = 0; i < nWords; i++)
+            words[i] = sm.makeStateLong(-1L, StateHint.FREQUENTLY_MODIFIED);
+        if ((n & 63) != 0)
+            words[nWords - 1].setValue((1L << (n & 63)) - 1);
+    }
+
+    @Override
+    public int fillArray(int[] dest) {
+        int k = 0;
+        for (int i = 0; i < words.length; i++) {
+            long w = words[i].value();
+            int base = ofs + (i << 6);
+            while (w != 0) {
+                dest[k++] = base + Long.numberOfTrailingZeros(w);
+                w &= w - 1;
+            }
+        }
+        return k;
+    }
+
+    @Override
+    public int min() {
+        for (int i = 0; i < words.length; i++) {
+            long w = words[i].value();
+            if (w != 0)
+                return ofs + (i << 6) + Long.numberOfTrailingZeros(w);
+        }
+        throw new NoSuchElementException();
+    }
+
+    @Override
+    public int max() {
+        for (int i = words.length - 1; i >= 0; i--) {
+            long w = words[i].value();
+            if (w != 0)
+                return ofs + (i << 6) + 63 - Long.numberOfLeadingZeros(w);
+        }
+        throw new NoSuchElementException();
+    }
+
+    @Override
+    public int size() {
+        int s = 0;
+        for (int i = 0; i < words.length; i++)
+            s += Long.bitCount(words[i].value());
+        return s;
+    }
+
+    @Override
+    public boolean contains(int v) {
+        int i = v - ofs;
+        if (i < 0 || i >= n)
+            return false;
+        return (words[i >>> 6].value() & (1L << i)) != 0;
+    }
+
+    @Override
+    public boolean isSingleton() {
+        return size() == 1;
+    }
+
+    @Override
+    public void remove(int v, DomainListener l) {
+        if (contains(v)) {
+            boolean maxChanged = max() == v;
+            boolean minChanged = min() == v;
+            int i = v - ofs;
+            StateLong word = words[i >>> 6];
+            word.setValue(word.value() & ~(1L << i));
+            int size = size();
+            if (size == 0)
+                l.empty();
+            l.change();
+            if (maxChanged) l.changeMax();
+            if (minChanged) l.changeMin();
+            if (size == 1) l.fix();
+        }
+    }
+
+    @Override
+    public void removeAllBut(int v, DomainListener l) {
+        if (contains(v)) {
+            if (size() != 1) {
+                boolean maxChanged = max() != v;
+                boolean minChanged = min() != v;
+                int i = v - ofs;
+                int wi = i >>> 6;
+                for (int k = 0; k < words.length; k++)
+                    setWord(k, k == wi ? 1L << i : 0L);
+                l.fix();
+                l.change();
+                if (maxChanged) l.changeMax();
+                if (minChanged) l.changeMin();
+            }
+        } else {
+            for (int k = 0; k < words.length; k++)
+                setWord(k, 0L);
+            l.empty();
+        }
+    }
+
+    @Override
+    public void removeBelow(int value, DomainListener l) {
+        if (min() < value) {
+            int i = value - ofs;
+            int wi = Math.min(i >>> 6, words.length);
+            for (int k = 0; k < wi; k++)
+                setWord(k, 0L);
+            if (wi < words.length)
+                setWord(wi, words[wi].value() & (-1L << i));
+            notifyBoundChange(l, true);
+        }
+    }
+
+    @Override
+    public void removeAbove(int value, DomainListener l) {
+        if (max() > value) {
+            int i = value - ofs;
+            int wi = i < 0 ? -1 : i >>> 6;
+            for (int k = words.length - 1; k > wi; k--)
+                setWord(k, 0L);
+            if (wi >= 0)
+                setWord(wi, words[wi].value() & (-1L >>> (63 - (i & 63))));
+            notifyBoundChange(l, false);
+        }
+    }
+
+    private void setWord(int k, long w) {
+        if (words[k].value() != w)
+            words[k].setValue(w);
+    }
+
+    private void notifyBoundChange(DomainListener l, boolean minChanged) {
+        switch (size()) {
+            case 0:
+                l.empty();
+                break;
+            case 1:
+                l.fix();
+            default:
+                if (minChanged) l.changeMin();
+                else l.changeMax();
+                l.change();
+                break;
+        }
+    }
+
+    @Override
+    public String toString() {
+        if (size() == 0) return "{}";
+        StringBuilder b = new StringBuilder();
+        b.append("{");
+        for (int i = min(); i < max(); i++)
+            if (contains((i)))
+                b.append(i).append(',');
+        b.append(max());
+        b.append("}");
+        return b.toString();
+    }
+
+}
@@ -33,7 +33,8 @@ public class BoolVarImpl implements BoolVar {
     }
 
     public BoolVarImpl(Solver cp) {
-        this.binaryVar = new IntVarImpl(cp, 0, 1);
+        VarStore store = cp.getVarStore();
+        this.binaryVar = store != null ? store.makeIntVar(0, 1) : new IntVarImpl(cp, 0, 1);
     }
 
     @Override
@@ -73,16 +74,19 @@ public class BoolVarImpl implements BoolVar {
 
     @Override
     public void propagateOnDomainChange(Constraint c) {
+        c.addToScope(this);
         binaryVar.propagateOnDomainChange(c);
     }
 
     @Override
     public void propagateOnFix(Constraint c) {
+        c.addToScope(this);
         binaryVar.propagateOnFix(c);
     }
 
     @Override
     public void propagateOnBoundChange(Constraint c) {
+        c.addToScope(this);
         binaryVar.propagateOnBoundChange(c);
     }
 
@@ -74,5 +74,66 @@ public interface Constraint {
      */
     boolean isActive();
 
+    /**
+     * Records that the constraint listens to a variable.
+     * Called by the variables when the constraint asks to be propagated
+     * on their events while it is posted, it is not intended to be called by the user
+     * except by the constraints that listen to their variables lazily
+     * (e.g. with watched literals), to declare their whole scope in {@link #post()}.
+     *
+     * @param x a variable in the scope of the constraint
+     */
+    default void addToScope(IntVar x) {
+    }
+
+    /**
+     * Called by the solver once the constraint is posted.
+     * The variables the constraint listens to afterwards are
+     * not added to its scope, such that the registrations
+     * during the search cost nothing.
+     */
+    default void closeScope() {
+    }
+
+    /**
+     * Returns the number of variables in the scope of the constraint,
+     * that is the ones it listens to once posted.
+     *
+     * @return the size of the scope, 0 if it is not recorded
+     */
+    default int getScopeSize() {
+        return 0;
+    }
+
+    /**
+     * Returns a variable in the scope of the constraint.
+     *
+     * @param i an index between 0 and {@link #getScopeSize()} - 1
+     * @return the i-th variable of the scope
+     */
+    default IntVar getScopeVariable(int i) {
+        throw new IndexOutOfBoundsException(i);
+    }
+
+    /**
+     * Returns the number of failures raised by the propagation of the constraint.
+     *
+     * @return the weight of the constraint
+     * @see Solver#getFailedConstraints()
+     */
+    default int getWeight() {
+        return 0;
+    }
+
+    /**
+     * Increments the weight of the constraint.
+     * Called by the solver when the propagation of the constraint fails,
+     * it is not intended to be called by the user.
+     * The constraints that do not outlive the node in which they are posted,
+     * such as the decisions of a search, may ignore it
+     * (see {@link AbstractConstraint#AbstractConstraint(Solver, boolean)}).
+     */
+    default void incrementWeight() {
+    }
 
 }
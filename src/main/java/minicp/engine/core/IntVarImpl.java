@@ -15,6 +15,7 @@
 
 package minicp.engine.core;
 
+import minicp.state.StateManager;
 import minicp.state.StateStack;
 import minicp.util.Procedure;
 import minicp.util.exception.InconsistencyException;
@@ -28,7 +29,9 @@ import java.util.Set;
 
 /**
  * Implementation of a variable
- * with a {@link SparseSetDomain}.
+ * with a {@link BitSetDomain} if the initial range is small
+ * (at most {@link BitSetDomain#MAX_SIZE} values)
+ * and with a {@link SparseSetDomain} otherwise.
  */
 public class IntVarImpl implements IntVar {
 
@@ -88,7 +91,24 @@ public class IntVarImpl implements IntVar {
         if (min == Integer.MIN_VALUE || max == Integer.MAX_VALUE) throw new InvalidParameterException("consider reducing the domains, Integer.MIN _VALUE and Integer.MAX_VALUE not allowed");
         if (min > max) throw new InvalidParameterException("at least one setValue in the domain");
         this.cp = cp;
-        domain = new SparseSetDomain(cp.getStateManager(), min, max);
+        domain = makeDomain(cp.getStateManager(), min, max);
+        onDomain = new StateStack<>(cp.getStateManager());
+        onFix = new StateStack<>(cp.getStateManager());
+        onBound = new StateStack<>(cp.getStateManager());
+    }
+
+    /**
+     * Creates a variable with a given domain implementation
+     * such as an {@link IntervalListDomain}.
+     *
+     * @param cp the solver in which the variable is created
+     * @param domain the initial domain, it must be nonempty and created
+     *               with the state manager of the solver
+     */
+    public IntVarImpl(Solver cp, IntDomain domain) {
+        if (domain.size() == 0) throw new InvalidParameterException("at least one setValue in the domain");
+        this.cp = cp;
+        this.domain = domain;
         onDomain = new StateStack<>(cp.getStateManager());
         onFix = new StateStack<>(cp.getStateManager());
         onBound = new StateStack<>(cp.getStateManager());
@@ -114,7 +134,7 @@ public class IntVarImpl implements IntVar {
             }
         }
         this.cp=cp;
-        domain=new SparseSetDomain(cp.getStateManager(),min,max);
+        domain=makeDomain(cp.getStateManager(),min,max);
 
         onDomain= new StateStack<>(cp.getStateManager());
         onFix=new StateStack<>(cp.getStateManager());
@@ -130,6 +150,12 @@ public class IntVarImpl implements IntVar {
 
 
 
+    }
+
+    private static IntDomain makeDomain(StateManager sm, int min, int max) {
+        if ((long) max - min < BitSetDomain.MAX_SIZE)
+            return new BitSetDomain(sm, min, max);
+        return new SparseSetDomain(sm, min, max);
     }
 
     @Override
@@ -170,16 +196,19 @@ public class IntVarImpl implements IntVar {
 
     @Override
     public void propagateOnDomainChange(Constraint c) {
+        c.addToScope(this);
         onDomain.push(c);
     }
 
     @Override
     public void propagateOnFix(Constraint c) {
+        c.addToScope(this);
         onFix.push(c);
     }
 
     @Override
     public void propagateOnBoundChange(Constraint c) {
+        c.addToScope(this);
         onBound.push(c);
     }
 
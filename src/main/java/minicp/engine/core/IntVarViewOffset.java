@@ -59,16 +59,19 @@ public class IntVarViewOffset implements IntVar {
 
     @Override
     public void propagateOnDomainChange(Constraint c) {
+        c.addToScope(this);
         x.propagateOnDomainChange(c);
     }
 
     @Override
     public void propagateOnFix(Constraint c) {
+        c.addToScope(this);
         x.propagateOnFix(c);
     }
 
     @Override
     public void propagateOnBoundChange(Constraint c) {
+        c.addToScope(this);
         x.propagateOnBoundChange(c);
     }
 
@@ -0,0 +1,396 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+
+package minicp.engine.core;
+
+
+import minicp.state.SlotTrail;
+import minicp.state.Snapshot;
+import minicp.state.Snapshotable;
+import minicp.state.StateHint;
+import minicp.state.StateInt;
+import minicp.state.StateManager;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Implementation of a domain with a sorted list of disjoint intervals.
+ * It is suited for large domains with few holes
+ * such as the start times of activities in scheduling
+ * since its memory is proportional to the number of holes
+ * instead of the size of the initial range.
+ * <p>
+ * The intervals are stored in primitive arrays at the positions
+ * {@code first,...,last} in increasing order,
+ * with a Fenwick tree on their sizes to count the values
+ * between two positions in O(log k), for k intervals.
+ * Removing the values below or above a bound
+ * only moves {@code first} or {@code last} (found with a binary search)
+ * and updates one interval, in O(log k).
+ * Removing a bound of an interval is also O(log k), but removing a value
+ * strictly inside an interval splits it in two, and removing an interval
+ * reduced to one value inside the list deletes it: both shift the intervals
+ * on the side of the nearest end of the list, which costs O(k log k).
+ * The bounds of an interval are saved in a {@link SlotTrail}
+ * at most once per saved state, and the tree is updated
+ * when they are restored. Since that trail is restored by the
+ * state manager itself, a backtrack only costs the number
+ * of intervals that were modified, whatever the number of domains.
+ *
+ * @see minicp.cp.Factory#makeIntervalListIntVar(Solver, int, int)
+ */
+public class IntervalListDomain implements IntDomain, Snapshotable {
+
+    private int[] lo;
+    private int[] hi;
+    /* Fenwick tree on the sizes hi[i]-lo[i]+1 of all the positions, including the unused ones */
+    private long[] tree;
+    private final StateInt first;
+    private final StateInt last;
+    private final StateInt size;
+
+    /* trail of the updated intervals, the bounds are packed in a long */
+    private final SlotTrail trail;
+
+    /**
+     * Creates a domain with the elements {@code {min,...,max}}.
+     *
+     * @param sm the state manager in which the domain is created
+     * @param min the minimum value of the domain
+     * @param max the maximum value of the domain with {@code max >= min}
+     */
+    public IntervalListDomain(StateManager sm, int min, int max) {
+        if (min > max || (long) max - min >= Integer.MAX_VALUE)
+            throw new IllegalArgumentException("invalid range for an interval list domain: [" + min + "," + max + "]");
+        lo = new int[4];
+        hi = new int[4];
+        lo[0] = min;
+        hi[0] = max;
+        buildTree();
+        first = sm.makeStateInt(0);
+        last = sm.makeStateInt(0);
+        size = sm.makeStateInt(max - min + 1, StateHint.FREQUENTLY_MODIFIED);
+        trail = new SlotTrail(sm, 4, (i, v) -> putInterval(i, (int) (v >> 32), (int) v));
+        sm.getSnapshotRegistry().register(this);
+    }
+
+    @Override
+    public int snapshotSize() {
+        return 8 * (last.value() - first.value() + 1);
+    }
+
+    @Override
+    public void writeSnapshot(ByteBuffer buf) {
+        int f = first.value();
+        int n = last.value() - f + 1;
+        Snapshot.putInts(buf, lo, f, n);
+        Snapshot.putInts(buf, hi, f, n);
+    }
+
+    @Override
+    public void readSnapshot(ByteBuffer buf) {
+        // first and last are registered states read before
+        int f = first.value();
+        int n = last.value() - f + 1;
+        while (lo.length < f + n)
+            grow();
+        Snapshot.getInts(buf, lo, f, n);
+        Snapshot.getInts(buf, hi, f, n);
+        buildTree();
+    }
+
+    /**
+     * Sets the bounds of the interval at position i and updates the tree.
+     */
+    private void putInterval(int i, int l, int h) {
+        addToTree(i, (long) h - l - (hi[i] - lo[i]));
+        lo[i] = l;
+        hi[i] = h;
+    }
+
+    private void buildTree() {
+        int n = lo.length;
+        tree = new long[n + 1];
+        for (int j = 1; j <= n; j++) {
+            tree[j] += (long) hi[j - 1] - lo[j - 1] + 1;
+            int p = j + (j & -j);
+            if (p <= n) tree[p] += tree[j];
+        }
+    }
+
+    private void addToTree(int i, long delta) {
+        if (delta == 0) return;
+        for (int j = i + 1; j < tree.length; j += j & -j)
+            tree[j] += delta;
+    }
+
+    /**
+     * Returns the number of values in the intervals at the positions {@code 0,...,i-1}.
+     */
+    private long prefix(int i) {
+        long s = 0;
+        for (int j = i; j > 0; j -= j & -j)
+            s += tree[j];
+        return s;
+    }
+
+    /**
+     * Sets the bounds of the interval at position i,
+     * saving its previous bounds if needed.
+     */
+    private void setInterval(int i, int l, int h) {
+        trail.save(i, ((long) lo[i] << 32) | (hi[i] & 0xFFFFFFFFL));
+        putInterval(i, l, h);
+    }
+
+    /**
+     * Returns the position of the first interval
+     * in {@code first,...,last} with an upper bound larger or equal to v,
+     * or {@code last+1} if there is none.
+     */
+    private int search(int v) {
+        int a = first.value();
+        int b = last.value() + 1;
+        while (a < b) {
+            int m = (a + b) >>> 1;
+            if (hi[m] < v) a = m + 1;
+            else b = m;
+        }
+        return a;
+    }
+
+    /**
+     * Returns the position of the interval containing v, or -1 if there is none.
+     */
+    private int indexOf(int v) {
+        if (size.value() == 0) return -1;
+        int i = search(v);
+        return i <= last.value() && lo[i] <= v ? i : -1;
+    }
+
+    @Override
+    public int fillArray(int[] dest) {
+        int k = 0;
+        int l = last.value();
+        for (int i = first.value(); i <= l; i++)
+            for (int v = lo[i]; v <= hi[i]; v++)
+                dest[k++] = v;
+        return size.value();
+    }
+
+    @Override
+    public int min() {
+        if (size.value() == 0)
+            throw new NoSuchElementException();
+        return lo[first.value()];
+    }
+
+    @Override
+    public int max() {
+        if (size.value() == 0)
+            throw new NoSuchElementException();
+        return hi[last.value()];
+    }
+
+    @Override
+    public int size() {
+        return size.value();
+    }
+
+    @Override
+    public boolean contains(int v) {
+        return indexOf(v) >= 0;
+    }
+
+    @Override
+    public boolean isSingleton() {
+        return size.value() == 1;
+    }
+
+    /**
+     * Returns the number of disjoint intervals in the domain.
+     *
+     * @return the number of intervals
+     */
+    public int nIntervals() {
+        return size.value() == 0 ? 0 : last.value() - first.value() + 1;
+    }
+
+    @Override
+    public void remove(int v, DomainListener l) {
+        int i = indexOf(v);
+        if (i >= 0) {
+            boolean maxChanged = max() == v;
+            boolean minChanged = min() == v;
+            removeAt(i, v);
+            int s = size.decrement();
+            if (s == 0)
+                l.empty();
+            l.change();
+            if (maxChanged) l.changeMax();
+            if (minChanged) l.changeMin();
+            if (s == 1) l.fix();
+        }
+    }
+
+    /**
+     * Removes the value v from the interval at position i that contains it.
+     */
+    private void removeAt(int i, int v) {
+        int f = first.value();
+        int l = last.value();
+        if (lo[i] == hi[i]) {
+            // the interval disappears
+            if (i == f) {
+                if (f < l) first.setValue(f + 1);
+            } else if (i == l) {
+                last.setValue(l - 1);
+            } else if (i - f < l - i) {
+                for (int k = i; k > f; k--)
+                    setInterval(k, lo[k - 1], hi[k - 1]);
+                first.setValue(f + 1);
+            } else {
+                for (int k = i; k < l; k++)
+                    setInterval(k, lo[k + 1], hi[k + 1]);
+                last.setValue(l - 1);
+            }
+        } else if (lo[i] == v) {
+            setInterval(i, v + 1, hi[i]);
+        } else if (hi[i] == v) {
+            setInterval(i, lo[i], v - 1);
+        } else if (f > 0 && i - f < l - i) {
+            // split [lo,hi] in [lo,v-1] and [v+1,hi] by shifting the preceding intervals to the left
+            for (int k = f - 1; k < i - 1; k++)
+                setInterval(k, lo[k + 1], hi[k + 1]);
+            setInterval(i - 1, lo[i], v - 1);
+            setInterval(i, v + 1, hi[i]);
+            first.setValue(f - 1);
+        } else {
+            // split [lo,hi] in [lo,v-1] and [v+1,hi] by shifting the following intervals to the right
+            if (l + 1 == lo.length) grow();
+            for (int k = l + 1; k > i + 1; k--)
+                setInterval(k, lo[k - 1], hi[k - 1]);
+            setInterval(i + 1, v + 1, hi[i]);
+            setInterval(i, lo[i], v - 1);
+            last.setValue(l + 1);
+        }
+    }
+
+    private void grow() {
+        int cap = lo.length * 2;
+        lo = Arrays.copyOf(lo, cap);
+        hi = Arrays.copyOf(hi, cap);
+        buildTree();
+    }
+
+    @Override
+    public void removeAllBut(int v, DomainListener l) {
+        int i = indexOf(v);
+        if (i >= 0) {
+            if (size.value() != 1) {
+                boolean maxChanged = max() != v;
+                boolean minChanged = min() != v;
+                setInterval(i, v, v);
+                first.setValue(i);
+                last.setValue(i);
+                size.setValue(1);
+                l.fix();
+                l.change();
+                if (maxChanged) l.changeMax();
+                if (minChanged) l.changeMin();
+            }
+        } else {
+            size.setValue(0);
+            l.empty();
+        }
+    }
+
+    @Override
+    public void removeBelow(int value, DomainListener l) {
+        if (min() < value) {
+            int i = search(value);
+            int l0 = last.value();
+            if (i > l0) {
+                size.setValue(0);
+            } else {
+                // the values in the intervals first,...,i-1
+                int removed = (int) (prefix(i) - prefix(first.value()));
+                if (lo[i] < value) {
+                    removed += value - lo[i];
+                    setInterval(i, value, hi[i]);
+                }
+                first.setValue(i);
+                size.setValue(size.value() - removed);
+            }
+            notifyBoundChange(l, true);
+        }
+    }
+
+    @Override
+    public void removeAbove(int value, DomainListener l) {
+        if (max() > value) {
+            // position of the last interval with a lower bound smaller or equal to value
+            int i = search(value);
+            if (i > last.value() || lo[i] > value) i--;
+            int f0 = first.value();
+            if (i < f0) {
+                size.setValue(0);
+            } else {
+                // the values in the intervals i+1,...,last
+                int removed = (int) (prefix(last.value() + 1) - prefix(i + 1));
+                if (hi[i] > value) {
+                    removed += hi[i] - value;
+                    setInterval(i, lo[i], value);
+                }
+                last.setValue(i);
+                size.setValue(size.value() - removed);
+            }
+            notifyBoundChange(l, false);
+        }
+    }
+
+    private void notifyBoundChange(DomainListener l, boolean minChanged) {
+        switch (size.value()) {
+            case 0:
+                l.empty();
+                break;
+            case 1:
+                l.fix();
+            default:
+                if (minChanged) l.changeMin();
+                else l.changeMax();
+                l.change();
+                break;
+        }
+    }
+
+    @Override
+    public String toString() {
+        if (size() == 0) return "{}";
+        StringBuilder b = new StringBuilder();
+        b.append("{");
+        int l = last.value();
+        for (int i = first.value(); i <= l; i++)
+            for (int v = lo[i]; v <= hi[i]; v++) {
+                b.append(v);
+                if (v < hi[i] || i < l) b.append(',');
+            }
+        b.append("}");
+        return b.toString();
+    }
+
+}
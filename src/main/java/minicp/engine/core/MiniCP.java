@@ -23,6 +23,8 @@ import minicp.util.exception.InconsistencyException;
 import minicp.util.Procedure;
 
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Queue;
@@ -32,14 +34,33 @@ public class MiniCP implements Solver {
 
     private Queue<Constraint> propagationQueue = new ArrayDeque<>();
     private List<Procedure> fixPointListeners = new LinkedList<>();
+    // the constraints that failed at least once, in the order of their first failure
+    private final List<Constraint> failed = new ArrayList<>();
+    private final List<Constraint> failedView = Collections.unmodifiableList(failed);
+    // the constraint being propagated, to which a failure is attributed
+    private Constraint propagating = null;
 
     private final StateManager sm;
 
     private final StateStack<IntVar> vars;
+    private final VarStore store;
 
     public MiniCP(StateManager sm) {
+        this(sm, false);
+    }
+
+    /**
+     * Creates a solver.
+     *
+     * @param sm the state manager of the solver
+     * @param useVarStore true to create the variables in a {@link VarStore},
+     *                    which is more compact for models with a huge number of variables,
+     *                    false to create each variable as an {@link IntVarImpl}
+     */
+    public MiniCP(StateManager sm, boolean useVarStore) {
         this.sm = sm;
         vars = new StateStack<>(sm);
+        store = useVarStore ? new VarStore(this) : null;
     }
 
     @Override
@@ -47,6 +68,11 @@ public class MiniCP implements Solver {
         return sm;
     }
 
+    @Override
+    public VarStore getVarStore() {
+        return store;
+    }
+
     public void schedule(Constraint c) {
         if (c.isActive() && !c.isScheduled()) {
             c.setScheduled(true);
@@ -59,6 +85,11 @@ public class MiniCP implements Solver {
         fixPointListeners.add(listener);
     }
 
+    @Override
+    public List<Constraint> getFailedConstraints() {
+        return failedView;
+    }
+
     private void notifyFixPoint() {
         fixPointListeners.forEach(s -> s.call());
     }
@@ -74,14 +105,24 @@ public class MiniCP implements Solver {
             // empty the queue and unset the scheduled status
             while (!propagationQueue.isEmpty())
                 propagationQueue.remove().setScheduled(false);
+            if (propagating != null) {
+                Constraint c = propagating;
+                propagating = null;
+                c.incrementWeight();
+                if (c.getWeight() == 1)
+                    failed.add(c);
+            }
             throw e;
         }
     }
 
     private void propagate(Constraint c) {
         c.setScheduled(false);
-        if (c.isActive())
+        if (c.isActive()) {
+            propagating = c;
             c.propagate();
+            propagating = null;
+        }
     }
 
     @Override
@@ -101,7 +142,11 @@ public class MiniCP implements Solver {
 
     @Override
     public void post(Constraint c, boolean enforceFixPoint) {
-        c.post();
+        try {
+            c.post();
+        } finally {
+            c.closeScope();
+        }
         if (enforceFixPoint) fixPoint();
     }
 
@@ -113,6 +158,6 @@ public class MiniCP implements Solver {
 
     @Override
     public String toString() {
-        return "MiniCP(" + sm + ")";
+        return "MiniCP(" + sm + (store != null ? ", VarStore" : "") + ")";
     }
 }
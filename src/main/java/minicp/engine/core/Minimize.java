@@ -18,21 +18,31 @@ package minicp.engine.core;
 import minicp.search.Objective;
 import minicp.util.exception.InconsistencyException;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Minimization objective function
  */
 public class Minimize implements Objective {
     private int bound = Integer.MAX_VALUE;
+    private AtomicInteger sharedBound = null;
     private final IntVar x;
 
     public Minimize(IntVar x) {
         this.x = x;
-        x.getSolver().onFixPoint(() -> x.removeAbove(bound));
+        x.getSolver().onFixPoint(() -> x.removeAbove(sharedBound == null ? bound : sharedBound.get()));
     }
 
     public void tighten() {
         if (!x.isFixed()) throw new RuntimeException("objective not fixed");
         this.bound = x.max() - 1;
+        if (sharedBound != null)
+            sharedBound.accumulateAndGet(bound, Math::min);
+    }
+
+    @Override
+    public void shareBound(AtomicInteger bound) {
+        this.sharedBound = bound;
     }
 
     @Override
@@ -19,6 +19,8 @@ import minicp.search.Objective;
 import minicp.state.StateManager;
 import minicp.util.Procedure;
 
+import java.util.List;
+
 public interface Solver {
 
     /**
@@ -68,6 +70,20 @@ public interface Solver {
      */
     void onFixPoint(Procedure listener);
 
+    /**
+     * Returns the constraints whose propagation failed at least once
+     * in the fix-point, in the order of their first failure.
+     * The weight of a constraint is incremented at each of its failures.
+     * The list only grows and contains each constraint once,
+     * such that a branching can read the failures it has not seen yet.
+     * The constraints whose weight is not incremented, such as
+     * the decisions of a search, are not in the list.
+     *
+     * @return an unmodifiable view of the failed constraints
+     * @see Constraint#getWeight()
+     */
+    List<Constraint> getFailedConstraints();
+
     /**
      * Creates a minimization objective on the given variable.
      *
@@ -93,5 +109,17 @@ public interface Solver {
      * @param b the variable that must be set to true
      */
     void post(BoolVar b);
+
+    /**
+     * Returns the store in which the variables of this solver
+     * are created, if any.
+     *
+     * @return the store of the variables or null if
+     *         each variable holds its own domain
+     * @see VarStore
+     */
+    default VarStore getVarStore() {
+        return null;
+    }
 }
 
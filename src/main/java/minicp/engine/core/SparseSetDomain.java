@@ -17,18 +17,23 @@ package minicp.engine.core;
 
 
 import minicp.state.StateManager;
-import minicp.state.StateSparseSet;
+import minicp.state.StateLazySparseSet;
 import minicp.util.exception.NotImplementedException;
 
 /**
- * Implementation of a domain with a sparse-set
+ * Implementation of a domain with a sparse-set.
+ * The sparse-set is lazily created when the first hole
+ * is made in the domain, as long as only its bounds
+ * are modified the domain is stored as an interval.
+ *
+ * @see StateLazySparseSet
  */
 public class SparseSetDomain implements IntDomain {
-    private StateSparseSet domain;
+    private StateLazySparseSet domain;
 
 
     public SparseSetDomain(StateManager sm, int min, int max) {
-        domain = new StateSparseSet(sm, max - min + 1, min);
+        domain = new StateLazySparseSet(sm, max - min + 1, min);
     }
 
     @Override
@@ -0,0 +1,126 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+package minicp.engine.core;
+
+import minicp.util.Procedure;
+
+/**
+ * Variable whose domain and lists of constraints
+ * are stored in a {@link VarStore}.
+ * It is only a handle on its slots in the store.
+ */
+final class StoredIntVar implements IntVar {
+
+    private final VarStore store;
+    private final int id;
+
+    StoredIntVar(VarStore store, int id) {
+        this.store = store;
+        this.id = id;
+    }
+
+    @Override
+    public Solver getSolver() {
+        return store.getSolver();
+    }
+
+    @Override
+    public void whenFixed(Procedure f) {
+        store.whenFixed(id, f);
+    }
+
+    @Override
+    public void whenBoundChange(Procedure f) {
+        store.whenBoundChange(id, f);
+    }
+
+    @Override
+    public void whenDomainChange(Procedure f) {
+        store.whenDomainChange(id, f);
+    }
+
+    @Override
+    public void propagateOnDomainChange(Constraint c) {
+        c.addToScope(this);
+        store.propagateOnDomainChange(id, c);
+    }
+
+    @Override
+    public void propagateOnFix(Constraint c) {
+        c.addToScope(this);
+        store.propagateOnFix(id, c);
+    }
+
+    @Override
+    public void propagateOnBoundChange(Constraint c) {
+        c.addToScope(this);
+        store.propagateOnBoundChange(id, c);
+    }
+
+    @Override
+    public int min() {
+        return store.min(id);
+    }
+
+    @Override
+    public int max() {
+        return store.max(id);
+    }
+
+    @Override
+    public int size() {
+        return store.size(id);
+    }
+
+    @Override
+    public int fillArray(int[] dest) {
+        return store.fillArray(id, dest);
+    }
+
+    @Override
+    public boolean isFixed() {
+        return store.size(id) == 1;
+    }
+
+    @Override
+    public boolean contains(int v) {
+        return store.contains(id, v);
+    }
+
+    @Override
+    public void remove(int v) {
+        store.remove(id, v);
+    }
+
+    @Override
+    public void fix(int v) {
+        store.fix(id, v);
+    }
+
+    @Override
+    public void removeBelow(int v) {
+        store.removeBelow(id, v);
+    }
+
+    @Override
+    public void removeAbove(int v) {
+        store.removeAbove(id, v);
+    }
+
+    @Override
+    public String toString() {
+        return store.toString(id);
+    }
+}
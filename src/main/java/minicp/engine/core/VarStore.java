@@ -0,0 +1,475 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+package minicp.engine.core;
+
+import minicp.state.SlotTrail;
+import minicp.state.Snapshot;
+import minicp.state.Snapshotable;
+import minicp.state.StateInt;
+import minicp.state.StateManager;
+import minicp.util.Procedure;
+import minicp.util.exception.InconsistencyException;
+
+import java.nio.ByteBuffer;
+import java.security.InvalidParameterException;
+import java.util.Arrays;
+
+/**
+ * Store of the variables of a solver
+ * in a few large arrays indexed by the id of the variables.
+ * <p>
+ * The domain of each variable is a sparse-set
+ * whose values and indices are a block of two arrays shared by all the variables,
+ * its size and bounds are slots of a single reversible array.
+ * The constraints to propagate on each event of each variable
+ * are linked lists whose nodes are allocated in a shared stack of nodes,
+ * their length and last node are also slots of the reversible array.
+ * The variables are thus thin handles (a store and an id)
+ * and a model with a huge number of variables creates
+ * a few arrays instead of several objects per variable,
+ * which reduces the memory and improves the locality of the propagation.
+ * <p>
+ * The reversible array is saved and restored with a {@link SlotTrail},
+ * as for {@link minicp.state.StateIntArray}.
+ * The number of variables and the size of the shared blocks are also
+ * reversible: as for the variables of a {@link MiniCP} without store,
+ * a variable created during the search (e.g. an auxiliary variable
+ * of a constraint posted in a branching or in a neighborhood)
+ * is discarded when the level where it was created is restored,
+ * and its id and values are reused by the next variables.
+ * The domains and the events are the same as the ones of an {@link IntVarImpl}
+ * with a {@link SparseSetDomain}.
+ *
+ * @see MiniCP#MiniCP(StateManager, boolean)
+ */
+public class VarStore implements Snapshotable {
+
+    /**
+     * The maximum number of values of a domain in the store,
+     * larger domains are created as {@link IntVarImpl}.
+     */
+    public static final int MAX_DOMAIN_SIZE = 1 << 16;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    // events, each one has a list of constraints per variable
+    private static final int ON_DOMAIN = 0;
+    private static final int ON_FIX = 1;
+    private static final int ON_BOUND = 2;
+    private static final int N_EVENTS = 3;
+
+    // reversible slots of a variable
+    private static final int SIZE = 0;
+    private static final int MIN = 1;           // relative to the offset
+    private static final int MAX = 2;           // relative to the offset
+    private static final int COUNT = 3;         // + event, length of the list
+    private static final int LAST = 3 + N_EVENTS; // + event, last node of the list
+    private static final int SLOTS = 3 + 2 * N_EVENTS;
+
+    private final Solver cp;
+    private int nVars = 0;
+
+    /* domains, the values of variable x are in values[base[x]],...,values[base[x]+n[x]-1] */
+    private int[] base;
+    private int[] ofs;
+    private int[] n;
+    private int[] values;
+    private int[] indices;
+    private int arenaSize = 0;
+
+    /* trail of nVars and arenaSize */
+    private final SlotTrail counters;
+    private static final int N_VARS = 0;
+    private static final int ARENA_SIZE = 1;
+
+    /* reversible slots, state[x * SLOTS + s] is the slot s of variable x */
+    private int[] state;
+    private final SlotTrail trail;
+
+    /* lists of constraints, first[x * N_EVENTS + e] is the first node for event e of x */
+    private int[] first;
+    private Constraint[] nodeConstraint;
+    private int[] nodeNext;
+    private final StateInt nodeTop;
+
+    /**
+     * Creates an empty store.
+     *
+     * @param cp the solver of the variables
+     */
+    public VarStore(Solver cp) {
+        this.cp = cp;
+        StateManager sm = cp.getStateManager();
+        base = new int[INITIAL_CAPACITY];
+        ofs = new int[INITIAL_CAPACITY];
+        n = new int[INITIAL_CAPACITY];
+        values = new int[INITIAL_CAPACITY];
+        indices = new int[INITIAL_CAPACITY];
+        state = new int[INITIAL_CAPACITY * SLOTS];
+        trail = new SlotTrail(sm, INITIAL_CAPACITY * SLOTS, (slot, v) -> state[slot] = (int) v);
+        counters = new SlotTrail(sm, 2, (c, v) -> {
+            if (c == N_VARS) nVars = (int) v;
+            else arenaSize = (int) v;
+        });
+        first = new int[INITIAL_CAPACITY * N_EVENTS];
+        nodeConstraint = new Constraint[INITIAL_CAPACITY];
+        nodeNext = new int[INITIAL_CAPACITY];
+        nodeTop = sm.makeStateInt(0);
+        sm.getSnapshotRegistry().register(this);
+    }
+
+    /**
+     * Creates a variable with the elements {@code {min,...,max}}
+     * as initial domain.
+     * The variable is created as an {@link IntVarImpl}
+     * if the range has more than {@link #MAX_DOMAIN_SIZE} values.
+     *
+     * @param min the minimum value of the domain
+     * @param max the maximum value of the domain with {@code max >= min}
+     * @return the variable
+     */
+    public IntVar makeIntVar(int min, int max) {
+        if (min > max) throw new InvalidParameterException("at least one setValue in the domain");
+        if ((long) max - min >= MAX_DOMAIN_SIZE)
+            return new IntVarImpl(cp, min, max);
+        int size = max - min + 1;
+        int x = nVars;
+        if (x == base.length) {
+            int cap = x * 2;
+            base = Arrays.copyOf(base, cap);
+            ofs = Arrays.copyOf(ofs, cap);
+            n = Arrays.copyOf(n, cap);
+            state = Arrays.copyOf(state, cap * SLOTS);
+            first = Arrays.copyOf(first, cap * N_EVENTS);
+        }
+        if (arenaSize + size > values.length) {
+            int cap = Math.max(values.length * 2, arenaSize + size);
+            values = Arrays.copyOf(values, cap);
+            indices = Arrays.copyOf(indices, cap);
+        }
+        counters.save(N_VARS, nVars);
+        counters.save(ARENA_SIZE, arenaSize);
+        base[x] = arenaSize;
+        ofs[x] = min;
+        n[x] = size;
+        for (int i = 0; i < size; i++) {
+            values[arenaSize + i] = i;
+            indices[arenaSize + i] = i;
+        }
+        arenaSize += size;
+        int slot = x * SLOTS;
+        Arrays.fill(state, slot, slot + SLOTS, 0);
+        state[slot + SIZE] = size;
+        state[slot + MAX] = size - 1;
+        nVars++;
+        return new StoredIntVar(this, x);
+    }
+
+    /**
+     * Returns the number of variables in the store,
+     * including the ones created at the current level and the levels below.
+     *
+     * @return the number of variables
+     */
+    public int size() {
+        return nVars;
+    }
+
+    Solver getSolver() {
+        return cp;
+    }
+
+    private void set(int slot, int v) {
+        if (state[slot] == v) return;
+        trail.save(slot, state[slot]);
+        state[slot] = v;
+    }
+
+    // ------------------------------ lists of constraints ------------------------------
+
+    private void push(int x, int event, Constraint c) {
+        int node = nodeTop.value();
+        if (node == nodeNext.length) {
+            nodeNext = Arrays.copyOf(nodeNext, node * 2);
+            nodeConstraint = Arrays.copyOf(nodeConstraint, node * 2);
+        }
+        nodeConstraint[node] = c;
+        int slot = x * SLOTS;
+        int count = state[slot + COUNT + event];
+        // the nodes after the last one of a list are dropped, hence they can be overwritten
+        if (count == 0) first[x * N_EVENTS + event] = node;
+        else nodeNext[state[slot + LAST + event]] = node;
+        set(slot + LAST + event, node);
+        set(slot + COUNT + event, count + 1);
+        nodeTop.setValue(node + 1);
+    }
+
+    private void scheduleAll(int x, int event) {
+        int count = state[x * SLOTS + COUNT + event];
+        int node = first[x * N_EVENTS + event];
+        for (int k = 0; k < count; k++) {
+            cp.schedule(nodeConstraint[node]);
+            node = nodeNext[node];
+        }
+    }
+
+    private Constraint constraintClosure(Procedure f) {
+        Constraint c = new ConstraintClosure(cp, f);
+        cp.post(c, false);
+        return c;
+    }
+
+    void whenFixed(int x, Procedure f) {
+        push(x, ON_FIX, constraintClosure(f));
+    }
+
+    void whenBoundChange(int x, Procedure f) {
+        push(x, ON_BOUND, constraintClosure(f));
+    }
+
+    void whenDomainChange(int x, Procedure f) {
+        push(x, ON_DOMAIN, constraintClosure(f));
+    }
+
+    void propagateOnDomainChange(int x, Constraint c) {
+        push(x, ON_DOMAIN, c);
+    }
+
+    void propagateOnFix(int x, Constraint c) {
+        push(x, ON_FIX, c);
+    }
+
+    void propagateOnBoundChange(int x, Constraint c) {
+        push(x, ON_BOUND, c);
+    }
+
+    // ------------------------------ domains ------------------------------
+
+    int min(int x) {
+        return state[x * SLOTS + MIN] + ofs[x];
+    }
+
+    int max(int x) {
+        return state[x * SLOTS + MAX] + ofs[x];
+    }
+
+    int size(int x) {
+        return state[x * SLOTS + SIZE];
+    }
+
+    boolean contains(int x, int v) {
+        v -= ofs[x];
+        if (v < 0 || v >= n[x])
+            return false;
+        return indices[base[x] + v] < state[x * SLOTS + SIZE];
+    }
+
+    int fillArray(int x, int[] dest) {
+        int s = state[x * SLOTS + SIZE];
+        int b = base[x];
+        int o = ofs[x];
+        for (int i = 0; i < s; i++)
+            dest[i] = values[b + i] + o;
+        return s;
+    }
+
+    /**
+     * Exchanges the positions of two values of the block starting at b.
+     */
+    private void exchangePositions(int b, int v1, int v2) {
+        int i1 = indices[b + v1];
+        int i2 = indices[b + v2];
+        values[b + i1] = v2;
+        values[b + i2] = v1;
+        indices[b + v1] = i2;
+        indices[b + v2] = i1;
+    }
+
+    private void empty(int x) {
+        set(x * SLOTS + SIZE, 0);
+        throw InconsistencyException.INCONSISTENCY;
+    }
+
+    void remove(int x, int v) {
+        if (!contains(x, v)) return;
+        int slot = x * SLOTS;
+        int b = base[x];
+        int r = v - ofs[x];
+        int s = state[slot + SIZE];
+        int mn = state[slot + MIN];
+        int mx = state[slot + MAX];
+        if (s == 1) empty(x);
+        exchangePositions(b, r, values[b + s - 1]);
+        s--;
+        set(slot + SIZE, s);
+        boolean maxChanged = mx == r;
+        boolean minChanged = mn == r;
+        if (maxChanged) {
+            int w = r - 1;
+            while (indices[b + w] >= s) w--;
+            set(slot + MAX, w);
+        }
+        if (minChanged) {
+            int w = r + 1;
+            while (indices[b + w] >= s) w++;
+            set(slot + MIN, w);
+        }
+        scheduleAll(x, ON_DOMAIN);
+        if (maxChanged) scheduleAll(x, ON_BOUND);
+        if (minChanged) scheduleAll(x, ON_BOUND);
+        if (s == 1) scheduleAll(x, ON_FIX);
+    }
+
+    void fix(int x, int v) {
+        if (!contains(x, v)) empty(x);
+        int slot = x * SLOTS;
+        if (state[slot + SIZE] == 1) return;
+        int b = base[x];
+        int r = v - ofs[x];
+        boolean maxChanged = state[slot + MAX] != r;
+        boolean minChanged = state[slot + MIN] != r;
+        exchangePositions(b, r, values[b]);
+        set(slot + SIZE, 1);
+        set(slot + MIN, r);
+        set(slot + MAX, r);
+        scheduleAll(x, ON_FIX);
+        scheduleAll(x, ON_DOMAIN);
+        if (maxChanged) scheduleAll(x, ON_BOUND);
+        if (minChanged) scheduleAll(x, ON_BOUND);
+    }
+
+    void removeBelow(int x, int value) {
+        int slot = x * SLOTS;
+        int bound = value - ofs[x];
+        int mn = state[slot + MIN];
+        if (mn >= bound) return;
+        int mx = state[slot + MAX];
+        if (mx < bound) empty(x);
+        int b = base[x];
+        int s = state[slot + SIZE];
+        int newMin;
+        if (bound - mn <= s) {
+            // scan the removed range
+            for (int v = mn; v < bound; v++) {
+                if (indices[b + v] < s) {
+                    s--;
+                    exchangePositions(b, v, values[b + s]);
+                }
+            }
+            // the maximum is kept hence the new minimum exists
+            newMin = bound;
+            while (indices[b + newMin] >= s)
+                newMin++;
+        } else {
+            // scan the values in the domain
+            newMin = mx;
+            for (int i = s - 1; i >= 0; i--) {
+                int v = values[b + i];
+                if (v < bound) {
+                    s--;
+                    exchangePositions(b, v, values[b + s]);
+                } else if (v < newMin) {
+                    newMin = v;
+                }
+            }
+        }
+        set(slot + SIZE, s);
+        set(slot + MIN, newMin);
+        if (s == 1) scheduleAll(x, ON_FIX);
+        scheduleAll(x, ON_BOUND);
+        scheduleAll(x, ON_DOMAIN);
+    }
+
+    void removeAbove(int x, int value) {
+        int slot = x * SLOTS;
+        int bound = value - ofs[x];
+        int mx = state[slot + MAX];
+        if (mx <= bound) return;
+        int mn = state[slot + MIN];
+        if (mn > bound) empty(x);
+        int b = base[x];
+        int s = state[slot + SIZE];
+        int newMax;
+        if (mx - bound <= s) {
+            // scan the removed range
+            for (int v = mx; v > bound; v--) {
+                if (indices[b + v] < s) {
+                    s--;
+                    exchangePositions(b, v, values[b + s]);
+                }
+            }
+            // the minimum is kept hence the new maximum exists
+            newMax = bound;
+            while (indices[b + newMax] >= s)
+                newMax--;
+        } else {
+            // scan the values in the domain
+            newMax = mn;
+            for (int i = s - 1; i >= 0; i--) {
+                int v = values[b + i];
+                if (v > bound) {
+                    s--;
+                    exchangePositions(b, v, values[b + s]);
+                } else if (v > newMax) {
+                    newMax = v;
+                }
+            }
+        }
+        set(slot + SIZE, s);
+        set(slot + MAX, newMax);
+        if (s == 1) scheduleAll(x, ON_FIX);
+        scheduleAll(x, ON_BOUND);
+        scheduleAll(x, ON_DOMAIN);
+    }
+
+    String toString(int x) {
+        StringBuilder b = new StringBuilder();
+        b.append("{");
+        for (int i = min(x); i < max(x); i++)
+            if (contains(x, i))
+                b.append(i).append(',');
+        b.append(max(x));
+        b.append("}");
+        return b.toString();
+    }
+
+    // ------------------------------ snapshots ------------------------------
+
+    @Override
+    public int snapshotSize() {
+        return 4 + 4 * (nVars * SLOTS + arenaSize);
+    }
+
+    @Override
+    public void writeSnapshot(ByteBuffer buf) {
+        // the lists of constraints are created by the model, only their lengths are written
+        buf.putInt(nVars);
+        Snapshot.putInts(buf, state, 0, nVars * SLOTS);
+        Snapshot.putInts(buf, values, 0, arenaSize);
+    }
+
+    @Override
+    public void readSnapshot(ByteBuffer buf) {
+        if (buf.getInt() != nVars)
+            throw new IllegalArgumentException("the snapshot was written by a different model");
+        Snapshot.getInts(buf, state, 0, nVars * SLOTS);
+        Snapshot.getInts(buf, values, 0, arenaSize);
+        for (int x = 0; x < nVars; x++) {
+            int b = base[x];
+            for (int i = 0; i < n[x]; i++)
+                indices[b + values[b + i]] = i;
+        }
+    }
+}
@@ -18,12 +18,9 @@ package minicp.examples;
 import minicp.engine.core.IntVar;
 import minicp.engine.core.Solver;
 import minicp.search.DFSearch;
-import minicp.search.Objective;
+import minicp.search.LargeNeighborhoodSearch;
 import minicp.util.io.InputReader;
 
-import java.util.Random;
-import java.util.stream.IntStream;
-
 import static minicp.cp.BranchingScheme.firstFail;
 import static minicp.cp.Factory.*;
 
@@ -81,47 +78,17 @@ public class QAPLNS {
             }
         }
         IntVar totCost = sum(weightedDist);
-        Objective obj = cp.minimize(totCost);
 
         DFSearch dfs = makeDfs(cp, firstFail(x));
 
-
         // --- Large Neighborhood Search ---
 
-        // Current best solution
-        int[] xBest = IntStream.range(0, n).toArray();
-        /*        int[] xBest = new int[n];
-        for (int i = 0; i < n; i++) {
-            xBest[i] = i;
-            }*/
-
-        dfs.onSolution(() -> {
-            // Update the current best solution
-            for (int i = 0; i < n; i++) {
-                xBest[i] = x[i].min();
-            }
-            System.out.println("objective:" + totCost.min());
-        });
-
-
-        int nRestarts = 1000;
-        int failureLimit = 100;
-        Random rand = new java.util.Random(0);
-
-        for (int i = 0; i < nRestarts; i++) {
-            if (i % 10 == 0)
-                System.out.println("restart number #" + i);
-
-            dfs.optimizeSubjectTo(obj, statistics -> statistics.numberOfFailures() >= failureLimit, () -> {
-                        // Assign the fragment 75% of the variables randomly chosen
-                        for (int j = 0; j < n; j++) {
-                            if (rand.nextInt(100) < 75) {
-                                // after the solveSubjectTo those constraints are removed
-                                cp.post(equal(x[j], xBest[j]));
-                            }
-                        }
-                    }
-            );
-        }
+        LargeNeighborhoodSearch lns = new LargeNeighborhoodSearch(dfs, x, totCost)
+                .addRelaxation(LargeNeighborhoodSearch.random(x))
+                .addRelaxation(LargeNeighborhoodSearch.propagationGuided(x))
+                .setFailureLimit(100)
+                .setIterationLimit(1000);
+        lns.onSolution(() -> System.out.println("objective:" + totCost.min()));
+        lns.optimize();
     }
 }
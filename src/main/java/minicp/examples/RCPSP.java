@@ -96,7 +96,7 @@ public class RCPSP extends OptimizationProblem {
     public void buildModel() {
         // The Model
         Solver cp = makeSolver();
-        start = makeIntVarArray(cp, nActivities, horizon);
+        start = makeIntervalListIntVarArray(cp, nActivities, 0, horizon - 1);
         end = new IntVar[nActivities];
 
 
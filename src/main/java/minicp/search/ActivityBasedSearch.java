@@ -0,0 +1,112 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+package minicp.search;
+
+import minicp.engine.core.IntVar;
+
+/**
+ * Activity-based search.
+ * <p>
+ * The activity of a variable counts how often its domain is modified
+ * by the propagation of the decisions, with an exponential decay
+ * such that recent decisions weigh more.
+ * The variable maximizing its activity divided by its domain size is selected
+ * and it is assigned to the value whose past assignments
+ * modified the fewest variables.
+ * <p>
+ * Michel, L., Van Hentenryck, P. (2012).
+ * Activity-based search for black-box constraint programming solvers. CPAIOR 2012.
+ */
+public class ActivityBasedSearch extends LearningBranching {
+
+    // weight of the last observation in the activity of a value
+    private static final double VALUE_SMOOTHING = 0.125;
+
+    private final double decay;
+    private final double[] activity;
+    // the activities are scaled by an increment growing at each decision
+    // instead of decaying all of them
+    private double increment = 1.0;
+    private final double[][] valueActivity;
+
+    /**
+     * Creates an activity-based search.
+     *
+     * @param x the decision variables
+     * @param decay the factor in (0,1] applied to the activities at each decision
+     * @param nProbes the number of random dives initializing the activities at the root
+     * @param seed the seed of the random probing
+     */
+    public ActivityBasedSearch(IntVar[] x, double decay, int nProbes, long seed) {
+        super(x, nProbes, seed);
+        if (decay <= 0 || decay > 1) throw new IllegalArgumentException("the decay must be in (0,1]");
+        this.decay = decay;
+        activity = new double[n];
+        valueActivity = new double[n][];
+        for (int i = 0; i < n; i++)
+            valueActivity[i] = new double[initialSize[i]];
+    }
+
+    /**
+     * Returns the activity of a variable.
+     *
+     * @param i the index of the variable
+     * @return its activity, relative to the ones of the other variables
+     */
+    public double activity(int i) {
+        return activity[i] / increment;
+    }
+
+    @Override
+    protected void learn(int i, int v, boolean left, boolean failed) {
+        increment /= decay;
+        for (int k = 0; k < nTouched; k++)
+            activity[touched[k]] += increment;
+        if (increment > 1e100) {
+            for (int k = 0; k < n; k++)
+                activity[k] /= increment;
+            increment = 1.0;
+        }
+        if (left) {
+            double[] a = valueActivity[i];
+            a[v - ofs[i]] = (1 - VALUE_SMOOTHING) * a[v - ofs[i]] + VALUE_SMOOTHING * nTouched;
+        }
+    }
+
+    @Override
+    protected int selectVariable() {
+        int sel = -1;
+        for (int i = 0; i < n; i++) {
+            // activity(i) / size(i) > activity(sel) / size(sel)
+            if (!x[i].isFixed() && (sel < 0 || activity[i] * x[sel].size() > activity[sel] * x[i].size()))
+                sel = i;
+        }
+        return sel;
+    }
+
+    @Override
+    protected int selectValue(int i) {
+        int size = x[i].fillArray(values);
+        double[] a = valueActivity[i];
+        int best = values[0];
+        for (int k = 1; k < size; k++) {
+            int v = values[k];
+            double d = a[v - ofs[i]] - a[best - ofs[i]];
+            if (d < 0 || (d == 0 && v < best))
+                best = v;
+        }
+        return best;
+    }
+}
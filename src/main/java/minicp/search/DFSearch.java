@@ -16,10 +16,11 @@
 package minicp.search;
 
 import minicp.state.StateManager;
+import minicp.state.StateMemoryLimitException;
 import minicp.util.exception.InconsistencyException;
-import minicp.util.exception.NotImplementedException;
 import minicp.util.Procedure;
 
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicReference;
@@ -28,6 +29,11 @@ import java.util.function.Supplier;
 
 /**
  * Depth First Search Branch and Bound implementation
+ * <p>
+ * The search does not recurse: it keeps its own stack
+ * of the nodes with some children left to explore,
+ * such that the depth of the search tree
+ * is only limited by the memory of the state manager.
  */
 public class DFSearch {
 
@@ -40,6 +46,14 @@ public class DFSearch {
 
     private int currNodeIdId;
 
+    /* stack of the open nodes, from the root to the deepest one */
+    private Procedure[][] openBranches = new Procedure[16][];
+    private int[] openNext = new int[16];     // index of the next child to explore
+    private int[] openNodeId = new int[16];
+    private int[] openParentId = new int[16];
+    private int[] openLevel = new int[16];    // level to restore once the node is explored
+    private int nOpen;
+
     /**
      * Creates a Depth First Search object with a given branching
      * that defines the search tree dynamically.
@@ -96,26 +110,38 @@ public class DFSearch {
 
 
     private void notifySolution(int parentId, int nodeId, int position) {
-        dfsListeners.forEach(l -> l.solution(parentId, nodeId, position));
+        for (DFSListener l : dfsListeners)
+            l.solution(parentId, nodeId, position);
     }
 
     private void notifyFailure(int parentId, int nodeId, int position) {
-        dfsListeners.forEach(l -> l.fail(parentId, nodeId, position));
+        for (DFSListener l : dfsListeners)
+            l.fail(parentId, nodeId, position);
     }
 
     private void notifyBranch(int parentId, int nodeId, int position, int nChilds) {
-        dfsListeners.forEach(l -> l.branch(parentId, nodeId, position, nChilds));
+        for (DFSListener l : dfsListeners)
+            l.branch(parentId, nodeId, position, nChilds);
     }
 
-    private SearchStatistics solve(SearchStatistics statistics, Predicate<SearchStatistics> limit) {
+    /**
+     * Effectively start a depth first search
+     * counting the nodes, failures and solutions
+     * in the given statistics, possibly of previous searches.
+     */
+    SearchStatistics solve(SearchStatistics statistics, Predicate<SearchStatistics> limit) {
         currNodeIdId = 0;
         sm.withNewState(() -> {
             try {
-                dfs(statistics, limit , -1, -1);
+                dfs(statistics, limit);
                 statistics.setCompleted();
             } catch (StopSearchException ignored) {
-            } catch (StackOverflowError e) {
-                throw new NotImplementedException("dfs with explicit stack needed to pass this test");
+            } catch (StateMemoryLimitException e) {
+                statistics.setMemoryLimitReached();
+            } finally {
+                // drop the references to the branches
+                Arrays.fill(openBranches, 0, nOpen, null);
+                nOpen = 0;
             }
         });
         return statistics;
@@ -201,8 +227,20 @@ public class DFSearch {
      */
     public SearchStatistics optimize(Objective obj, Predicate<SearchStatistics> limit) {
         SearchStatistics statistics = new SearchStatistics();
-        onSolution(() -> obj.tighten());
-        return solve(statistics, limit);
+        // the objective is only tightened during this search,
+        // repeated calls (e.g. in a large neighborhood search) do not accumulate listeners
+        DFSListener tighten = new DFSListener() {
+            @Override
+            public void solution(int pId, int id, int position) {
+                obj.tighten();
+            }
+        };
+        dfsListeners.add(tighten);
+        try {
+            return solve(statistics, limit);
+        } finally {
+            dfsListeners.remove(tighten);
+        }
     }
 
     /**
@@ -238,7 +276,53 @@ public class DFSearch {
     }
 
 
-    private void dfs(SearchStatistics statistics, Predicate<SearchStatistics> limit, int parentId, int position) {
+    /**
+     * Explores the subtree of the current node:
+     * the children of the open nodes are explored from the deepest open node,
+     * the state before exploring a child is saved
+     * and it is restored once the subtree of the child is explored.
+     */
+    private void dfs(SearchStatistics statistics, Predicate<SearchStatistics> limit) {
+        nOpen = 0;
+        expand(statistics, limit, -1, -1, sm.getLevel());
+        while (nOpen > 0) {
+            int top = nOpen - 1;
+            Procedure[] branches = openBranches[top];
+            if (openNext[top] == branches.length) {
+                // all the children are explored
+                openBranches[top] = null;
+                nOpen--;
+                sm.restoreStateUntil(openLevel[top]);
+                continue;
+            }
+            int p = openNext[top]++;
+            int nodeId = openNodeId[top];
+            int level = sm.getLevel();
+            sm.saveState();
+            try {
+                statistics.incrNodes();
+                sm.recordDecision(branches[p]);
+                branches[p].call();
+                if (expand(statistics, limit, nodeId, p, level))
+                    continue; // restored once its children are explored
+            } catch (InconsistencyException e) {
+                currNodeIdId++;
+                statistics.incrFailures();
+                notifyFailure(openParentId[top], nodeId, p);
+            }
+            sm.restoreStateUntil(level);
+        }
+    }
+
+    /**
+     * Creates a node, reports it as a solution
+     * or pushes it on the stack of open nodes.
+     *
+     * @param level the level to restore once the node is explored
+     * @return true if the node was pushed on the stack of open nodes
+     */
+    private boolean expand(SearchStatistics statistics, Predicate<SearchStatistics> limit,
+                           int parentId, int position, int level) {
         if (limit.test(statistics))
             throw new StopSearchException();
         Procedure[] branches = branching.get();
@@ -246,26 +330,25 @@ public class DFSearch {
 
         if (branches.length == 0) {
             statistics.incrSolutions();
-            notifySolution(parentId,nodeId, position);
-        } else {
-            notifyBranch(parentId,nodeId, position, branches.length);
-            int pos = 0;
-            for (Procedure b : branches) {
-                final int p = pos;
-                sm.withNewState(() -> {
-                    try {
-                        statistics.incrNodes();
-                        b.call();
-                        dfs(statistics, limit, nodeId, p);
-                    } catch (InconsistencyException e) {
-                        currNodeIdId++;
-                        statistics.incrFailures();
-                        notifyFailure(parentId,nodeId, p);
-                    }
-                });
-                pos += 1;
-            }
+            notifySolution(parentId, nodeId, position);
+            return false;
+        }
+        notifyBranch(parentId, nodeId, position, branches.length);
+        if (nOpen == openBranches.length) {
+            int cap = nOpen * 2;
+            openBranches = Arrays.copyOf(openBranches, cap);
+            openNext = Arrays.copyOf(openNext, cap);
+            openNodeId = Arrays.copyOf(openNodeId, cap);
+            openParentId = Arrays.copyOf(openParentId, cap);
+            openLevel = Arrays.copyOf(openLevel, cap);
         }
+        openBranches[nOpen] = branches;
+        openNext[nOpen] = 0;
+        openNodeId[nOpen] = nodeId;
+        openParentId[nOpen] = parentId;
+        openLevel[nOpen] = level;
+        nOpen++;
+        return true;
     }
 
 }
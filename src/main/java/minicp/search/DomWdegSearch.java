@@ -0,0 +1,129 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+
+package minicp.search;
+
+import minicp.engine.core.Constraint;
+import minicp.engine.core.IntVar;
+import minicp.util.Procedure;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static minicp.cp.BranchingScheme.EMPTY;
+import static minicp.cp.BranchingScheme.branch;
+import static minicp.cp.Factory.equal;
+import static minicp.cp.Factory.notEqual;
+
+/**
+ * Dom/wdeg search.
+ * <p>
+ * The weighted degree of a variable is one plus the sum of the weights
+ * of its active constraints, the weight of a constraint being
+ * the number of failures raised by its propagation.
+ * The unfixed variable minimizing its domain size divided by its weighted degree
+ * is selected, the left branch assigns it to its minimum value
+ * and the right branch removes this value.
+ * <p>
+ * Only the constraints that failed at least once have a non zero weight.
+ * They are read from {@link minicp.engine.core.Solver#getFailedConstraints()}
+ * when they fail for the first time and attached to the variables of their scope,
+ * such that a selection is linear in the number of unfixed variables
+ * plus the number of failed constraints on them.
+ * The weights are kept by the constraints, hence shared by all the
+ * searches on the same solver, and nothing is registered on the solver.
+ * <p>
+ * Boussemart, F., Hemery, F., Lecoutre, C., Sais, L. (2004).
+ * Boosting systematic search by weighting constraints. ECAI 2004.
+ */
+public class DomWdegSearch implements Supplier<Procedure[]> {
+
+    private final IntVar[] x;
+    private final UnfixedVariables unfixed;
+    private final Map<IntVar, Integer> index = new IdentityHashMap<>();
+    private final List<Constraint> failed;
+    // number of failed constraints already attached to the variables
+    private int nSeen = 0;
+    // constraints[i][0..nConstraints[i]-1] are the failed constraints on x[i]
+    private final Constraint[][] constraints;
+    private final int[] nConstraints;
+
+    /**
+     * Creates a dom/wdeg search.
+     *
+     * @param x the decision variables, they must belong to the same solver
+     */
+    public DomWdegSearch(IntVar... x) {
+        if (x.length == 0) throw new IllegalArgumentException("no variable to branch on");
+        this.x = x;
+        this.unfixed = new UnfixedVariables(x);
+        this.failed = x[0].getSolver().getFailedConstraints();
+        for (int i = 0; i < x.length; i++)
+            index.put(x[i], i);
+        constraints = new Constraint[x.length][];
+        nConstraints = new int[x.length];
+    }
+
+    /**
+     * Returns the weighted degree of a variable.
+     *
+     * @param i the index of the variable
+     * @return one plus the weights of its active constraints
+     */
+    public long weightedDegree(int i) {
+        attachFailures();
+        long w = 1;
+        for (int k = 0; k < nConstraints[i]; k++) {
+            Constraint c = constraints[i][k];
+            if (c.isActive())
+                w += c.getWeight();
+        }
+        return w;
+    }
+
+    /**
+     * Attaches the constraints that failed since the last call
+     * to the variables of their scope.
+     */
+    private void attachFailures() {
+        for (; nSeen < failed.size(); nSeen++) {
+            Constraint c = failed.get(nSeen);
+            for (int k = 0; k < c.getScopeSize(); k++) {
+                Integer i = index.get(c.getScopeVariable(k));
+                if (i != null) {
+                    if (constraints[i] == null)
+                        constraints[i] = new Constraint[4];
+                    else if (nConstraints[i] == constraints[i].length)
+                        constraints[i] = Arrays.copyOf(constraints[i], nConstraints[i] * 2);
+                    constraints[i][nConstraints[i]++] = c;
+                }
+            }
+        }
+    }
+
+    @Override
+    public Procedure[] get() {
+        int sel = unfixed.selectMinRatio(IntVar::size, this::weightedDegree);
+        if (sel < 0)
+            return EMPTY;
+        IntVar xs = x[sel];
+        int v = xs.min();
+        return branch(() -> xs.getSolver().post(equal(xs, v)),
+                () -> xs.getSolver().post(notEqual(xs, v)));
+    }
+}
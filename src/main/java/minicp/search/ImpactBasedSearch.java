@@ -0,0 +1,139 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+package minicp.search;
+
+import minicp.engine.core.IntVar;
+
+import java.util.Arrays;
+
+/**
+ * Impact-based search.
+ * <p>
+ * The impact of an assignment {@code x = v} is the reduction of the search space
+ * (the product of the domain sizes) caused by its propagation,
+ * {@code 1 - P_after / P_before}, and 1 if it fails.
+ * The impacts are smoothed over the observations such that recent ones weigh more.
+ * The variable minimizing the sum of {@code 1 - impact} over its values
+ * (the estimated size of the remaining search space) is selected
+ * and it is assigned to its value of smallest impact.
+ * The domain sizes are recorded before an assignment and
+ * only the domains modified by its propagation are visited after it.
+ * <p>
+ * Refalo, P. (2004). Impact-based search strategies for constraint programming. CP 2004.
+ */
+public class ImpactBasedSearch extends LearningBranching {
+
+    private final double smoothing;
+    // impact of each value, negative when it was never observed
+    private final double[][] impact;
+    // log of the domain sizes before the current decision
+    private final double[] logSizeBefore;
+    private final double[] log;
+
+    /**
+     * Creates an impact-based search.
+     *
+     * @param x the decision variables
+     * @param smoothing the weight in (0,1] of the last observation in the impact of a value
+     * @param nProbes the number of random dives initializing the impacts at the root
+     * @param seed the seed of the random probing
+     */
+    public ImpactBasedSearch(IntVar[] x, double smoothing, int nProbes, long seed) {
+        super(x, nProbes, seed);
+        if (smoothing <= 0 || smoothing > 1) throw new IllegalArgumentException("the smoothing must be in (0,1]");
+        this.smoothing = smoothing;
+        impact = new double[n][];
+        int maxSize = 0;
+        for (int i = 0; i < n; i++) {
+            impact[i] = new double[initialSize[i]];
+            Arrays.fill(impact[i], -1);
+            maxSize = Math.max(maxSize, initialSize[i]);
+        }
+        logSizeBefore = new double[n];
+        log = new double[maxSize + 1];
+        for (int s = 1; s <= maxSize; s++)
+            log[s] = Math.log(s);
+    }
+
+    /**
+     * Returns the impact of an assignment.
+     *
+     * @param i the index of the variable
+     * @param v the value
+     * @return the impact in [0,1], 0 if it was never observed
+     */
+    public double impact(int i, int v) {
+        return Math.max(0, impact[i][v - ofs[i]]);
+    }
+
+    @Override
+    protected void beforeDecision(int i, int v, boolean left) {
+        if (left)
+            for (int k = 0; k < n; k++)
+                logSizeBefore[k] = log[x[k].size()];
+    }
+
+    @Override
+    protected void learn(int i, int v, boolean left, boolean failed) {
+        if (!left) return;
+        double observed;
+        if (failed) {
+            observed = 1;
+        } else {
+            double delta = 0; // log(P_after / P_before)
+            for (int k = 0; k < nTouched; k++) {
+                int t = touched[k];
+                delta += log[x[t].size()] - logSizeBefore[t];
+            }
+            observed = 1 - Math.exp(delta);
+        }
+        double[] imp = impact[i];
+        int idx = v - ofs[i];
+        imp[idx] = imp[idx] < 0 ? observed : (1 - smoothing) * imp[idx] + smoothing * observed;
+    }
+
+    @Override
+    protected int selectVariable() {
+        int sel = -1;
+        double selSpace = 0;
+        for (int i = 0; i < n; i++) {
+            if (x[i].isFixed()) continue;
+            int size = x[i].fillArray(values);
+            double space = 0;
+            double[] imp = impact[i];
+            for (int k = 0; k < size; k++)
+                space += 1 - Math.max(0, imp[values[k] - ofs[i]]);
+            if (sel < 0 || space < selSpace) {
+                sel = i;
+                selSpace = space;
+            }
+        }
+        return sel;
+    }
+
+    @Override
+    protected int selectValue(int i) {
+        int size = x[i].fillArray(values);
+        double[] imp = impact[i];
+        int best = values[0];
+        for (int k = 1; k < size; k++) {
+            int v = values[k];
+            double d = Math.max(0, imp[v - ofs[i]]) - Math.max(0, imp[best - ofs[i]]);
+            if (d < 0 || (d == 0 && v < best))
+                best = v;
+        }
+        return best;
+    }
+}
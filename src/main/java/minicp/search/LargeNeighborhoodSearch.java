@@ -0,0 +1,564 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+package minicp.search;
+
+import minicp.engine.core.AbstractConstraint;
+import minicp.engine.core.IntVar;
+import minicp.engine.core.Solver;
+import minicp.util.Procedure;
+import minicp.util.exception.InconsistencyException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.ToIntBiFunction;
+
+import static minicp.cp.Factory.equal;
+
+/**
+ * Adaptive large neighborhood search.
+ * <p>
+ * Starting from a first solution, each iteration restricts the search
+ * to a neighborhood of the best solution found so far:
+ * a relaxation operator fixes most of the decision variables
+ * to their value in the best solution and
+ * a branch and bound limited in failures explores the others.
+ * <p>
+ * The operator of each iteration is drawn with a probability
+ * that grows with its recent improvement rate
+ * (the improvement of the objective per node explored).
+ * The relaxation size of each operator adapts as well:
+ * it grows when the neighborhood is exhausted without improvement
+ * and shrinks when the failure limit is reached without improvement.
+ * With a fixed seed and no time limit, the search is reproducible.
+ * <p>
+ * Shaw, P. (1998). Using constraint programming and local search methods
+ * to solve vehicle routing problems. CP 1998.
+ * Ropke, S., Pisinger, D. (2006). An adaptive large neighborhood search heuristic
+ * for the pickup and delivery problem with time windows. Transportation Science, 40(4).
+ */
+public class LargeNeighborhoodSearch {
+
+    /**
+     * Relaxation operator restricting the search to a neighborhood of the best solution.
+     */
+    @FunctionalInterface
+    public interface Relaxation {
+        /**
+         * Fixes the variables that are not relaxed to their value
+         * in the best solution, by posting constraints.
+         * All the variables are relaxed when the size is 1.
+         *
+         * @param best the values of the decision variables in the best solution
+         * @param size the fraction of variables to relax, in (0,1]
+         * @param rand the random generator of the search
+         * @throws InconsistencyException if the neighborhood is empty
+         */
+        void relax(int[] best, double size, Random rand);
+    }
+
+    // weight of the last reward in the score of an operator
+    private static final double DECAY = 0.2;
+    // minimum weight of an operator relative to the best one
+    private static final double MIN_WEIGHT = 0.1;
+    // factor applied to the size of a relaxation when adapted
+    private static final double SIZE_FACTOR = 1.2;
+
+    private final DFSearch dfs;
+    private final IntVar[] x;
+    private final IntVar objective;
+    private final Objective obj;
+    private final List<Procedure> solutionListeners = new LinkedList<>();
+
+    private final List<Relaxation> relaxations = new ArrayList<>();
+    private double initialSize = 0.25;
+    private double minSize = 0.01;
+    private double maxSize = 1.0;
+    private int failureLimit = 100;
+    private long seed = 0;
+    private long timeLimitNanos = Long.MAX_VALUE;
+    private int iterationLimit = Integer.MAX_VALUE;
+
+    // state of the search
+    private final int[] best;
+    private int bestObjective = Integer.MAX_VALUE;
+    private boolean hasSolution = false;
+    private double[] score;
+    private double[] size;
+    private int nIterations;
+    private long deadline;
+    // incumbent shared with other workers, null if the search is sequential
+    private ParallelLargeNeighborhoodSearch.Incumbent shared;
+
+    /**
+     * Creates a large neighborhood search minimizing an objective.
+     * To maximize, minimize the opposite of the objective.
+     *
+     * @param dfs the search used in the neighborhoods
+     * @param x the decision variables, the ones that are relaxed
+     * @param objective the variable to minimize
+     */
+    public LargeNeighborhoodSearch(DFSearch dfs, IntVar[] x, IntVar objective) {
+        this.dfs = dfs;
+        this.x = x;
+        this.objective = objective;
+        this.obj = objective.getSolver().minimize(objective);
+        this.best = new int[x.length];
+        dfs.onSolution(() -> {
+            for (int i = 0; i < x.length; i++)
+                best[i] = x[i].min();
+            bestObjective = objective.min();
+            hasSolution = true;
+            if (shared != null)
+                shared.offer(best, bestObjective);
+            for (Procedure l : solutionListeners)
+                l.call();
+        });
+    }
+
+    /**
+     * Adds a relaxation operator,
+     * {@link #random(IntVar[])} is used if none is added.
+     *
+     * @param relaxation the operator
+     * @return this search
+     */
+    public LargeNeighborhoodSearch addRelaxation(Relaxation relaxation) {
+        relaxations.add(relaxation);
+        return this;
+    }
+
+    /**
+     * Sets the fraction of relaxed variables.
+     *
+     * @param initial the initial size of each relaxation
+     * @param min the minimum size
+     * @param max the maximum size, 1 relaxes all the variables
+     * @return this search
+     */
+    public LargeNeighborhoodSearch setRelaxationSize(double initial, double min, double max) {
+        if (!(0 < min && min <= initial && initial <= max && max <= 1))
+            throw new IllegalArgumentException("the sizes must satisfy 0 < min <= initial <= max <= 1");
+        this.initialSize = initial;
+        this.minSize = min;
+        this.maxSize = max;
+        return this;
+    }
+
+    /**
+     * Sets the number of failures after which the exploration of a neighborhood stops.
+     *
+     * @param failureLimit the limit, 100 by default
+     * @return this search
+     */
+    public LargeNeighborhoodSearch setFailureLimit(int failureLimit) {
+        this.failureLimit = failureLimit;
+        return this;
+    }
+
+    /**
+     * Sets the seed of the random generator.
+     *
+     * @param seed the seed, 0 by default
+     * @return this search
+     */
+    public LargeNeighborhoodSearch setSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * Sets the wall-clock budget of the search.
+     *
+     * @param millis the budget in milliseconds
+     * @return this search
+     */
+    public LargeNeighborhoodSearch setTimeLimit(long millis) {
+        this.timeLimitNanos = millis * 1_000_000L;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of neighborhoods explored.
+     *
+     * @param iterations the limit
+     * @return this search
+     */
+    public LargeNeighborhoodSearch setIterationLimit(int iterations) {
+        this.iterationLimit = iterations;
+        return this;
+    }
+
+    /**
+     * Adds a listener that is called on each improving solution.
+     *
+     * @param listener the closure to be called
+     */
+    public void onSolution(Procedure listener) {
+        solutionListeners.add(listener);
+    }
+
+    /**
+     * Shares the best solution and the objective bound with other workers.
+     *
+     * @param incumbent the holder of the best solution of all the workers
+     */
+    void share(ParallelLargeNeighborhoodSearch.Incumbent incumbent) {
+        this.shared = incumbent;
+        obj.shareBound(incumbent.bound);
+    }
+
+    /**
+     * Relaxes the best solution of all the workers from now on
+     * if it is better than the one of this search.
+     */
+    private void adoptIncumbent() {
+        if (shared == null) return;
+        ParallelLargeNeighborhoodSearch.Incumbent.Solution s = shared.best.get();
+        if (s != null && s.objective < bestObjective) {
+            System.arraycopy(s.values, 0, best, 0, best.length);
+            bestObjective = s.objective;
+            hasSolution = true;
+        }
+    }
+
+    /**
+     * Returns the values of the decision variables in the best solution.
+     *
+     * @return the best solution
+     * @throws IllegalStateException if no solution was found
+     */
+    public int[] getBestSolution() {
+        if (!hasSolution) throw new IllegalStateException("no solution found");
+        return best.clone();
+    }
+
+    /**
+     * Returns the value of the objective in the best solution.
+     *
+     * @return the best objective, {@link Integer#MAX_VALUE} if no solution was found
+     */
+    public int getBestObjective() {
+        return bestObjective;
+    }
+
+    /**
+     * Returns the number of neighborhoods explored by the last search.
+     *
+     * @return the number of iterations
+     */
+    public int numberOfIterations() {
+        return nIterations;
+    }
+
+    /**
+     * Effectively starts the search until the time or iteration limit is reached
+     * or optimality is proven (the whole search space was explored
+     * with all the variables relaxed).
+     *
+     * @return the statistics summed over the iterations,
+     *         completed if optimality (or infeasibility) is proven
+     */
+    public SearchStatistics optimize() {
+        deadline = timeLimitNanos == Long.MAX_VALUE ? Long.MAX_VALUE : System.nanoTime() + timeLimitNanos;
+        Random rand = new Random(seed);
+        List<Relaxation> ops = new ArrayList<>(relaxations);
+        if (ops.isEmpty())
+            ops.add(random(x));
+        int nOps = ops.size();
+        score = new double[nOps];
+        size = new double[nOps];
+        Arrays.fill(size, initialSize);
+        nIterations = 0;
+
+        SearchStatistics statistics = new SearchStatistics();
+        adoptIncumbent();
+        if (!hasSolution) {
+            SearchStatistics first = dfs.optimize(obj, s -> s.numberOfSolutions() >= 1 || timeUp());
+            statistics.add(first);
+            if (first.isCompleted()) {
+                statistics.setCompleted();
+                return statistics;
+            }
+        }
+        while (hasSolution && nIterations < iterationLimit && !timeUp()) {
+            nIterations++;
+            adoptIncumbent();
+            int o = select(rand);
+            int before = bestObjective;
+            boolean[] refuted = new boolean[1];
+            SearchStatistics s = dfs.optimizeSubjectTo(obj,
+                    stats -> stats.numberOfFailures() >= failureLimit || timeUp(),
+                    () -> {
+                        try {
+                            ops.get(o).relax(best, size[o], rand);
+                        } catch (InconsistencyException e) {
+                            refuted[0] = true;
+                            throw e;
+                        }
+                    });
+            statistics.add(s);
+            int improvement = before - bestObjective;
+            score[o] = (1 - DECAY) * score[o] + DECAY * improvement / (s.numberOfNodes() + 1.0);
+            boolean exhausted = refuted[0] || s.isCompleted();
+            if (exhausted && size[o] >= 1.0) {
+                // no better solution with all the variables relaxed
+                statistics.setCompleted();
+                break;
+            }
+            if (improvement == 0) {
+                if (exhausted) size[o] = Math.min(maxSize, size[o] * SIZE_FACTOR);
+                else size[o] = Math.max(minSize, size[o] / SIZE_FACTOR);
+            }
+        }
+        return statistics;
+    }
+
+    private boolean timeUp() {
+        if (shared != null && shared.stop.get()) return true;
+        return deadline != Long.MAX_VALUE && System.nanoTime() >= deadline;
+    }
+
+    /**
+     * Roulette wheel selection of an operator
+     * with weights proportional to the scores.
+     */
+    private int select(Random rand) {
+        double max = 0;
+        for (double sc : score) max = Math.max(max, sc);
+        double[] weight = new double[score.length];
+        double total = 0;
+        for (int o = 0; o < score.length; o++) {
+            weight[o] = MIN_WEIGHT + (max > 0 ? score[o] / max : 1);
+            total += weight[o];
+        }
+        double r = rand.nextDouble() * total;
+        for (int o = 0; o < score.length - 1; o++) {
+            r -= weight[o];
+            if (r < 0) return o;
+        }
+        return score.length - 1;
+    }
+
+    /**
+     * Relaxes each variable independently with a probability equal to the size.
+     *
+     * @param x the decision variables
+     * @return the relaxation operator
+     */
+    public static Relaxation random(IntVar[] x) {
+        return (best, size, rand) -> {
+            for (int i = 0; i < x.length; i++)
+                if (rand.nextDouble() >= size)
+                    x[i].getSolver().post(equal(x[i], best[i]));
+        };
+    }
+
+    /**
+     * Propagation guided relaxation:
+     * fixes the variables one after the other to their value in the best solution,
+     * each time propagating, until the fraction of unfixed variables
+     * is at most the size.
+     * The next variable to fix is the one whose domain was the most reduced
+     * (relatively to its size) by the propagation of the previous fix,
+     * such that the variables left relaxed are the ones that interact
+     * with each other, or a random unfixed variable if no domain was reduced.
+     * The reductions and the number of unfixed variables are maintained
+     * by listeners on the variables, disabled at the end of the relaxation,
+     * such that each fix only costs the number of domains it reduces.
+     * <p>
+     * Perron, L., Shaw, P., Furnon, V. (2004). Propagation guided large neighborhood search. CP 2004.
+     *
+     * @param x the decision variables
+     * @return the relaxation operator
+     */
+    public static Relaxation propagationGuided(IntVar[] x) {
+        return (best, size, rand) -> {
+            if (x.length > 0)
+                new PropagationGuided(x, best).relax((int) Math.ceil(size * x.length), rand);
+        };
+    }
+
+    /**
+     * State of one relaxation of {@link #propagationGuided(IntVar[])}.
+     */
+    private static final class PropagationGuided {
+
+        private final IntVar[] x;
+        private final int[] best;
+        private final int[] lastSize;       // size of each domain when the last variable was chosen
+        private final int[] reduced;        // variables reduced since the last variable was chosen
+        private final boolean[] isReduced;
+        private int nReduced = 0;
+        private final boolean[] isFixed;    // variables counted as fixed
+        private int unfixed = 0;
+
+        PropagationGuided(IntVar[] x, int[] best) {
+            this.x = x;
+            this.best = best;
+            int n = x.length;
+            lastSize = new int[n];
+            reduced = new int[n];
+            isReduced = new boolean[n];
+            isFixed = new boolean[n];
+        }
+
+        /**
+         * Listener of the domain of a variable.
+         */
+        private final class Watch extends AbstractConstraint {
+            private final int i;
+
+            Watch(Solver cp, int i) {
+                super(cp, false);
+                this.i = i;
+            }
+
+            @Override
+            public void propagate() {
+                if (!isReduced[i]) {
+                    isReduced[i] = true;
+                    reduced[nReduced++] = i;
+                }
+                if (!isFixed[i] && x[i].isFixed()) {
+                    isFixed[i] = true;
+                    unfixed--;
+                }
+            }
+        }
+
+        void relax(int relaxed, Random rand) {
+            Solver cp = x[0].getSolver();
+            int n = x.length;
+            Watch[] watches = new Watch[n];
+            for (int i = 0; i < n; i++) {
+                lastSize[i] = x[i].size();
+                isFixed[i] = x[i].isFixed();
+                if (!isFixed[i]) unfixed++;
+                watches[i] = new Watch(cp, i);
+                x[i].propagateOnDomainChange(watches[i]);
+            }
+            int[] order = permutation(n, rand);
+            int next = 0;
+            try {
+                while (unfixed > relaxed) {
+                    int i = mostReduced();
+                    if (i < 0) {
+                        while (x[order[next]].isFixed()) next++;
+                        i = order[next];
+                    }
+                    cp.post(equal(x[i], best[i]));
+                }
+            } finally {
+                // the listeners are useless in the search of the neighborhood
+                for (Watch w : watches)
+                    w.setActive(false);
+            }
+        }
+
+        /**
+         * Returns the unfixed variable with the largest relative reduction
+         * since the last call, or -1 if there is none.
+         */
+        private int mostReduced() {
+            int chosen = -1;
+            double bestReduction = 0;
+            for (int k = 0; k < nReduced; k++) {
+                int i = reduced[k];
+                int s = x[i].size();
+                if (s > 1) {
+                    double reduction = 1.0 - (double) s / lastSize[i];
+                    if (reduction > bestReduction) {
+                        chosen = i;
+                        bestReduction = reduction;
+                    }
+                }
+                lastSize[i] = s;
+                isReduced[i] = false;
+            }
+            nReduced = 0;
+            return chosen;
+        }
+    }
+
+    /**
+     * Relaxes a random segment of consecutive variables (cyclically),
+     * for sequencing and routing models where
+     * neighbouring variables interact.
+     *
+     * @param x the decision variables, in sequence order
+     * @return the relaxation operator
+     */
+    public static Relaxation segment(IntVar[] x) {
+        return (best, size, rand) -> {
+            int n = x.length;
+            int relaxed = Math.min(n, (int) Math.ceil(size * n));
+            int start = rand.nextInt(n);
+            for (int k = relaxed; k < n; k++) {
+                int i = (start + k) % n;
+                x[i].getSolver().post(equal(x[i], best[i]));
+            }
+        };
+    }
+
+    /**
+     * Objective guided relaxation: relaxes variables drawn with a probability
+     * proportional to their contribution to the objective in the best solution,
+     * such that the most costly parts of the solution are reconsidered first.
+     *
+     * @param x the decision variables
+     * @param contribution given the best solution and the index of a variable,
+     *                     returns its (non negative) contribution to the objective
+     * @return the relaxation operator
+     */
+    public static Relaxation objectiveGuided(IntVar[] x, ToIntBiFunction<int[], Integer> contribution) {
+        return (best, size, rand) -> {
+            int n = x.length;
+            int relaxed = Math.min(n, (int) Math.ceil(size * n));
+            double[] weight = new double[n];
+            double total = 0;
+            for (int i = 0; i < n; i++) {
+                weight[i] = Math.max(0, contribution.applyAsInt(best, i)) + 1;
+                total += weight[i];
+            }
+            boolean[] relax = new boolean[n];
+            for (int k = 0; k < relaxed; k++) {
+                double r = rand.nextDouble() * total;
+                int i = 0;
+                while (i < n - 1 && (relax[i] || (r -= weight[i]) >= 0)) i++;
+                while (relax[i]) i--; // rounding at the end of the wheel
+                relax[i] = true;
+                total -= weight[i];
+            }
+            for (int i = 0; i < n; i++)
+                if (!relax[i])
+                    x[i].getSolver().post(equal(x[i], best[i]));
+        };
+    }
+
+    private static int[] permutation(int n, Random rand) {
+        int[] p = new int[n];
+        for (int i = 0; i < n; i++) p[i] = i;
+        for (int i = n - 1; i > 0; i--) {
+            int j = rand.nextInt(i + 1);
+            int t = p[i];
+            p[i] = p[j];
+            p[j] = t;
+        }
+        return p;
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+package minicp.search;
+
+import minicp.engine.core.IntVar;
+import minicp.engine.core.Solver;
+import minicp.state.StateManager;
+import minicp.util.Procedure;
+import minicp.util.exception.InconsistencyException;
+
+import java.util.Random;
+import java.util.function.Supplier;
+
+import static minicp.cp.BranchingScheme.EMPTY;
+
+/**
+ * Binary branching ({@code x = v} / {@code x != v}) that learns
+ * from the propagation following each of its decisions.
+ * <p>
+ * A listener on the domain of each variable records the variables
+ * modified by the propagation of a decision,
+ * which are given to {@link #learn(int, int, boolean, boolean)}.
+ * The statistics are initialized by random probing dives at the root.
+ * The learning does not allocate during the search,
+ * only the two branches of each node are created.
+ * A branch learns the first time it is executed only:
+ * when it is replayed by a {@link minicp.state.Recomputer},
+ * it applies the same decision without learning again.
+ */
+abstract class LearningBranching implements Supplier<Procedure[]> {
+
+    protected final IntVar[] x;
+    protected final Solver cp;
+    private final StateManager sm;
+    protected final int n;
+
+    /* initial minimum of each variable, offset of its value statistics */
+    protected final int[] ofs;
+    /* initial domain size of each variable */
+    protected final int[] initialSize;
+    /* buffer to iterate on the values of a domain */
+    protected final int[] values;
+
+    /* variables whose domain changed during the last decision */
+    protected final int[] touched;
+    protected int nTouched;
+    private final int[] touchedStamp;
+    private int stamp = 0;
+    private boolean recording = false;
+
+    private final Random rand;
+    private final int nProbes;
+    private boolean probed = false;
+
+    /**
+     * Creates the branching.
+     *
+     * @param x the decision variables
+     * @param nProbes the number of random dives at the root
+     * @param seed the seed of the random probing
+     */
+    LearningBranching(IntVar[] x, int nProbes, long seed) {
+        if (x.length == 0) throw new IllegalArgumentException("no variable to branch on");
+        this.x = x;
+        this.n = x.length;
+        this.cp = x[0].getSolver();
+        this.sm = cp.getStateManager();
+        this.nProbes = nProbes;
+        this.rand = new Random(seed);
+        ofs = new int[n];
+        initialSize = new int[n];
+        touched = new int[n];
+        touchedStamp = new int[n];
+        int maxSize = 0;
+        for (int i = 0; i < n; i++) {
+            final int k = i;
+            ofs[i] = x[i].min();
+            initialSize[i] = x[i].max() - x[i].min() + 1;
+            maxSize = Math.max(maxSize, initialSize[i]);
+            x[i].whenDomainChange(() -> changed(k));
+        }
+        values = new int[maxSize];
+    }
+
+    private void changed(int i) {
+        if (recording && touchedStamp[i] != stamp) {
+            touchedStamp[i] = stamp;
+            touched[nTouched++] = i;
+        }
+    }
+
+    /**
+     * Applies a decision and learns from its propagation.
+     */
+    private void decide(int i, int v, boolean left) {
+        beforeDecision(i, v, left);
+        stamp++;
+        nTouched = 0;
+        recording = true;
+        boolean failed = true;
+        try {
+            if (left) x[i].fix(v);
+            else x[i].remove(v);
+            cp.fixPoint();
+            failed = false;
+        } finally {
+            recording = false;
+            learn(i, v, left, failed);
+        }
+    }
+
+    @Override
+    public Procedure[] get() {
+        if (!probed) {
+            probed = true;
+            probe();
+        }
+        int i = selectVariable();
+        if (i < 0)
+            return EMPTY;
+        int v = selectValue(i);
+        return new Procedure[]{new Decision(i, v, true), new Decision(i, v, false)};
+    }
+
+    /**
+     * A branch on a given variable and value,
+     * that learns the first time it is executed.
+     */
+    private final class Decision implements Procedure {
+        private final int i;
+        private final int v;
+        private final boolean left;
+        private boolean executed = false;
+
+        Decision(int i, int v, boolean left) {
+            this.i = i;
+            this.v = v;
+            this.left = left;
+        }
+
+        @Override
+        public void call() {
+            if (executed) {
+                // replayed: same effect on the domains, nothing learned
+                if (left) x[i].fix(v);
+                else x[i].remove(v);
+                cp.fixPoint();
+            } else {
+                executed = true;
+                decide(i, v, left);
+            }
+        }
+    }
+
+    /**
+     * Random dives from the current node assigning random values
+     * to random variables until a failure or a solution.
+     */
+    private void probe() {
+        for (int p = 0; p < nProbes; p++) {
+            int level = sm.getLevel();
+            sm.saveState();
+            try {
+                while (true) {
+                    int i = -1;
+                    int nUnfixed = 0;
+                    for (int k = 0; k < n; k++)
+                        if (!x[k].isFixed() && rand.nextInt(++nUnfixed) == 0)
+                            i = k;
+                    if (i < 0) break;
+                    int size = x[i].fillArray(values);
+                    decide(i, values[rand.nextInt(size)], true);
+                }
+            } catch (InconsistencyException ignored) {
+            } finally {
+                sm.restoreStateUntil(level);
+            }
+        }
+    }
+
+    /**
+     * Called before a decision is applied.
+     *
+     * @param i the index of the variable
+     * @param v the value
+     * @param left true for {@code x = v}, false for {@code x != v}
+     */
+    protected void beforeDecision(int i, int v, boolean left) {
+    }
+
+    /**
+     * Learns from the propagation of a decision,
+     * the modified variables are in {@code touched[0..nTouched-1]}.
+     *
+     * @param i the index of the variable
+     * @param v the value
+     * @param left true for {@code x = v}, false for {@code x != v}
+     * @param failed true if the decision failed
+     */
+    protected abstract void learn(int i, int v, boolean left, boolean failed);
+
+    /**
+     * Returns the variable to branch on.
+     *
+     * @return the index of the variable or -1 if they are all fixed
+     */
+    protected abstract int selectVariable();
+
+    /**
+     * Returns the value of the left branch.
+     *
+     * @param i the index of an unfixed variable
+     * @return a value in its domain
+     */
+    protected abstract int selectValue(int i);
+}
@@ -16,6 +16,8 @@
 
 package minicp.search;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Objective object to be used
  * in the {@link DFSearch#optimize(Objective)}
@@ -30,4 +32,17 @@ public interface Objective {
      * the next found solution is better.
      */
     void tighten();
+
+    /**
+     * Replaces the bound of this objective
+     * by a value shared with the objectives of other solvers,
+     * such that a solution found by one of them
+     * also prunes the search of the others.
+     * The value is read at each fix-point and tightened
+     * atomically by {@link #tighten()}.
+     *
+     * @param bound the shared bound, it can only decrease
+     * @see ParallelSearch
+     */
+    void shareBound(AtomicInteger bound);
 }
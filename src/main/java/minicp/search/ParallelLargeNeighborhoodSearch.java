@@ -0,0 +1,218 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+package minicp.search;
+
+import minicp.util.Procedure;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Multi-threaded large neighborhood search.
+ * <p>
+ * Each worker builds its own solver and {@link LargeNeighborhoodSearch}
+ * with a factory and runs it with its own seed.
+ * The best solution is held in a lock-free shared incumbent:
+ * the workers publish their improvements as soon as they are found
+ * and relax the globally best solution at each iteration.
+ * The objective bound is shared as well such that every worker
+ * prunes with the best known objective.
+ * The search stops when the workers reach their limits
+ * or as soon as one of them proves optimality.
+ */
+public class ParallelLargeNeighborhoodSearch {
+
+    /**
+     * Lock-free holder of the best solution shared by the workers.
+     */
+    static final class Incumbent {
+
+        static final class Solution {
+            final int[] values;
+            final int objective;
+
+            Solution(int[] values, int objective) {
+                this.values = values;
+                this.objective = objective;
+            }
+        }
+
+        final AtomicReference<Solution> best = new AtomicReference<>();
+        final AtomicInteger bound = new AtomicInteger(Integer.MAX_VALUE);
+        final AtomicBoolean stop = new AtomicBoolean(false);
+        private final Procedure onImprovement;
+
+        Incumbent(Procedure onImprovement) {
+            this.onImprovement = onImprovement;
+        }
+
+        /**
+         * Publishes a solution if it improves the incumbent.
+         *
+         * @return true if the solution is the new incumbent
+         */
+        boolean offer(int[] values, int objective) {
+            Solution s = new Solution(values.clone(), objective);
+            while (true) {
+                Solution current = best.get();
+                if (current != null && current.objective <= objective)
+                    return false;
+                if (best.compareAndSet(current, s)) {
+                    onImprovement.call();
+                    return true;
+                }
+            }
+        }
+    }
+
+    private final Supplier<LargeNeighborhoodSearch> factory;
+    private final int nWorkers;
+    private final List<Procedure> solutionListeners = new LinkedList<>();
+    private long seed = 0;
+    private long timeLimitMillis = -1;
+    private Incumbent incumbent;
+
+    /**
+     * Creates a parallel large neighborhood search.
+     *
+     * @param factory the function that builds the model and the search of a worker,
+     *                called once by each worker.
+     *                The limits, relaxations and parameters of the searches are kept
+     *                except for the seed and the time limit if they are set here.
+     * @param nWorkers the number of threads
+     */
+    public ParallelLargeNeighborhoodSearch(Supplier<LargeNeighborhoodSearch> factory, int nWorkers) {
+        if (nWorkers <= 0) throw new IllegalArgumentException("at least one worker is needed");
+        this.factory = factory;
+        this.nWorkers = nWorkers;
+    }
+
+    /**
+     * Sets the seed of the workers, worker {@code w} uses {@code seed + w}.
+     *
+     * @param seed the seed, 0 by default
+     * @return this search
+     */
+    public ParallelLargeNeighborhoodSearch setSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * Sets the wall-clock budget of every worker.
+     *
+     * @param millis the budget in milliseconds
+     * @return this search
+     */
+    public ParallelLargeNeighborhoodSearch setTimeLimit(long millis) {
+        this.timeLimitMillis = millis;
+        return this;
+    }
+
+    /**
+     * Adds a listener that is called each time the shared incumbent improves,
+     * {@link #getBestSolution()} and {@link #getBestObjective()} give the new incumbent.
+     * The listeners are not called concurrently.
+     *
+     * @param listener the closure to be called
+     */
+    public void onSolution(Procedure listener) {
+        solutionListeners.add(listener);
+    }
+
+    /**
+     * Returns the values of the decision variables in the best solution.
+     *
+     * @return the best solution
+     * @throws IllegalStateException if no solution was found
+     */
+    public int[] getBestSolution() {
+        Incumbent.Solution s = incumbent == null ? null : incumbent.best.get();
+        if (s == null) throw new IllegalStateException("no solution found");
+        return s.values.clone();
+    }
+
+    /**
+     * Returns the value of the objective in the best solution.
+     *
+     * @return the best objective, {@link Integer#MAX_VALUE} if no solution was found
+     */
+    public int getBestObjective() {
+        Incumbent.Solution s = incumbent == null ? null : incumbent.best.get();
+        return s == null ? Integer.MAX_VALUE : s.objective;
+    }
+
+    /**
+     * Effectively starts the workers.
+     *
+     * @return the statistics summed over the workers,
+     *         completed if a worker proved optimality (or infeasibility)
+     */
+    public SearchStatistics optimize() {
+        SearchStatistics statistics = new SearchStatistics();
+        incumbent = new Incumbent(() -> {
+            synchronized (this) {
+                for (Procedure l : solutionListeners)
+                    l.call();
+            }
+        });
+        AtomicBoolean completed = new AtomicBoolean(false);
+        ExecutorService pool = Executors.newFixedThreadPool(nWorkers);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int w = 0; w < nWorkers; w++) {
+                long workerSeed = seed + w;
+                workers.add(pool.submit(() -> {
+                    LargeNeighborhoodSearch lns = factory.get().setSeed(workerSeed);
+                    if (timeLimitMillis >= 0)
+                        lns.setTimeLimit(timeLimitMillis);
+                    lns.share(incumbent);
+                    SearchStatistics s = lns.optimize();
+                    if (s.isCompleted()) {
+                        completed.set(true);
+                        incumbent.stop.set(true);
+                    }
+                    synchronized (statistics) {
+                        statistics.add(s);
+                    }
+                }));
+            }
+            for (Future<?> f : workers)
+                f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted parallel search", e);
+        } catch (ExecutionException e) {
+            incumbent.stop.set(true);
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            if (e.getCause() instanceof Error) throw (Error) e.getCause();
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        if (completed.get())
+            statistics.setCompleted();
+        return statistics;
+    }
+}
@@ -0,0 +1,332 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+package minicp.search;
+
+import minicp.engine.core.Solver;
+import minicp.state.StateInt;
+import minicp.util.Procedure;
+import minicp.util.exception.InconsistencyException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import static minicp.cp.BranchingScheme.EMPTY;
+
+/**
+ * Embarrassingly parallel search.
+ * <p>
+ * The search tree is first decomposed into many subproblems
+ * by a depth first search limited to a given depth
+ * in a model built by a factory.
+ * Each subproblem is the sequence of the positions of the branches
+ * taken from the root. The subproblems are then solved
+ * by a pool of workers, each one with its own model
+ * built by the factory, that replay the decisions of a subproblem
+ * and explore its subtree with a {@link DFSearch}.
+ * When optimizing, the workers share the bound of their objective
+ * (see {@link Objective#shareBound(AtomicInteger)}).
+ * <p>
+ * The factory must build identical models,
+ * and the branching must be deterministic such that replaying
+ * the positions of the branches gives the same decisions in every model.
+ * The bound of the objective is not enforced during the replay
+ * since it could change the choices of the branching.
+ */
+public class ParallelSearch {
+
+    /**
+     * The number of subproblems per worker
+     * aimed at by the automatic decomposition.
+     */
+    public static final int SUBPROBLEMS_PER_WORKER = 30;
+
+    /**
+     * A model built by the factory of a parallel search.
+     */
+    public static class Model {
+
+        final Solver cp;
+        final Supplier<Procedure[]> branching;
+        final Objective objective;
+        final List<Procedure> solutionListeners = new LinkedList<>();
+
+        /**
+         * Creates a model to solve.
+         *
+         * @param cp the solver in which the model is built
+         * @param branching the branching of the search
+         */
+        public Model(Solver cp, Supplier<Procedure[]> branching) {
+            this(cp, branching, null);
+        }
+
+        /**
+         * Creates a model to optimize.
+         *
+         * @param cp the solver in which the model is built
+         * @param branching the branching of the search
+         * @param objective the objective to optimize
+         */
+        public Model(Solver cp, Supplier<Procedure[]> branching, Objective objective) {
+            this.cp = cp;
+            this.branching = branching;
+            this.objective = objective;
+        }
+
+        /**
+         * Adds a listener that is called on each solution
+         * found in this model.
+         * The listeners of all the models are called one at a time.
+         *
+         * @param listener the closure to be called whenever a solution is found
+         * @return this model
+         */
+        public Model onSolution(Procedure listener) {
+            solutionListeners.add(listener);
+            return this;
+        }
+    }
+
+    private final Supplier<Model> factory;
+    private final int nWorkers;
+    private int decompositionDepth = 0;
+    private int nSubproblems = 0;
+
+    /**
+     * Creates a parallel search.
+     *
+     * @param factory the function that builds a model, called once
+     *                to decompose the problem and once by each worker
+     * @param nWorkers the number of threads that solve the subproblems
+     */
+    public ParallelSearch(Supplier<Model> factory, int nWorkers) {
+        if (nWorkers <= 0) throw new IllegalArgumentException("at least one worker is needed");
+        this.factory = factory;
+        this.nWorkers = nWorkers;
+    }
+
+    /**
+     * Sets the depth at which the search tree is decomposed.
+     * By default (0) the smallest depth giving at least
+     * {@link #SUBPROBLEMS_PER_WORKER} subproblems per worker is used.
+     *
+     * @param depth the depth of the decomposition, 0 for an automatic one
+     */
+    public void setDecompositionDepth(int depth) {
+        if (depth < 0) throw new IllegalArgumentException("negative depth");
+        this.decompositionDepth = depth;
+    }
+
+    /**
+     * Returns the number of subproblems of the last search.
+     *
+     * @return the number of subproblems
+     */
+    public int numberOfSubproblems() {
+        return nSubproblems;
+    }
+
+    /**
+     * Effectively starts the search for every solution.
+     * The statistics of the search are the ones of the subtrees
+     * of the subproblems explored by the workers
+     * (the nodes above them and their replay are not counted).
+     *
+     * @return the statistics summed over all the subproblems
+     */
+    public SearchStatistics solve() {
+        return solve(stats -> false);
+    }
+
+    /**
+     * Effectively starts the search for every solution
+     * with a given predicate on the statistics summed over
+     * the subproblems explored so far.
+     * It is tested each time a subproblem is explored,
+     * the search stops when it becomes true.
+     *
+     * @param limit a predicate that stops the search when it becomes true
+     * @return the statistics summed over all the subproblems
+     */
+    public SearchStatistics solve(Predicate<SearchStatistics> limit) {
+        return search(false, limit);
+    }
+
+    /**
+     * Effectively starts a parallel branch and bound
+     * with the objective of the models.
+     *
+     * @return the statistics summed over all the subproblems
+     */
+    public SearchStatistics optimize() {
+        return optimize(stats -> false);
+    }
+
+    /**
+     * Effectively starts a parallel branch and bound
+     * with the objective of the models
+     * and a given predicate on the statistics summed over
+     * the subproblems explored so far.
+     * It is tested each time a subproblem is explored,
+     * the search stops when it becomes true.
+     *
+     * @param limit a predicate that stops the search when it becomes true
+     * @return the statistics summed over all the subproblems
+     */
+    public SearchStatistics optimize(Predicate<SearchStatistics> limit) {
+        return search(true, limit);
+    }
+
+    private SearchStatistics search(boolean optimize, Predicate<SearchStatistics> limit) {
+        SearchStatistics statistics = new SearchStatistics();
+        List<int[]> subproblems = decompose();
+        nSubproblems = subproblems.size();
+
+        AtomicInteger next = new AtomicInteger(0);
+        AtomicBoolean stop = new AtomicBoolean(false);
+        AtomicBoolean completed = new AtomicBoolean(true);
+        AtomicInteger sharedBound = new AtomicInteger(Integer.MAX_VALUE);
+        ExecutorService pool = Executors.newFixedThreadPool(nWorkers);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int w = 0; w < nWorkers; w++) {
+                workers.add(pool.submit(() -> {
+                    Model model = factory.get();
+                    if (optimize && model.objective == null)
+                        throw new IllegalArgumentException("the models have no objective to optimize");
+                    if (optimize)
+                        model.objective.shareBound(sharedBound);
+                    AtomicInteger noBound = new AtomicInteger(Integer.MAX_VALUE);
+                    int i;
+                    while (!stop.get() && (i = next.getAndIncrement()) < subproblems.size()) {
+                        SearchStatistics s = explore(model, subproblems.get(i), optimize, sharedBound, noBound, stop);
+                        synchronized (statistics) {
+                            statistics.add(s);
+                            if (!s.isCompleted()) completed.set(false);
+                            if (limit.test(statistics)) stop.set(true);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> f : workers)
+                f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted parallel search", e);
+        } catch (ExecutionException e) {
+            stop.set(true);
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            if (e.getCause() instanceof Error) throw (Error) e.getCause();
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        if (completed.get() && !stop.get() && next.get() >= subproblems.size())
+            statistics.setCompleted();
+        return statistics;
+    }
+
+    /**
+     * Replays a subproblem in a model and explores its subtree.
+     */
+    private SearchStatistics explore(Model model, int[] path, boolean optimize,
+                                     AtomicInteger sharedBound, AtomicInteger noBound, AtomicBoolean stop) {
+        Solver cp = model.cp;
+        DFSearch dfs = new DFSearch(cp.getStateManager(), model.branching);
+        for (Procedure l : model.solutionListeners)
+            dfs.onSolution(() -> {
+                synchronized (this) {
+                    l.call();
+                }
+            });
+        boolean[] replayed = new boolean[]{false};
+        Procedure replay = () -> {
+            if (optimize) model.objective.shareBound(noBound);
+            try {
+                for (int position : path) {
+                    Procedure[] branches = model.branching.get();
+                    if (position >= branches.length)
+                        throw new IllegalStateException("the models or their branchings are not deterministic");
+                    branches[position].call();
+                }
+            } finally {
+                if (optimize) model.objective.shareBound(sharedBound);
+            }
+            cp.fixPoint(); // enforces the shared bound
+            replayed[0] = true;
+        };
+        SearchStatistics s = optimize
+                ? dfs.optimizeSubjectTo(model.objective, stats -> stop.get(), replay)
+                : dfs.solveSubjectTo(stats -> stop.get(), replay);
+        if (!replayed[0]) {
+            // the subproblem is pruned by the bound
+            s.incrFailures();
+            s.setCompleted();
+        }
+        return s;
+    }
+
+    /**
+     * Decomposes the search tree of a model into subproblems.
+     */
+    private List<int[]> decompose() {
+        Model model = factory.get();
+        StateInt depth = model.cp.getStateManager().makeStateInt(0);
+        int target = SUBPROBLEMS_PER_WORKER * nWorkers;
+        for (int d = decompositionDepth > 0 ? decompositionDepth : 1; ; d++) {
+            List<int[]> subproblems = new ArrayList<>();
+            int[] path = new int[d];
+            boolean[] cut = new boolean[]{false};
+            int maxDepth = d;
+            DFSearch dfs = new DFSearch(model.cp.getStateManager(), () -> {
+                int k = depth.value();
+                Procedure[] branches = model.branching.get();
+                if (branches.length == 0) return EMPTY;
+                if (k == maxDepth) {
+                    cut[0] = true;
+                    return EMPTY;
+                }
+                Procedure[] positioned = new Procedure[branches.length];
+                for (int i = 0; i < branches.length; i++) {
+                    final int position = i;
+                    positioned[i] = () -> {
+                        path[k] = position;
+                        depth.setValue(k + 1);
+                        branches[position].call();
+                    };
+                }
+                return positioned;
+            });
+            dfs.onSolution(() -> subproblems.add(Arrays.copyOf(path, depth.value())));
+            try {
+                dfs.solve();
+            } catch (InconsistencyException e) {
+                return subproblems; // the root has no solution
+            }
+            if (decompositionDepth > 0 || !cut[0] || subproblems.size() >= target)
+                return subproblems;
+        }
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+package minicp.search;
+
+import minicp.util.Procedure;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Portfolio of differently configured searches racing on the same problem.
+ * <p>
+ * Each member builds its own copy of the model, typically with
+ * its own branching (heuristic, seed, discrepancy limit, ...),
+ * and runs its own search on a separate thread.
+ * When optimizing, the members share the best objective value found so far
+ * and the first member that completes its search proves optimality
+ * and stops all the others.
+ * When solving, the first solution found stops all the members.
+ */
+public class Portfolio {
+
+    /**
+     * Search run by a member of the portfolio on its model.
+     */
+    @FunctionalInterface
+    public interface Strategy {
+        /**
+         * Runs a search on a model.
+         *
+         * @param model the model of the member
+         * @param objective the objective to optimize or null when solving
+         * @param limit the predicate that stops the search when it becomes true,
+         *              it must be tested regularly by the strategy
+         * @return the statistics of the search, completed only if the search space was exhausted
+         */
+        SearchStatistics run(ParallelSearch.Model model, Objective objective, Predicate<SearchStatistics> limit);
+    }
+
+    /**
+     * Depth first search with the branching of the model.
+     */
+    public static final Strategy DFS = (model, objective, limit) -> {
+        DFSearch dfs = new DFSearch(model.cp.getStateManager(), model.branching);
+        for (Procedure l : model.solutionListeners)
+            dfs.onSolution(l);
+        return objective == null ? dfs.solve(limit) : dfs.optimize(objective, limit);
+    };
+
+    private final List<Supplier<ParallelSearch.Model>> factories = new ArrayList<>();
+    private final List<Strategy> strategies = new ArrayList<>();
+    private int winner = -1;
+
+    /**
+     * Adds a member running a depth first search.
+     *
+     * @param factory the function that builds the model of the member
+     * @return this portfolio
+     */
+    public Portfolio add(Supplier<ParallelSearch.Model> factory) {
+        return add(factory, DFS);
+    }
+
+    /**
+     * Adds a member running its own search.
+     *
+     * @param factory the function that builds the model of the member
+     * @param strategy the search of the member
+     * @return this portfolio
+     */
+    public Portfolio add(Supplier<ParallelSearch.Model> factory, Strategy strategy) {
+        factories.add(factory);
+        strategies.add(strategy);
+        return this;
+    }
+
+    /**
+     * Returns the member that stopped the last race:
+     * the one that found the first solution when solving
+     * or proved optimality when optimizing.
+     *
+     * @return the index of the member in the order of addition,
+     *         -1 if no member stopped the race
+     */
+    public int winner() {
+        return winner;
+    }
+
+    /**
+     * Races the members until one of them finds a solution
+     * or proves there is none.
+     *
+     * @return the statistics summed over all the members,
+     *         completed if a member exhausted its search space
+     */
+    public SearchStatistics solve() {
+        return solve(stats -> false);
+    }
+
+    /**
+     * Races the members until one of them finds a solution
+     * or proves there is none.
+     *
+     * @param limit a predicate on the statistics of a member that stops it when it becomes true
+     * @return the statistics summed over all the members,
+     *         completed if a member exhausted its search space
+     */
+    public SearchStatistics solve(Predicate<SearchStatistics> limit) {
+        return race(false, limit);
+    }
+
+    /**
+     * Races the members until one of them proves optimality.
+     *
+     * @return the statistics summed over all the members,
+     *         completed if a member proved optimality
+     */
+    public SearchStatistics optimize() {
+        return optimize(stats -> false);
+    }
+
+    /**
+     * Races the members until one of them proves optimality.
+     *
+     * @param limit a predicate on the statistics of a member that stops it when it becomes true
+     * @return the statistics summed over all the members,
+     *         completed if a member proved optimality
+     */
+    public SearchStatistics optimize(Predicate<SearchStatistics> limit) {
+        return race(true, limit);
+    }
+
+    private SearchStatistics race(boolean optimize, Predicate<SearchStatistics> limit) {
+        int n = factories.size();
+        if (n == 0) throw new IllegalStateException("the portfolio has no member");
+        SearchStatistics statistics = new SearchStatistics();
+        AtomicBoolean stop = new AtomicBoolean(false);
+        AtomicInteger first = new AtomicInteger(-1);
+        AtomicInteger sharedBound = new AtomicInteger(Integer.MAX_VALUE);
+        ExecutorService pool = Executors.newFixedThreadPool(n);
+        try {
+            List<Future<?>> members = new ArrayList<>();
+            for (int m = 0; m < n; m++) {
+                int id = m;
+                members.add(pool.submit(() -> {
+                    ParallelSearch.Model model = factories.get(id).get();
+                    if (optimize && model.objective == null)
+                        throw new IllegalArgumentException("the models have no objective to optimize");
+                    if (optimize)
+                        model.objective.shareBound(sharedBound);
+                    // the listeners of the members are not called concurrently
+                    ParallelSearch.Model synchronizedModel = new ParallelSearch.Model(model.cp, model.branching, model.objective);
+                    for (Procedure l : model.solutionListeners)
+                        synchronizedModel.onSolution(() -> {
+                            synchronized (this) {
+                                l.call();
+                            }
+                        });
+                    SearchStatistics s = strategies.get(id).run(synchronizedModel, optimize ? model.objective : null,
+                            stats -> stop.get() || limit.test(stats) || (!optimize && stats.numberOfSolutions() > 0));
+                    if (s.isCompleted() || (!optimize && s.numberOfSolutions() > 0)) {
+                        if (first.compareAndSet(-1, id))
+                            stop.set(true);
+                    }
+                    synchronized (statistics) {
+                        statistics.add(s);
+                    }
+                }));
+            }
+            for (Future<?> f : members)
+                f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted portfolio", e);
+        } catch (ExecutionException e) {
+            stop.set(true);
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            if (e.getCause() instanceof Error) throw (Error) e.getCause();
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        winner = first.get();
+        if (winner >= 0 && (optimize || statistics.numberOfSolutions() == 0))
+            statistics.setCompleted();
+        return statistics;
+    }
+}
@@ -0,0 +1,335 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+package minicp.search;
+
+import minicp.engine.constraints.NogoodStore;
+import minicp.engine.core.IntVar;
+import minicp.engine.core.Solver;
+import minicp.state.StateInt;
+import minicp.state.StateManager;
+import minicp.util.Procedure;
+import minicp.util.exception.InconsistencyException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.IntUnaryOperator;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import static minicp.cp.BranchingScheme.EMPTY;
+import static minicp.cp.BranchingScheme.branch;
+import static minicp.cp.Factory.equal;
+import static minicp.cp.Factory.notEqual;
+
+/**
+ * Depth first search with restarts and nogood recording.
+ * <p>
+ * The search branches on {@code x = v} (left) and {@code x != v} (right)
+ * with a variable and a value selector.
+ * Each run is stopped once a cutoff on the number of failures or nodes
+ * is reached, the cutoff of the successive runs
+ * follows a sequence such as {@link #luby(int)} or {@link #geometric(int, double)}.
+ * <p>
+ * When a run is stopped, the subtrees left of the current path are refuted.
+ * For each right decision {@code x_i != v_i} of the path,
+ * the reduced nogood made of the left decisions above it and {@code x_i = v_i}
+ * is added to a {@link NogoodStore} such that
+ * the next runs never explore those subtrees again.
+ *
+ * <p>
+ * Lecoutre, C., Saïs, L., Tabary, S., Vidal, V. (2007).
+ * Recording and minimizing nogoods from restarts.
+ * Journal on Satisfiability, Boolean Modeling and Computation, 1, 147-167.
+ */
+public class RestartSearch {
+
+    /**
+     * Quantity on which the cutoff of a run is applied.
+     */
+    public enum Measure {
+        FAILURES, NODES;
+
+        int of(SearchStatistics statistics) {
+            return this == FAILURES ? statistics.numberOfFailures() : statistics.numberOfNodes();
+        }
+    }
+
+    private final Solver cp;
+    private final StateManager sm;
+    private final DFSearch dfs;
+    private final List<Procedure> solutionListeners = new LinkedList<>();
+    private IntUnaryOperator cutoffs = luby(100);
+    private Measure measure = Measure.FAILURES;
+    private boolean recordNogoods = true;
+    private Objective objective;
+
+    // decisions on the current path
+    private final StateInt depth;
+    private IntVar[] pathVar = new IntVar[16];
+    private int[] pathVal = new int[16];
+    private boolean[] pathLeft = new boolean[16];
+
+    private int nRestarts;
+    private int nNogoods;
+
+    /**
+     * Creates a search with restarts.
+     *
+     * @param cp the solver
+     * @param variableSelector returns the next variable to fix, null or a fixed variable if none
+     * @param valueSelector given a variable, returns the value to which
+     *                      it must be assigned on the left branch (and excluded on the right)
+     */
+    public RestartSearch(Solver cp, Supplier<IntVar> variableSelector, Function<IntVar, Integer> valueSelector) {
+        this.cp = cp;
+        this.sm = cp.getStateManager();
+        this.depth = sm.makeStateInt(0);
+        this.dfs = new DFSearch(sm, () -> {
+            IntVar x = variableSelector.get();
+            if (x == null || x.isFixed())
+                return EMPTY;
+            int v = valueSelector.apply(x);
+            int d = depth.value();
+            return branch(
+                    () -> {
+                        decide(d, x, v, true);
+                        cp.post(equal(x, v));
+                    },
+                    () -> {
+                        decide(d, x, v, false);
+                        cp.post(notEqual(x, v));
+                    });
+        });
+        dfs.onSolution(() -> {
+            for (Procedure l : solutionListeners)
+                l.call();
+            if (objective != null)
+                objective.tighten();
+        });
+    }
+
+    private void decide(int d, IntVar x, int v, boolean left) {
+        if (d == pathVar.length) {
+            pathVar = Arrays.copyOf(pathVar, d * 2);
+            pathVal = Arrays.copyOf(pathVal, d * 2);
+            pathLeft = Arrays.copyOf(pathLeft, d * 2);
+        }
+        pathVar[d] = x;
+        pathVal[d] = v;
+        pathLeft[d] = left;
+        depth.setValue(d + 1);
+    }
+
+    /**
+     * Sets the cutoffs of the runs.
+     *
+     * @param cutoffs gives the cutoff of the i-th run (starting from 0)
+     * @param measure the quantity on which the cutoffs apply
+     * @return this search
+     */
+    public RestartSearch setCutoffs(IntUnaryOperator cutoffs, Measure measure) {
+        this.cutoffs = cutoffs;
+        this.measure = measure;
+        return this;
+    }
+
+    /**
+     * Enables or disables the recording of nogoods at each restart,
+     * they are recorded by default.
+     *
+     * @param recordNogoods true to record the nogoods
+     * @return this search
+     */
+    public RestartSearch setRecordNogoods(boolean recordNogoods) {
+        this.recordNogoods = recordNogoods;
+        return this;
+    }
+
+    /**
+     * Adds a listener that is called on each solution.
+     *
+     * @param listener the closure to be called
+     */
+    public void onSolution(Procedure listener) {
+        solutionListeners.add(listener);
+    }
+
+    /**
+     * Returns the number of restarts of the last search.
+     *
+     * @return the number of restarts
+     */
+    public int numberOfRestarts() {
+        return nRestarts;
+    }
+
+    /**
+     * Returns the number of nogoods recorded during the last search.
+     *
+     * @return the number of nogoods
+     */
+    public int numberOfNogoods() {
+        return nNogoods;
+    }
+
+    /**
+     * Effectively starts the search looking for every solution.
+     *
+     * @return the statistics summed over the runs
+     */
+    public SearchStatistics solve() {
+        return solve(stats -> false);
+    }
+
+    /**
+     * Effectively starts the search with a given predicate called at each node
+     * on the statistics summed over the runs
+     * to stop the search when it becomes true.
+     *
+     * @param limit a predicate called at each node
+     *             that stops the search when it becomes true
+     * @return the statistics summed over the runs
+     */
+    public SearchStatistics solve(Predicate<SearchStatistics> limit) {
+        return search(null, limit);
+    }
+
+    /**
+     * Effectively starts a branch and bound with restarts.
+     *
+     * @param obj the objective to optimize that is tightened each
+     *            time a new solution is found
+     * @return the statistics summed over the runs
+     */
+    public SearchStatistics optimize(Objective obj) {
+        return optimize(obj, stats -> false);
+    }
+
+    /**
+     * Effectively starts a branch and bound with restarts
+     * and with a given predicate called at each node
+     * on the statistics summed over the runs
+     * to stop the search when it becomes true.
+     *
+     * @param obj the objective to optimize that is tightened each
+     *            time a new solution is found
+     * @param limit a predicate called at each node
+     *             that stops the search when it becomes true
+     * @return the statistics summed over the runs
+     */
+    public SearchStatistics optimize(Objective obj, Predicate<SearchStatistics> limit) {
+        return search(obj, limit);
+    }
+
+    private SearchStatistics search(Objective obj, Predicate<SearchStatistics> limit) {
+        objective = obj;
+        nRestarts = 0;
+        nNogoods = 0;
+        SearchStatistics statistics = new SearchStatistics();
+        sm.withNewState(() -> {
+            NogoodStore nogoods = new NogoodStore(cp);
+            while (true) {
+                int start = measure.of(statistics);
+                int cutoff = cutoffs.applyAsInt(nRestarts);
+                boolean[] restart = new boolean[1];
+                int[] cutoffDepth = new int[1];
+                dfs.solve(statistics, stats -> {
+                    if (limit.test(stats))
+                        return true;
+                    if (measure.of(stats) - start >= cutoff) {
+                        restart[0] = true;
+                        cutoffDepth[0] = depth.value();
+                        return true;
+                    }
+                    return false;
+                });
+                if (!restart[0])
+                    break; // completed or stopped by the limit
+                nRestarts++;
+                try {
+                    if (recordNogoods)
+                        record(nogoods, cutoffDepth[0]);
+                    cp.fixPoint();
+                } catch (InconsistencyException e) {
+                    // the nogoods refute the whole search space
+                    statistics.setCompleted();
+                    break;
+                }
+            }
+        });
+        objective = null;
+        return statistics;
+    }
+
+    /**
+     * Records the reduced nogoods of a path.
+     */
+    private void record(NogoodStore nogoods, int pathLength) {
+        List<IntVar> left = new ArrayList<>();
+        List<Integer> leftValues = new ArrayList<>();
+        for (int i = 0; i < pathLength; i++) {
+            if (pathLeft[i]) {
+                left.add(pathVar[i]);
+                leftValues.add(pathVal[i]);
+            } else {
+                int k = left.size();
+                IntVar[] x = left.toArray(new IntVar[k + 1]);
+                int[] v = new int[k + 1];
+                for (int j = 0; j < k; j++)
+                    v[j] = leftValues.get(j);
+                x[k] = pathVar[i];
+                v[k] = pathVal[i];
+                nNogoods++;
+                nogoods.add(x, v);
+            }
+        }
+    }
+
+    /**
+     * Returns the Luby sequence {@code 1, 1, 2, 1, 1, 2, 4, 1, 1, 2, ...}
+     * multiplied by a scale.
+     *
+     * @param scale the cutoff of the first run
+     * @return the function giving the cutoff of the i-th run
+     */
+    public static IntUnaryOperator luby(int scale) {
+        if (scale <= 0) throw new IllegalArgumentException("the cutoffs must be positive");
+        return i -> (int) Math.min(Integer.MAX_VALUE, (long) scale * luby1(i + 1));
+    }
+
+    private static long luby1(int i) {
+        // i is 1-based: find k such that i <= 2^k - 1
+        int k = 1;
+        while ((1L << k) - 1 < i) k++;
+        if (i == (1L << k) - 1) return 1L << (k - 1);
+        return luby1(i - (1 << (k - 1)) + 1);
+    }
+
+    /**
+     * Returns a geometric sequence of cutoffs.
+     *
+     * @param initial the cutoff of the first run
+     * @param growth the factor (at least 1) applied to the cutoff at each restart
+     * @return the function giving the cutoff of the i-th run
+     */
+    public static IntUnaryOperator geometric(int initial, double growth) {
+        if (initial <= 0) throw new IllegalArgumentException("the cutoffs must be positive");
+        if (growth < 1) throw new IllegalArgumentException("the cutoffs must not decrease");
+        return i -> (int) Math.min(Integer.MAX_VALUE, initial * Math.pow(growth, i));
+    }
+}
@@ -27,12 +27,14 @@ public class SearchStatistics {
     private int nNodes = 0;
     private int nSolutions = 0;
     private boolean completed = false;
+    private boolean memoryLimitReached = false;
 
     public String toString() {
         return "\n\t#choice: " + nNodes
                 + "\n\t#fail: " + nFailures
                 + "\n\t#sols : " + nSolutions
-                + "\n\tcompleted : " + completed + "\n";
+                + "\n\tcompleted : " + completed + "\n"
+                + (memoryLimitReached ? "\tmemory limit reached\n" : "");
     }
 
     public void incrFailures() {
@@ -47,10 +49,27 @@ public class SearchStatistics {
         nSolutions++;
     }
 
+    /**
+     * Adds the number of nodes, failures and solutions
+     * of another search to the ones of this search.
+     *
+     * @param other the statistics of the other search
+     */
+    public void add(SearchStatistics other) {
+        nFailures += other.nFailures;
+        nNodes += other.nNodes;
+        nSolutions += other.nSolutions;
+        memoryLimitReached |= other.memoryLimitReached;
+    }
+
     public void setCompleted() {
         completed = true;
     }
 
+    public void setMemoryLimitReached() {
+        memoryLimitReached = true;
+    }
+
     public int numberOfFailures() {
         return nFailures;
     }
@@ -67,4 +86,15 @@ public class SearchStatistics {
         return completed;
     }
 
+    /**
+     * Returns true if the search was stopped because
+     * the memory limit of the state manager was reached.
+     *
+     * @return true if the memory limit was reached
+     * @see minicp.state.StateManager#setMemoryLimit(long)
+     */
+    public boolean isMemoryLimitReached() {
+        return memoryLimitReached;
+    }
+
 }
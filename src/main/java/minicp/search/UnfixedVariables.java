@@ -0,0 +1,186 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+
+package minicp.search;
+
+import minicp.engine.core.IntVar;
+import minicp.state.StateSparseSet;
+
+import java.util.function.IntToLongFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Reversible set of the unfixed variables of an array,
+ * used by the variable selectors to avoid scanning fixed variables.
+ * The fixed variables are removed lazily, when a selection encounters them,
+ * and they come back into the set when the search backtracks above that point.
+ * A selection is thus linear in the number of variables
+ * that were unfixed at the parent node, and allocates nothing.
+ * <p>
+ * On ties, the selectors return the variable with the smallest index,
+ * as a left to right scan of the array would.
+ */
+public class UnfixedVariables {
+
+    private final IntVar[] x;
+    private final StateSparseSet set;
+    private final int[] buffer;
+
+    /**
+     * Creates the set of the unfixed variables of x.
+     *
+     * @param x the variables, they must belong to the same solver
+     *          and the array must not be empty
+     */
+    public UnfixedVariables(IntVar... x) {
+        if (x.length == 0) throw new IllegalArgumentException("at least one variable is required");
+        this.x = x;
+        this.set = new StateSparseSet(x[0].getSolver().getStateManager(), x.length, 0);
+        this.buffer = new int[x.length];
+    }
+
+    /**
+     * Removes the fixed variables from the set
+     * and stores the indices of the remaining ones in the buffer.
+     *
+     * @return the number of unfixed variables
+     */
+    private int refresh() {
+        int s = set.fillArray(buffer);
+        int m = 0;
+        for (int k = 0; k < s; k++) {
+            int i = buffer[k];
+            if (x[i].isFixed())
+                set.remove(i);
+            else
+                buffer[m++] = i;
+        }
+        return m;
+    }
+
+    /**
+     * Returns the number of unfixed variables.
+     *
+     * @return the number of unfixed variables
+     */
+    public int size() {
+        return refresh();
+    }
+
+    /**
+     * Returns the index of the unfixed variable minimizing f.
+     *
+     * @param f the evaluation function
+     * @return the index in x of the unfixed variable minimizing f,
+     *         the smallest one on ties, or -1 if all the variables are fixed
+     */
+    public int selectMin(ToIntFunction<IntVar> f) {
+        int m = refresh();
+        int sel = -1;
+        int best = 0;
+        for (int k = 0; k < m; k++) {
+            int i = buffer[k];
+            int v = f.applyAsInt(x[i]);
+            if (sel < 0 || v < best || (v == best && i < sel)) {
+                sel = i;
+                best = v;
+            }
+        }
+        return sel;
+    }
+
+    /**
+     * Returns the index of the unfixed variable minimizing f,
+     * ties being broken by minimizing tieBreak.
+     *
+     * @param f the evaluation function
+     * @param tieBreak the evaluation function used among the minima of f
+     * @return the index in x of the selected variable,
+     *         the smallest one on remaining ties, or -1 if all the variables are fixed
+     */
+    public int selectMin(ToIntFunction<IntVar> f, ToIntFunction<IntVar> tieBreak) {
+        int m = refresh();
+        int sel = -1;
+        int best = 0;
+        int bestTie = 0;
+        for (int k = 0; k < m; k++) {
+            int i = buffer[k];
+            int v = f.applyAsInt(x[i]);
+            if (sel < 0 || v < best) {
+                sel = i;
+                best = v;
+                bestTie = tieBreak.applyAsInt(x[i]);
+            } else if (v == best) {
+                int t = tieBreak.applyAsInt(x[i]);
+                if (t < bestTie || (t == bestTie && i < sel)) {
+                    sel = i;
+                    bestTie = t;
+                }
+            }
+        }
+        return sel;
+    }
+
+    /**
+     * Returns the index of the unfixed variable minimizing f.
+     *
+     * @param f the evaluation function
+     * @return the index in x of the unfixed variable minimizing f,
+     *         the smallest one on ties, or -1 if all the variables are fixed
+     */
+    public int selectMinLong(ToLongFunction<IntVar> f) {
+        int m = refresh();
+        int sel = -1;
+        long best = 0;
+        for (int k = 0; k < m; k++) {
+            int i = buffer[k];
+            long v = f.applyAsLong(x[i]);
+            if (sel < 0 || v < best || (v == best && i < sel)) {
+                sel = i;
+                best = v;
+            }
+        }
+        return sel;
+    }
+
+    /**
+     * Returns the index of the unfixed variable minimizing
+     * the ratio num / den, compared by cross multiplication.
+     *
+     * @param num the numerator, for instance the domain size
+     * @param den the denominator as a function of the variable index, it must be positive
+     * @return the index in x of the unfixed variable minimizing the ratio,
+     *         the smallest one on ties, or -1 if all the variables are fixed
+     */
+    public int selectMinRatio(ToLongFunction<IntVar> num, IntToLongFunction den) {
+        int m = refresh();
+        int sel = -1;
+        long bestNum = 0;
+        long bestDen = 1;
+        for (int k = 0; k < m; k++) {
+            int i = buffer[k];
+            long n = num.applyAsLong(x[i]);
+            long d = den.applyAsLong(i);
+            // n / d < bestNum / bestDen
+            if (sel < 0 || n * bestDen < bestNum * d || (n * bestDen == bestNum * d && i < sel)) {
+                sel = i;
+                bestNum = n;
+                bestDen = d;
+            }
+        }
+        return sel;
+    }
+}
@@ -0,0 +1,421 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+package minicp.search;
+
+import minicp.state.StateManager;
+import minicp.util.Procedure;
+import minicp.util.exception.InconsistencyException;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Parallel depth first search with work stealing.
+ * <p>
+ * Each worker explores a subtree with its own model built by a factory
+ * and its own stack of open nodes, as in {@link DFSearch}.
+ * An idle worker steals the oldest open alternative of another worker,
+ * that is the unexplored child of its shallowest open node,
+ * hence the largest subtree left in the stack.
+ * A stolen alternative is described by the positions of the branches
+ * taken from the root and the thief replays them in its own model.
+ * Unlike a static decomposition ({@link ParallelSearch})
+ * the workers stay busy on unbalanced trees.
+ * <p>
+ * When optimizing, the workers publish their solutions in a shared bound.
+ * Each worker reads it into its own view of the bound before each decision,
+ * the value of the view is recorded with the decision such that
+ * replaying a path reproduces the states of the worker it was stolen from,
+ * and thus the choices of the branching.
+ * The factory must build identical models
+ * and the branching must be deterministic.
+ */
+public class WorkStealingSearch {
+
+    // the statistics are merged and the limit is tested every NODES_PER_MERGE nodes
+    private static final int NODES_PER_MERGE = 1024;
+
+    /**
+     * A replayable decision path:
+     * the positions of the branches taken from the root
+     * and the value of the bound when each one was taken.
+     */
+    private static final class Path {
+        final int[] positions;
+        final int[] bounds;
+
+        Path(int[] positions, int[] bounds) {
+            this.positions = positions;
+            this.bounds = bounds;
+        }
+    }
+
+    private static final Path ROOT = new Path(new int[0], new int[0]);
+
+    private final Supplier<ParallelSearch.Model> factory;
+    private final int nWorkers;
+
+    // state of the current search
+    private Worker[] workers;
+    private boolean optimize;
+    private Predicate<SearchStatistics> limit;
+    private SearchStatistics statistics;
+    private final AtomicInteger sharedBound = new AtomicInteger();
+    private final AtomicInteger busy = new AtomicInteger();
+    private final AtomicBoolean stop = new AtomicBoolean();
+    private final AtomicInteger nSteals = new AtomicInteger();
+    private final AtomicReference<Throwable> error = new AtomicReference<>();
+
+    /**
+     * Creates a parallel search.
+     *
+     * @param factory the function that builds a model, called once by each worker
+     * @param nWorkers the number of threads exploring the search tree
+     */
+    public WorkStealingSearch(Supplier<ParallelSearch.Model> factory, int nWorkers) {
+        if (nWorkers <= 0) throw new IllegalArgumentException("at least one worker is needed");
+        this.factory = factory;
+        this.nWorkers = nWorkers;
+    }
+
+    /**
+     * Returns the number of alternatives stolen during the last search.
+     *
+     * @return the number of steals
+     */
+    public int numberOfSteals() {
+        return nSteals.get();
+    }
+
+    /**
+     * Effectively starts the search for every solution.
+     *
+     * @return the statistics summed over all the workers
+     */
+    public SearchStatistics solve() {
+        return solve(stats -> false);
+    }
+
+    /**
+     * Effectively starts the search for every solution
+     * with a given predicate on the statistics summed over the workers.
+     * It is tested at each solution and regularly during the search,
+     * the search stops when it becomes true.
+     *
+     * @param limit a predicate that stops the search when it becomes true
+     * @return the statistics summed over all the workers
+     */
+    public SearchStatistics solve(Predicate<SearchStatistics> limit) {
+        return search(false, limit);
+    }
+
+    /**
+     * Effectively starts a parallel branch and bound
+     * with the objective of the models.
+     *
+     * @return the statistics summed over all the workers
+     */
+    public SearchStatistics optimize() {
+        return optimize(stats -> false);
+    }
+
+    /**
+     * Effectively starts a parallel branch and bound
+     * with the objective of the models
+     * and a given predicate on the statistics summed over the workers.
+     * It is tested at each solution and regularly during the search,
+     * the search stops when it becomes true.
+     *
+     * @param limit a predicate that stops the search when it becomes true
+     * @return the statistics summed over all the workers
+     */
+    public SearchStatistics optimize(Predicate<SearchStatistics> limit) {
+        return search(true, limit);
+    }
+
+    private SearchStatistics search(boolean optimize, Predicate<SearchStatistics> limit) {
+        this.optimize = optimize;
+        this.limit = limit;
+        statistics = new SearchStatistics();
+        sharedBound.set(Integer.MAX_VALUE);
+        stop.set(false);
+        nSteals.set(0);
+        error.set(null);
+        workers = new Worker[nWorkers];
+        for (int w = 0; w < nWorkers; w++)
+            workers[w] = new Worker(w);
+        // the first worker starts with the root
+        busy.set(1);
+        Thread[] threads = new Thread[nWorkers];
+        for (int w = 0; w < nWorkers; w++) {
+            Worker worker = workers[w];
+            threads[w] = new Thread(() -> {
+                try {
+                    worker.run(worker.id == 0 ? ROOT : null);
+                } catch (Throwable t) {
+                    error.compareAndSet(null, t);
+                    stop.set(true);
+                }
+            }, "minicp-worker-" + w);
+            threads[w].start();
+        }
+        try {
+            for (Thread t : threads)
+                t.join();
+        } catch (InterruptedException e) {
+            stop.set(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted parallel search", e);
+        }
+        Throwable t = error.get();
+        if (t instanceof RuntimeException) throw (RuntimeException) t;
+        if (t instanceof Error) throw (Error) t;
+        if (!stop.get())
+            statistics.setCompleted();
+        workers = null;
+        return statistics;
+    }
+
+    private Path steal(Worker thief) {
+        for (int k = 1; k < nWorkers; k++) {
+            Worker victim = workers[(thief.id + k) % nWorkers];
+            Path p = victim.giveOldestAlternative();
+            if (p != null) {
+                nSteals.incrementAndGet();
+                return p;
+            }
+        }
+        return null;
+    }
+
+    private final class Worker {
+
+        final int id;
+        private ParallelSearch.Model model;
+        private StateManager sm;
+        // the bound read by the objective of the model
+        private final AtomicInteger view = new AtomicInteger(Integer.MAX_VALUE);
+        private SearchStatistics local = new SearchStatistics();
+        private int nodesSinceMerge = 0;
+
+        /* path from the root to the root of the explored subtree */
+        private Path base = ROOT;
+
+        /* stack of the open nodes, guarded by this worker */
+        private Procedure[][] openBranches = new Procedure[16][];
+        private int[] openNext = new int[16];     // index of the next child to explore
+        private int[] openCurrent = new int[16];  // index of the child being explored
+        private int[] openBound = new int[16];    // bound when the current child was taken
+        private int[] openLevel = new int[16];    // level to restore once the node is explored
+        private int nOpen = 0;
+
+        Worker(int id) {
+            this.id = id;
+        }
+
+        void run(Path work) {
+            model = factory.get();
+            if (optimize && model.objective == null)
+                throw new IllegalArgumentException("the models have no objective to optimize");
+            if (optimize)
+                model.objective.shareBound(view);
+            sm = model.cp.getStateManager();
+            while (true) {
+                if (work == null) {
+                    busy.incrementAndGet();
+                    work = steal(this);
+                    if (work == null) {
+                        busy.decrementAndGet();
+                        if (busy.get() == 0 || stop.get()) break;
+                        LockSupport.parkNanos(20_000);
+                        continue;
+                    }
+                }
+                try {
+                    explore(work);
+                } finally {
+                    work = null;
+                    busy.decrementAndGet();
+                }
+                if (stop.get()) break;
+            }
+            merge();
+        }
+
+        /**
+         * Gives the oldest open alternative to another worker.
+         *
+         * @return the path of the alternative or null if there is none
+         */
+        synchronized Path giveOldestAlternative() {
+            for (int f = 0; f < nOpen; f++) {
+                if (openNext[f] < openBranches[f].length) {
+                    int n = base.positions.length;
+                    int[] positions = Arrays.copyOf(base.positions, n + f + 1);
+                    int[] bounds = Arrays.copyOf(base.bounds, n + f + 1);
+                    for (int j = 0; j < f; j++) {
+                        positions[n + j] = openCurrent[j];
+                        bounds[n + j] = openBound[j];
+                    }
+                    positions[n + f] = openNext[f]++;
+                    bounds[n + f] = Integer.MAX_VALUE; // set by the thief
+                    return new Path(positions, bounds);
+                }
+            }
+            return null;
+        }
+
+        private void explore(Path path) {
+            int level = sm.getLevel();
+            sm.saveState();
+            try {
+                Path replayed = replay(path);
+                synchronized (this) {
+                    base = replayed;
+                    nOpen = 0;
+                }
+                dfs(level);
+            } catch (InconsistencyException e) {
+                local.incrFailures(); // the alternative is pruned by the bound
+            } catch (StopSearchException ignored) {
+            } finally {
+                synchronized (this) {
+                    Arrays.fill(openBranches, 0, nOpen, null);
+                    nOpen = 0;
+                }
+                sm.restoreStateUntil(level);
+            }
+        }
+
+        /**
+         * Replays a path, the last decision is taken with the latest bound.
+         *
+         * @return the path with the bound used by its last decision
+         */
+        private Path replay(Path path) {
+            int n = path.positions.length;
+            if (n == 0) return path;
+            int[] bounds = path.bounds.clone();
+            bounds[n - 1] = sharedBound.get();
+            for (int k = 0; k < n; k++) {
+                view.set(bounds[k]);
+                Procedure[] branches = model.branching.get();
+                if (path.positions[k] >= branches.length)
+                    throw new IllegalStateException("the models or their branchings are not deterministic");
+                branches[path.positions[k]].call();
+            }
+            model.cp.fixPoint();
+            return new Path(path.positions, bounds);
+        }
+
+        private void dfs(int level) {
+            if (!expand(level)) return;
+            while (true) {
+                int top;
+                int p;
+                synchronized (this) {
+                    if (nOpen == 0) return;
+                    top = nOpen - 1;
+                    if (openNext[top] == openBranches[top].length) {
+                        // all the children are explored or stolen
+                        openBranches[top] = null;
+                        nOpen--;
+                        p = -1;
+                    } else {
+                        p = openNext[top]++;
+                        openCurrent[top] = p;
+                    }
+                }
+                if (p < 0) {
+                    sm.restoreStateUntil(openLevel[top]);
+                    continue;
+                }
+                Procedure b = openBranches[top][p];
+                int childLevel = sm.getLevel();
+                sm.saveState();
+                int bound = sharedBound.get();
+                view.set(bound);
+                openBound[top] = bound;
+                try {
+                    local.incrNodes();
+                    b.call();
+                    if (expand(childLevel))
+                        continue; // restored once its children are explored
+                } catch (InconsistencyException e) {
+                    local.incrFailures();
+                }
+                sm.restoreStateUntil(childLevel);
+            }
+        }
+
+        /**
+         * Creates a node, reports it as a solution
+         * or pushes it on the stack of open nodes.
+         *
+         * @return true if the node was pushed
+         */
+        private boolean expand(int level) {
+            if (stop.get())
+                throw new StopSearchException();
+            if (++nodesSinceMerge == NODES_PER_MERGE)
+                merge();
+            Procedure[] branches = model.branching.get();
+            if (branches.length == 0) {
+                local.incrSolutions();
+                synchronized (WorkStealingSearch.this) {
+                    for (Procedure l : model.solutionListeners)
+                        l.call();
+                }
+                if (optimize) {
+                    model.objective.tighten();
+                    sharedBound.accumulateAndGet(view.get(), Math::min);
+                }
+                merge();
+                return false;
+            }
+            synchronized (this) {
+                if (nOpen == openBranches.length) {
+                    int cap = nOpen * 2;
+                    openBranches = Arrays.copyOf(openBranches, cap);
+                    openNext = Arrays.copyOf(openNext, cap);
+                    openCurrent = Arrays.copyOf(openCurrent, cap);
+                    openBound = Arrays.copyOf(openBound, cap);
+                    openLevel = Arrays.copyOf(openLevel, cap);
+                }
+                openBranches[nOpen] = branches;
+                openNext[nOpen] = 0;
+                openCurrent[nOpen] = -1;
+                openLevel[nOpen] = level;
+                nOpen++;
+            }
+            return true;
+        }
+
+        private void merge() {
+            nodesSinceMerge = 0;
+            synchronized (statistics) {
+                statistics.add(local);
+                if (limit.test(statistics))
+                    stop.set(true);
+            }
+            local = new SearchStatistics();
+        }
+    }
+}
@@ -17,40 +17,90 @@ package minicp.state;
 
 import minicp.util.Procedure;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Stack;
 
 /**
  * StateManager that will store
- * the state of every created elements
+ * the state of every modified elements
  * at each {@link #saveState()} call.
+ * <p>
+ * The elements created by this manager are {@link DirtyStorage}:
+ * they register themselves the first time they are modified
+ * after a save or a restore, such that the cost of
+ * {@link #saveState()} and {@link #restoreState()}
+ * is proportional to the number of modified elements
+ * rather than to the number of elements.
+ * The saved values of the primitive states ({@link StateInt},
+ * {@link StateLong}, {@link StateBool}) are copied into
+ * a primitive array without allocating any object.
+ * The other {@link Storage} objects are copied at every {@link #saveState()}.
  */
 public class Copier implements StateManager {
 
-    class Backup extends Stack<StateEntry> {
-        private int sz;
+    private static final int INITIAL_CAPACITY = 64;
 
-        Backup() {
-            sz = store.size();
-            for (Storage s : store)
-                add(s.save());
-        }
+    // elements modified since the last save or restore
+    private DirtyStorage[] dirty;
+    private int nDirty;
 
-        void restore() {
-            store.setSize(sz);
-            for (StateEntry se : this)
-                se.restore();
-        }
-    }
+    // saved values of the primitive elements, owners[i] is restored with values[i]
+    private PrimitiveStateEntry[] owners;
+    private long[] values;
+    private int primitiveSize;
+
+    // saved values of the other elements
+    private StateEntry[] entries;
+    private int entrySize;
+
+    // elements that are copied at every save
+    private ArrayList<Storage> store;
+
+    // size of the arrays when the corresponding level was saved
+    private int[] primitiveMarks;
+    private int[] entryMarks;
+    private int[] storeMarks;
+    private int level;
+
+    private long magic = 0L;
 
-    private Stack<Storage> store;
-    private Stack<Backup> prior;
     private List<Procedure> onRestoreListeners;
 
+    private final SnapshotRegistry snapshots;
+
+    // statistics
+    private final long creationTime = System.nanoTime();
+    private long nSaves = 0;
+    private long nRestores = 0;
+    private long peakEntries = 0;
+    private long peakBytes = 0;
+    private long memoryLimit = 0;
+    // bytes held by the trails of the self-trailing data-structures
+    private long selfTrailBytes = 0;
+
     public Copier() {
-        store = new Stack<Storage>();
-        prior = new Stack<Backup>();
+        this(new SnapshotRegistry());
+    }
+
+    /**
+     * Creates a manager that registers the primitive states it creates
+     * in a given registry, possibly shared with another manager.
+     *
+     * @param snapshots the registry of the objects part of the snapshots
+     */
+    Copier(SnapshotRegistry snapshots) {
+        this.snapshots = snapshots;
+        dirty = new DirtyStorage[INITIAL_CAPACITY];
+        owners = new PrimitiveStateEntry[INITIAL_CAPACITY];
+        values = new long[INITIAL_CAPACITY];
+        entries = new StateEntry[INITIAL_CAPACITY];
+        store = new ArrayList<Storage>();
+        primitiveMarks = new int[INITIAL_CAPACITY];
+        entryMarks = new int[INITIAL_CAPACITY];
+        storeMarks = new int[INITIAL_CAPACITY];
+        level = -1;
         onRestoreListeners = new LinkedList<Procedure>();
     }
 
@@ -66,7 +116,12 @@ public class Copier implements StateManager {
     }
 
     public int getLevel() {
-        return prior.size() - 1;
+        return level;
+    }
+
+    @Override
+    public long getMagic() {
+        return magic;
     }
 
 
@@ -74,14 +129,155 @@ public class Copier implements StateManager {
         return store.size();
     }
 
+    /**
+     * Registers an element modified since the last
+     * {@link #saveState()} or {@link #restoreState()}.
+     * It must be called at most once between two such calls.
+     *
+     * @param s the modified element
+     */
+    public void markDirty(DirtyStorage s) {
+        if (nDirty == dirty.length)
+            dirty = Arrays.copyOf(dirty, nDirty * 2);
+        dirty[nDirty++] = s;
+    }
+
+    /**
+     * Records a saved value that is given back to its owner
+     * when the current level is restored.
+     *
+     * @param owner the entry to restore
+     * @param value the value to restore the owner with
+     */
+    @Override
+    public void pushState(PrimitiveStateEntry owner, long value) {
+        if (level < 0) return; // nothing can be restored below the root level
+        if (primitiveSize == owners.length) {
+            owners = Arrays.copyOf(owners, primitiveSize * 2);
+            values = Arrays.copyOf(values, primitiveSize * 2);
+        }
+        owners[primitiveSize] = owner;
+        values[primitiveSize] = value;
+        primitiveSize++;
+    }
+
+    /**
+     * Records an entry that is restored
+     * when the current level is restored.
+     *
+     * @param entry the entry to restore
+     */
+    public void pushState(StateEntry entry) {
+        if (entrySize == entries.length)
+            entries = Arrays.copyOf(entries, entrySize * 2);
+        entries[entrySize++] = entry;
+    }
+
+    long numberOfEntries() {
+        return primitiveSize + entrySize;
+    }
+
+    long estimatedBytes() {
+        return (long) primitiveSize * StateStatistics.PRIMITIVE_ENTRY_BYTES
+                + (long) entrySize * StateStatistics.ENTRY_BYTES
+                + selfTrailBytes;
+    }
+
+    private void updatePeak() {
+        peakEntries = Math.max(peakEntries, numberOfEntries());
+        peakBytes = Math.max(peakBytes, estimatedBytes());
+    }
+
+    @Override
+    public StateStatistics getStatistics() {
+        updatePeak();
+        int[] perLevel = new int[level + 1];
+        for (int l = 0; l <= level; l++) {
+            int primitiveEnd = l < level ? primitiveMarks[l + 1] : primitiveSize;
+            int entryEnd = l < level ? entryMarks[l + 1] : entrySize;
+            perLevel[l] = primitiveEnd - primitiveMarks[l] + entryEnd - entryMarks[l];
+        }
+        return new StateStatistics(level, perLevel, numberOfEntries(), peakEntries,
+                estimatedBytes(), peakBytes, nSaves, nRestores, System.nanoTime() - creationTime);
+    }
+
+    @Override
+    public void setMemoryLimit(long bytes) {
+        memoryLimit = bytes;
+    }
+
+    @Override
+    public void accountSelfTrail(long bytes) {
+        selfTrailBytes += bytes;
+    }
+
+    @Override
+    public boolean isCopied(StateHint hint) {
+        return true;
+    }
+
+    @Override
+    public SnapshotRegistry getSnapshotRegistry() {
+        return snapshots;
+    }
+
     @Override
     public void saveState() {
-        prior.add(new Backup());
+        if (memoryLimit > 0 && estimatedBytes() > memoryLimit)
+            throw new StateMemoryLimitException(getStatistics());
+        nSaves++;
+        level++;
+        if (level == primitiveMarks.length) {
+            primitiveMarks = Arrays.copyOf(primitiveMarks, level * 2);
+            entryMarks = Arrays.copyOf(entryMarks, level * 2);
+            storeMarks = Arrays.copyOf(storeMarks, level * 2);
+        }
+        primitiveMarks[level] = primitiveSize;
+        entryMarks[level] = entrySize;
+        snapshots.mark(level);
+        storeMarks[level] = store.size();
+        for (int i = 0; i < nDirty; i++) {
+            dirty[i].commit();
+            dirty[i] = null;
+        }
+        nDirty = 0;
+        for (Storage s : store)
+            pushState(s.save());
+        magic++;
     }
 
     @Override
     public void restoreState() {
-        prior.pop().restore();
+        if (level < 0)
+            throw new IllegalStateException("no saved state to restore");
+        // the entries only decrease when a state is restored
+        updatePeak();
+        nRestores++;
+        // the elements modified since the save take back their saved value
+        for (int i = 0; i < nDirty; i++) {
+            dirty[i].rollback();
+            dirty[i] = null;
+        }
+        nDirty = 0;
+        // and the saved values of the level below are reinstalled
+        int mark = primitiveMarks[level];
+        while (primitiveSize > mark) {
+            primitiveSize--;
+            owners[primitiveSize].restore(values[primitiveSize]);
+            owners[primitiveSize] = null;
+        }
+        mark = entryMarks[level];
+        while (entrySize > mark) {
+            entrySize--;
+            entries[entrySize].restore();
+            entries[entrySize] = null;
+        }
+        mark = storeMarks[level];
+        while (store.size() > mark)
+            store.remove(store.size() - 1);
+        snapshots.truncate(level);
+        level--;
+        magic++;
         notifyRestore();
     }
 
@@ -101,15 +297,27 @@ public class Copier implements StateManager {
 
     @Override
     public <T> State<T> makeStateRef(T initValue) {
-        Copy r = new Copy(initValue);
-        store.add(r);
-        return r;
+        return new Copy<>(this, initValue);
     }
 
     @Override
     public StateInt makeStateInt(int initValue) {
-        CopyInt s = new CopyInt(initValue);
-        store.add(s);
+        CopyInt s = new CopyInt(this, initValue);
+        snapshots.register(s);
+        return s;
+    }
+
+    @Override
+    public StateLong makeStateLong(long initValue) {
+        CopyLong s = new CopyLong(this, initValue);
+        snapshots.register(s);
+        return s;
+    }
+
+    @Override
+    public StateBool makeStateBool(boolean initValue) {
+        CopyBool s = new CopyBool(this, initValue);
+        snapshots.register(s);
         return s;
     }
 
@@ -20,7 +20,7 @@ package minicp.state;
  * @see Copier
  * @see StateManager#makeStateRef(Object)
  */
-public class Copy<T> implements Storage, State<T> {
+public class Copy<T> implements DirtyStorage, State<T> {
 
     class CopyStateEntry implements StateEntry {
         private final T v;
@@ -29,19 +29,35 @@ public class Copy<T> implements Storage, State<T> {
             this.v = v;
         }
         @Override public void restore() {
-            Copy.this.v = v;
+            Copy.this.saved = v;
+            markDirty();
         }
     }
 
+    private final Copier copier;
     private T v;
+    private T saved;
+    private boolean dirty = false;
 
-    protected Copy(T initial) {
+    protected Copy(Copier copier, T initial) {
+        this.copier = copier;
         v = initial;
+        saved = initial;
+    }
+
+    private void markDirty() {
+        if (!dirty) {
+            dirty = true;
+            copier.markDirty(this);
+        }
     }
 
     @Override
     public T setValue(T v) {
-        this.v = v;
+        if (v != this.v) {
+            markDirty();
+            this.v = v;
+        }
         return v;
     }
 
@@ -57,7 +73,15 @@ public class Copy<T> implements Storage, State<T> {
     }
 
     @Override
-    public StateEntry save() {
-        return new CopyStateEntry(v);
+    public void commit() {
+        copier.pushState(new CopyStateEntry(saved));
+        saved = v;
+        dirty = false;
+    }
+
+    @Override
+    public void rollback() {
+        v = saved;
+        dirty = false;
     }
 }
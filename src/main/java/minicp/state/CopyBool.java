@@ -0,0 +1,98 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+
+package minicp.state;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Implementation of {@link StateBool} with copy strategy
+ * @see Copier
+ * @see StateManager#makeStateBool(boolean)
+ */
+public class CopyBool implements DirtyStorage, PrimitiveStateEntry, Snapshotable, StateBool {
+
+    private final Copier copier;
+    private boolean v;
+    private boolean saved;
+    private boolean dirty = false;
+
+    protected CopyBool(Copier copier, boolean initial) {
+        this.copier = copier;
+        v = initial;
+        saved = initial;
+    }
+
+    private void markDirty() {
+        if (!dirty) {
+            dirty = true;
+            copier.markDirty(this);
+        }
+    }
+
+    @Override
+    public boolean setValue(boolean v) {
+        if (v != this.v) {
+            markDirty();
+            this.v = v;
+        }
+        return v;
+    }
+
+    @Override
+    public boolean value() {
+        return v;
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(v);
+    }
+
+    @Override
+    public void commit() {
+        copier.pushState(this, saved ? 1L : 0L);
+        saved = v;
+        dirty = false;
+    }
+
+    @Override
+    public void rollback() {
+        v = saved;
+        dirty = false;
+    }
+
+    @Override
+    public void restore(long v) {
+        saved = v != 0L;
+        markDirty();
+    }
+
+    @Override
+    public int snapshotSize() {
+        return 1;
+    }
+
+    @Override
+    public void writeSnapshot(ByteBuffer buf) {
+        buf.put(v ? (byte) 1 : (byte) 0);
+    }
+
+    @Override
+    public void readSnapshot(ByteBuffer buf) {
+        v = buf.get() != 0;
+        saved = v;
+    }
+}
@@ -15,15 +15,84 @@
 
 package minicp.state;
 
+import java.nio.ByteBuffer;
+
 /**
  * Implementation of {@link StateInt} with copy strategy
  * @see Copier
  * @see StateManager#makeStateInt(int)
  */
-public class CopyInt extends Copy<Integer> implements StateInt {
+public class CopyInt implements DirtyStorage, PrimitiveStateEntry, Snapshotable, StateInt {
+
+    private final Copier copier;
+    private int v;
+    private int saved;
+    private boolean dirty = false;
+
+    protected CopyInt(Copier copier, int initial) {
+        this.copier = copier;
+        v = initial;
+        saved = initial;
+    }
+
+    private void markDirty() {
+        if (!dirty) {
+            dirty = true;
+            copier.markDirty(this);
+        }
+    }
 
-    protected CopyInt(int initial) {
-        super(initial);
+    @Override
+    public int setValue(int v) {
+        if (v != this.v) {
+            markDirty();
+            this.v = v;
+        }
+        return v;
     }
 
+    @Override
+    public int value() {
+        return v;
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(v);
+    }
+
+    @Override
+    public void commit() {
+        copier.pushState(this, saved);
+        saved = v;
+        dirty = false;
+    }
+
+    @Override
+    public void rollback() {
+        v = saved;
+        dirty = false;
+    }
+
+    @Override
+    public void restore(long v) {
+        saved = (int) v;
+        markDirty();
+    }
+
+    @Override
+    public int snapshotSize() {
+        return 4;
+    }
+
+    @Override
+    public void writeSnapshot(ByteBuffer buf) {
+        buf.putInt(v);
+    }
+
+    @Override
+    public void readSnapshot(ByteBuffer buf) {
+        v = buf.getInt();
+        saved = v;
+    }
 }
@@ -0,0 +1,98 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+
+package minicp.state;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Implementation of {@link StateLong} with copy strategy
+ * @see Copier
+ * @see StateManager#makeStateLong(long)
+ */
+public class CopyLong implements DirtyStorage, PrimitiveStateEntry, Snapshotable, StateLong {
+
+    private final Copier copier;
+    private long v;
+    private long saved;
+    private boolean dirty = false;
+
+    protected CopyLong(Copier copier, long initial) {
+        this.copier = copier;
+        v = initial;
+        saved = initial;
+    }
+
+    private void markDirty() {
+        if (!dirty) {
+            dirty = true;
+            copier.markDirty(this);
+        }
+    }
+
+    @Override
+    public long setValue(long v) {
+        if (v != this.v) {
+            markDirty();
+            this.v = v;
+        }
+        return v;
+    }
+
+    @Override
+    public long value() {
+        return v;
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(v);
+    }
+
+    @Override
+    public void commit() {
+        copier.pushState(this, saved);
+        saved = v;
+        dirty = false;
+    }
+
+    @Override
+    public void rollback() {
+        v = saved;
+        dirty = false;
+    }
+
+    @Override
+    public void restore(long v) {
+        saved = v;
+        markDirty();
+    }
+
+    @Override
+    public int snapshotSize() {
+        return 8;
+    }
+
+    @Override
+    public void writeSnapshot(ByteBuffer buf) {
+        buf.putLong(v);
+    }
+
+    @Override
+    public void readSnapshot(ByteBuffer buf) {
+        v = buf.getLong();
+        saved = v;
+    }
+}
@@ -15,9 +15,7 @@
 
 package minicp.state;
 
-import minicp.util.exception.NotImplementedException;
-
-import java.util.IdentityHashMap;
+import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -27,31 +25,42 @@ import java.util.Map;
  */
 public class CopyMap<K, V> implements Storage, StateMap<K, V> {
 
-    
+    class CopyMapStateEntry implements StateEntry {
+        private final Map<K, V> map;
+
+        CopyMapStateEntry(Map<K, V> map) {
+            this.map = map;
+        }
+
+        @Override
+        public void restore() {
+            CopyMap.this.map = map;
+        }
+    }
 
     private Map<K, V> map;
 
     protected CopyMap() {
-         throw new NotImplementedException("CopyMap");
+        map = new HashMap<>();
     }
 
     protected CopyMap(Map<K, V> m) {
-         throw new NotImplementedException("CopyMap");
+        map = new HashMap<>(m);
     }
 
     @Override
     public void put(K k, V v) {
-         throw new NotImplementedException("CopyMap");
+        map.put(k, v);
     }
 
     @Override
     public V get(K k) {
-         throw new NotImplementedException("CopyMap");
+        return map.get(k);
     }
 
     @Override
     public StateEntry save() {
-         throw new NotImplementedException("CopyMap");
+        return new CopyMapStateEntry(new HashMap<>(map));
     }
 
 }
@@ -0,0 +1,43 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+
+package minicp.state;
+
+/**
+ * Object that can be saved by the {@link Copier}
+ * and that notifies it (see {@link Copier#markDirty(DirtyStorage)})
+ * the first time it is modified after a save or a restore.
+ * Only those modified objects are considered at the next
+ * {@link Copier#saveState()} or {@link Copier#restoreState()}.
+ * <p>
+ * Each object keeps the value it had at the last saved state
+ * where it was modified. When saving, the previous such value
+ * is given to the Copier such that it can be reinstalled
+ * when the state is restored.
+ */
+public interface DirtyStorage {
+
+    /**
+     * Called on a modified object when the state is saved.
+     * It gives its previous saved value to the Copier and saves its current value.
+     */
+    void commit();
+
+    /**
+     * Called on a modified object when the state is restored.
+     * It sets back its value to the saved one.
+     */
+    void rollback();
+}
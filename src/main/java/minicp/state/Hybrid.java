@@ -0,0 +1,219 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+
+package minicp.state;
+
+import minicp.util.Procedure;
+
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * StateManager that chooses for each state object
+ * whether it is trailed or copied.
+ * <p>
+ * It is composed of a {@link Trailer} and a {@link Copier}
+ * that are always saved and restored together such that
+ * they share the same level.
+ * The objects created with the {@link StateHint#FREQUENTLY_MODIFIED} hint
+ * are created by the copier, all the other ones are created by the trailer.
+ * This gives the cheapest strategy to each object of a model
+ * that mixes objects modified at almost every node
+ * with objects that rarely change.
+ * <p>
+ * For the primitive states the two strategies only differ in their
+ * bookkeeping (a dirty list instead of a trail entry per modification),
+ * the data structures that save their own content use
+ * {@link #isCopied(StateHint)} to choose a cheaper representation,
+ * e.g. a {@link StateSparseBitSet} created with the
+ * {@link StateHint#FREQUENTLY_MODIFIED} hint copies all its words
+ * at once instead of trailing them one by one.
+ */
+public class Hybrid implements StateManager {
+
+    private final Trailer trailer;
+    private final Copier copier;
+    private final SnapshotRegistry snapshots;
+
+    private List<Procedure> onRestoreListeners;
+
+    // statistics
+    private final long creationTime = System.nanoTime();
+    private long peakEntries = 0;
+    private long peakBytes = 0;
+    private long memoryLimit = 0;
+
+    public Hybrid() {
+        // a single registry keeps the creation order of the objects of both managers
+        snapshots = new SnapshotRegistry();
+        trailer = new Trailer(snapshots);
+        copier = new Copier(snapshots);
+        onRestoreListeners = new LinkedList<Procedure>();
+    }
+
+    private void notifyRestore() {
+        for (Procedure l : onRestoreListeners) {
+            l.call();
+        }
+    }
+
+    @Override
+    public void onRestore(Procedure listener) {
+        onRestoreListeners.add(listener);
+    }
+
+    @Override
+    public int getLevel() {
+        return trailer.getLevel();
+    }
+
+    private long estimatedBytes() {
+        return trailer.estimatedBytes() + copier.estimatedBytes();
+    }
+
+    private void updatePeak() {
+        peakEntries = Math.max(peakEntries, trailer.numberOfEntries() + copier.numberOfEntries());
+        peakBytes = Math.max(peakBytes, estimatedBytes());
+    }
+
+    @Override
+    public StateStatistics getStatistics() {
+        updatePeak();
+        StateStatistics t = trailer.getStatistics();
+        StateStatistics c = copier.getStatistics();
+        int[] perLevel = t.entriesPerLevel();
+        for (int l = 0; l < perLevel.length; l++)
+            perLevel[l] += c.entriesAtLevel(l);
+        return new StateStatistics(getLevel(), perLevel, t.entries() + c.entries(), peakEntries,
+                t.estimatedBytes() + c.estimatedBytes(), peakBytes,
+                t.numberOfSaves(), t.numberOfRestores(), System.nanoTime() - creationTime);
+    }
+
+    @Override
+    public void setMemoryLimit(long bytes) {
+        memoryLimit = bytes;
+    }
+
+    @Override
+    public long getMagic() {
+        return trailer.getMagic();
+    }
+
+    @Override
+    public void pushState(PrimitiveStateEntry owner, long value) {
+        trailer.pushState(owner, value);
+    }
+
+    @Override
+    public void accountSelfTrail(long bytes) {
+        trailer.accountSelfTrail(bytes);
+    }
+
+    @Override
+    public boolean isCopied(StateHint hint) {
+        return hint == StateHint.FREQUENTLY_MODIFIED;
+    }
+
+    @Override
+    public SnapshotRegistry getSnapshotRegistry() {
+        return snapshots;
+    }
+
+    @Override
+    public void saveState() {
+        if (memoryLimit > 0 && estimatedBytes() > memoryLimit)
+            throw new StateMemoryLimitException(getStatistics());
+        trailer.saveState();
+        copier.saveState();
+    }
+
+    @Override
+    public void restoreState() {
+        if (getLevel() < 0)
+            throw new IllegalStateException("no saved state to restore");
+        updatePeak();
+        trailer.restoreState();
+        copier.restoreState();
+        notifyRestore();
+    }
+
+    @Override
+    public void withNewState(Procedure body) {
+        final int level = getLevel();
+        saveState();
+        body.call();
+        restoreStateUntil(level);
+    }
+
+    @Override
+    public void restoreStateUntil(int level) {
+        while (getLevel() > level)
+            restoreState();
+    }
+
+    private StateManager managerFor(StateHint hint) {
+        return isCopied(hint) ? copier : trailer;
+    }
+
+    @Override
+    public <T> State<T> makeStateRef(T initValue) {
+        return trailer.makeStateRef(initValue);
+    }
+
+    @Override
+    public StateInt makeStateInt(int initValue) {
+        return trailer.makeStateInt(initValue);
+    }
+
+    @Override
+    public StateLong makeStateLong(long initValue) {
+        return trailer.makeStateLong(initValue);
+    }
+
+    @Override
+    public StateBool makeStateBool(boolean initValue) {
+        return trailer.makeStateBool(initValue);
+    }
+
+    @Override
+    public <T> State<T> makeStateRef(T initValue, StateHint hint) {
+        return managerFor(hint).makeStateRef(initValue);
+    }
+
+    @Override
+    public StateInt makeStateInt(int initValue, StateHint hint) {
+        return managerFor(hint).makeStateInt(initValue);
+    }
+
+    @Override
+    public StateLong makeStateLong(long initValue, StateHint hint) {
+        return managerFor(hint).makeStateLong(initValue);
+    }
+
+    @Override
+    public StateBool makeStateBool(boolean initValue, StateHint hint) {
+        return managerFor(hint).makeStateBool(initValue);
+    }
+
+    @Override
+    public StateMap makeStateMap() {
+        return trailer.makeStateMap();
+    }
+
+    @Override
+    public String toString() {
+        return "Hybrid";
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+
+package minicp.state;
+
+/**
+ * A PrimitiveStateEntry is aimed to be
+ * stored by the {@link Trailer} together with
+ * a primitive value to revert some state.
+ * Contrary to a {@link StateEntry}, no object
+ * needs to be allocated each time a value is saved.
+ */
+public interface PrimitiveStateEntry {
+
+    /**
+     * Restores the state with a value previously saved.
+     *
+     * @param v the saved value, int and boolean values
+     *          are widened to a long
+     */
+    void restore(long v);
+}
@@ -0,0 +1,342 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+
+package minicp.state;
+
+import minicp.util.Procedure;
+import minicp.util.exception.InconsistencyException;
+
+import java.util.Arrays;
+
+/**
+ * StateManager that rebuilds the states by recomputation.
+ * <p>
+ * The state is only saved by an underlying manager
+ * (a {@link Copier} by default) at some levels called checkpoints.
+ * The other levels only keep the decision recorded with
+ * {@link #recordDecision(Procedure)} that was executed at the level below.
+ * Restoring a level that is not a checkpoint restores the nearest
+ * checkpoint below it and replays the decisions from there.
+ * The memory is thus proportional to the number of checkpoints
+ * rather than to the depth of the search.
+ * <p>
+ * A level becomes a checkpoint when it is at a given distance from
+ * the previous one or when no decision was recorded at the level below.
+ * The distance adapts itself to the measured cost of the replays:
+ * it is increased (fewer checkpoints, less memory) as long as the time
+ * spent in replaying decisions stays below a given ratio of the search time,
+ * and decreased otherwise.
+ * <p>
+ * The recorded decisions must be deterministic. If a decision fails when it is
+ * replayed (for instance because the objective was tightened in between),
+ * the state of its level is known to be inconsistent and any later
+ * {@link #recordDecision(Procedure)} throws an {@link InconsistencyException}
+ * until this level is restored.
+ */
+public class Recomputer implements StateManager {
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int ADAPT_PERIOD = 128;
+
+    private final StateManager checkpoints;
+    private final int minDistance;
+    private final int maxDistance;
+    private final double maxRecomputationRatio;
+    private int distance;
+
+    private int level = -1;
+    // decisions[l] is the decision executed at level l
+    private Procedure[] decisions;
+    // lastCheckpoint[l] is the greatest checkpoint smaller or equal to l
+    private int[] lastCheckpoint;
+    // level of the underlying manager at level l
+    private int[] checkpointLevel;
+    // smallest level whose state could not be recomputed
+    private int failedLevel = Integer.MAX_VALUE;
+
+    // statistics used to adapt the distance
+    private long nReplayed = 0;
+    private long replayNanos = 0;
+    private int nRestoresInPeriod = 0;
+    private long periodStart = 0;
+    private long periodReplayNanos = 0;
+
+    /**
+     * Creates a manager with copy-based checkpoints
+     * whose distance adapts itself between 1 and 16 levels
+     * such that at most a fourth of the time is spent in recomputation.
+     */
+    public Recomputer() {
+        this(new Copier(), 1, 16, 0.25);
+    }
+
+    /**
+     * Creates a manager with given checkpoints.
+     *
+     * @param checkpoints the manager that saves and restores the checkpoints,
+     *                    it must not be used directly
+     * @param minDistance the minimum distance between two checkpoints,
+     *                    a larger value bounds the memory more
+     * @param maxDistance the maximum distance between two checkpoints
+     *                    with {@code maxDistance >= minDistance}
+     * @param maxRecomputationRatio the ratio of the time spent in replaying decisions
+     *                              above which the distance is decreased
+     */
+    public Recomputer(StateManager checkpoints, int minDistance, int maxDistance, double maxRecomputationRatio) {
+        if (minDistance < 1 || maxDistance < minDistance)
+            throw new IllegalArgumentException("invalid distances between checkpoints");
+        this.checkpoints = checkpoints;
+        this.minDistance = minDistance;
+        this.maxDistance = maxDistance;
+        this.maxRecomputationRatio = maxRecomputationRatio;
+        this.distance = minDistance;
+        decisions = new Procedure[INITIAL_CAPACITY];
+        lastCheckpoint = new int[INITIAL_CAPACITY];
+        checkpointLevel = new int[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Returns the current distance between two checkpoints.
+     *
+     * @return the number of levels after which a checkpoint is made
+     */
+    public int getDistance() {
+        return distance;
+    }
+
+    /**
+     * Returns the number of decisions that were replayed so far.
+     *
+     * @return the number of replayed decisions
+     */
+    public long numberOfReplayedDecisions() {
+        return nReplayed;
+    }
+
+    /**
+     * Returns the number of levels saved by the underlying manager.
+     *
+     * @return the number of live checkpoints
+     */
+    public int numberOfCheckpoints() {
+        return checkpoints.getLevel() + 1;
+    }
+
+    @Override
+    public void recordDecision(Procedure decision) {
+        if (level >= failedLevel)
+            throw InconsistencyException.INCONSISTENCY;
+        if (level < 0) return;
+        Procedure previous = decisions[level];
+        decisions[level] = previous == null ? decision : () -> {
+            previous.call();
+            decision.call();
+        };
+    }
+
+    @Override
+    public void saveState() {
+        if (level < 0)
+            periodStart = System.nanoTime();
+        int l = level + 1;
+        if (l == decisions.length) {
+            decisions = Arrays.copyOf(decisions, l * 2);
+            lastCheckpoint = Arrays.copyOf(lastCheckpoint, l * 2);
+            checkpointLevel = Arrays.copyOf(checkpointLevel, l * 2);
+        }
+        if (l == 0 || decisions[l - 1] == null || l - lastCheckpoint[l - 1] >= distance) {
+            checkpoints.saveState(); // first since it may throw a StateMemoryLimitException
+            lastCheckpoint[l] = l;
+        } else {
+            lastCheckpoint[l] = lastCheckpoint[l - 1];
+        }
+        level = l;
+        decisions[level] = null;
+        checkpointLevel[level] = checkpoints.getLevel();
+    }
+
+    @Override
+    public void restoreState() {
+        if (level < 0)
+            throw new IllegalStateException("no saved state to restore");
+        restoreStateUntil(level - 1);
+    }
+
+    @Override
+    public void restoreStateUntil(int level) {
+        if (this.level <= level) return;
+        if (level < 0 || lastCheckpoint[level + 1] == level + 1) {
+            // the state to recover is the one saved by a checkpoint
+            checkpoints.restoreStateUntil(level < 0 ? -1 : checkpointLevel[level]);
+            clearDecisions(level);
+        } else {
+            // restore the nearest checkpoint below and replay the decisions from there
+            int c = lastCheckpoint[level];
+            checkpoints.restoreStateUntil(checkpointLevel[c] - 1);
+            checkpoints.saveState();
+            clearDecisions(level);
+            if (failedLevel <= level) return;
+            failedLevel = Integer.MAX_VALUE;
+            replay(c, level);
+        }
+        if (failedLevel > level)
+            failedLevel = Integer.MAX_VALUE;
+        if (++nRestoresInPeriod == ADAPT_PERIOD)
+            adaptDistance();
+    }
+
+    private void clearDecisions(int level) {
+        for (int l = level + 1; l <= this.level; l++)
+            decisions[l] = null;
+        this.level = level;
+    }
+
+    private void replay(int from, int to) {
+        long t0 = System.nanoTime();
+        for (int l = from; l <= to; l++) {
+            nReplayed++;
+            try {
+                decisions[l].call();
+            } catch (InconsistencyException e) {
+                failedLevel = l;
+                break;
+            }
+        }
+        long t = System.nanoTime() - t0;
+        replayNanos += t;
+        periodReplayNanos += t;
+    }
+
+    private void adaptDistance() {
+        long now = System.nanoTime();
+        long elapsed = now - periodStart;
+        if (periodReplayNanos > maxRecomputationRatio * elapsed)
+            distance = Math.max(minDistance, distance / 2);
+        else if (periodReplayNanos < maxRecomputationRatio * elapsed / 2)
+            distance = Math.min(maxDistance, distance + 1);
+        nRestoresInPeriod = 0;
+        periodStart = now;
+        periodReplayNanos = 0;
+    }
+
+    /**
+     * Returns the statistics of the manager saving the checkpoints.
+     *
+     * @return the statistics of the checkpoints
+     */
+    @Override
+    public StateStatistics getStatistics() {
+        return checkpoints.getStatistics();
+    }
+
+    @Override
+    public void setMemoryLimit(long bytes) {
+        checkpoints.setMemoryLimit(bytes);
+    }
+
+    @Override
+    public long getMagic() {
+        return checkpoints.getMagic();
+    }
+
+    @Override
+    public void pushState(PrimitiveStateEntry owner, long value) {
+        checkpoints.pushState(owner, value);
+    }
+
+    @Override
+    public void accountSelfTrail(long bytes) {
+        checkpoints.accountSelfTrail(bytes);
+    }
+
+    @Override
+    public boolean isCopied(StateHint hint) {
+        return checkpoints.isCopied(hint);
+    }
+
+    @Override
+    public SnapshotRegistry getSnapshotRegistry() {
+        return checkpoints.getSnapshotRegistry();
+    }
+
+    @Override
+    public void onRestore(Procedure listener) {
+        checkpoints.onRestore(listener);
+    }
+
+    @Override
+    public int getLevel() {
+        return level;
+    }
+
+    @Override
+    public <T> State<T> makeStateRef(T initValue) {
+        return checkpoints.makeStateRef(initValue);
+    }
+
+    @Override
+    public StateInt makeStateInt(int initValue) {
+        return checkpoints.makeStateInt(initValue);
+    }
+
+    @Override
+    public StateLong makeStateLong(long initValue) {
+        return checkpoints.makeStateLong(initValue);
+    }
+
+    @Override
+    public StateBool makeStateBool(boolean initValue) {
+        return checkpoints.makeStateBool(initValue);
+    }
+
+    @Override
+    public <T> State<T> makeStateRef(T initValue, StateHint hint) {
+        return checkpoints.makeStateRef(initValue, hint);
+    }
+
+    @Override
+    public StateInt makeStateInt(int initValue, StateHint hint) {
+        return checkpoints.makeStateInt(initValue, hint);
+    }
+
+    @Override
+    public StateLong makeStateLong(long initValue, StateHint hint) {
+        return checkpoints.makeStateLong(initValue, hint);
+    }
+
+    @Override
+    public StateBool makeStateBool(boolean initValue, StateHint hint) {
+        return checkpoints.makeStateBool(initValue, hint);
+    }
+
+    @Override
+    public StateMap makeStateMap() {
+        return checkpoints.makeStateMap();
+    }
+
+    @Override
+    public void withNewState(Procedure body) {
+        final int level = getLevel();
+        saveState();
+        body.call();
+        restoreStateUntil(level);
+    }
+
+    @Override
+    public String toString() {
+        return "Recomputer(" + checkpoints + ")";
+    }
+
+}
@@ -0,0 +1,183 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+
+package minicp.state;
+
+import java.util.Arrays;
+
+/**
+ * Trail of a data structure that keeps its content
+ * in primitive arrays of slots, such as {@link StateIntArray}
+ * or {@link StateSparseBitSet}, rather than in state objects.
+ * <p>
+ * The first time a slot is modified after a save or a restore,
+ * the structure gives its index and previous content (packed in a long)
+ * to {@link #save(int, long)}, which pushes them on a primitive trail.
+ * The first push after a save or a restore records the size of that trail
+ * in the state manager with {@link StateManager#pushState(PrimitiveStateEntry, long)}:
+ * when the level is restored, the manager gives it back and the slots
+ * saved above it are restored in the reverse order by the {@link Slots} of the structure.
+ * Since no restore listener is registered, a structure created in a subtree
+ * is no longer referenced by the manager once that subtree is restored.
+ * <p>
+ * The trail is part of the memory estimated by the manager
+ * (see {@link StateManager#accountSelfTrail(long)}).
+ */
+public final class SlotTrail implements PrimitiveStateEntry {
+
+    /**
+     * The slots of a data structure, restored by its trail.
+     */
+    public interface Slots {
+
+        /**
+         * Restores the content of a slot.
+         *
+         * @param slot  the index of the slot
+         * @param value the content saved by {@link SlotTrail#save(int, long)}
+         */
+        void restore(int slot, long value);
+
+        /**
+         * Restores the content of the slots {@code 0,...,n-1}.
+         *
+         * @param saved the array holding the content saved by {@link SlotTrail#saveAll(long[], int)}
+         * @param from  the position of the content of the slot 0 in saved
+         * @param n     the number of slots
+         */
+        default void restoreAll(long[] saved, int from, int n) {
+            for (int i = 0; i < n; i++)
+                restore(i, saved[from + i]);
+        }
+    }
+
+    private static final int ENTRY_BYTES = 12; // index and content
+
+    private final StateManager sm;
+    private final Slots slots;
+
+    private long[] stamp;          // magic of the manager at the last save of each slot
+    private long blockStamp = 0;   // magic of the manager at the last save of all the slots
+    private long levelStamp = 0;   // magic of the manager at the last push of the size
+    private int[] trailIdx;        // index of the saved slots, -n at the end of a block of n slots
+    private long[] trailVal;       // previous content of the saved slots
+    private int trailTop = 0;
+
+    /**
+     * Creates an empty trail.
+     *
+     * @param sm       the state manager that saves and restores the trail
+     * @param capacity the initial number of slots
+     * @param slots    the slots restored by the trail
+     */
+    public SlotTrail(StateManager sm, int capacity, Slots slots) {
+        this.sm = sm;
+        this.slots = slots;
+        int n = Math.max(capacity, 4);
+        stamp = new long[n];
+        trailIdx = new int[n];
+        trailVal = new long[n];
+    }
+
+    private void ensureCapacity(int n) {
+        if (trailTop + n > trailIdx.length) {
+            int cap = Math.max(trailIdx.length * 2, trailTop + n);
+            trailIdx = Arrays.copyOf(trailIdx, cap);
+            trailVal = Arrays.copyOf(trailVal, cap);
+        }
+    }
+
+    private void pushSize(long magic) {
+        if (levelStamp != magic) {
+            levelStamp = magic;
+            sm.pushState(this, trailTop);
+        }
+    }
+
+    /**
+     * Saves the content of a slot that is about to be modified,
+     * unless it was already saved since the last save or restore.
+     * Nothing is saved at the root level.
+     *
+     * @param slot  the index of the slot
+     * @param value the current content of the slot
+     */
+    public void save(int slot, long value) {
+        if (sm.getLevel() < 0) return;
+        long magic = sm.getMagic();
+        if (slot >= stamp.length)
+            stamp = Arrays.copyOf(stamp, Math.max(stamp.length * 2, slot + 1));
+        if (stamp[slot] == magic) return;
+        stamp[slot] = magic;
+        pushSize(magic);
+        ensureCapacity(1);
+        trailIdx[trailTop] = slot;
+        trailVal[trailTop] = value;
+        trailTop++;
+        sm.accountSelfTrail(ENTRY_BYTES);
+    }
+
+    /**
+     * Marks a slot as saved until the next save or restore,
+     * typically a slot that did not exist at the last save
+     * and whose content does not need to be restored.
+     *
+     * @param slot the index of the slot
+     */
+    public void markSaved(int slot) {
+        if (slot >= stamp.length)
+            stamp = Arrays.copyOf(stamp, Math.max(stamp.length * 2, slot + 1));
+        stamp[slot] = sm.getMagic();
+    }
+
+    /**
+     * Saves the content of all the slots {@code 0,...,n-1}
+     * with a single copy, unless it was already saved
+     * since the last save or restore.
+     * Nothing is saved at the root level.
+     *
+     * @param content the current content of the slots
+     * @param n       the number of slots
+     */
+    public void saveAll(long[] content, int n) {
+        if (sm.getLevel() < 0 || n == 0) return;
+        long magic = sm.getMagic();
+        if (blockStamp == magic) return;
+        blockStamp = magic;
+        pushSize(magic);
+        ensureCapacity(n);
+        System.arraycopy(content, 0, trailVal, trailTop, n);
+        trailTop += n;
+        trailIdx[trailTop - 1] = -n;
+        sm.accountSelfTrail((long) n * ENTRY_BYTES);
+    }
+
+    @Override
+    public void restore(long size) {
+        int sz = (int) size;
+        if (trailTop > sz)
+            sm.accountSelfTrail(-(long) (trailTop - sz) * ENTRY_BYTES);
+        while (trailTop > sz) {
+            int i = trailIdx[trailTop - 1];
+            if (i < 0) {
+                trailTop += i;
+                slots.restoreAll(trailVal, trailTop, -i);
+            } else {
+                trailTop--;
+                slots.restore(i, trailVal[trailTop]);
+            }
+        }
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+package minicp.state;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * Writes the current content of the objects of a state manager
+ * in a binary image and loads it back, possibly in another process.
+ * <p>
+ * The image contains the content of all the objects registered in the
+ * {@link SnapshotRegistry} of the manager, that is the primitive states
+ * and the data-structures built on top of them
+ * (sparse-sets, bit-sets, domains, ...), in their creation order.
+ * It can thus only be loaded in an identically built model,
+ * typically the same code run again up to the same point,
+ * which is checked with the number and the kinds of the objects.
+ * In particular the same variables and constraints must be created
+ * in the same order, since they create state objects.
+ * Loading an image in a model that has just been built
+ * gives it the state reached by the model in which the image was written,
+ * for instance the fix-point of the constraints at the root
+ * that took minutes to compute, without computing it again.
+ * <p>
+ * The content of the plain Java fields that are not saved and restored
+ * by the manager (e.g. the best bound of an objective)
+ * and of the references created with {@link StateManager#makeStateRef(Object)}
+ * is not part of the image.
+ * <p>
+ * The image is written and read through memory-mapped regions
+ * of at most {@link #MAX_REGION_BYTES} bytes, such that
+ * large images are not copied in an intermediate buffer.
+ */
+public final class Snapshot {
+
+    /**
+     * The maximum number of bytes of a memory-mapped region of an image.
+     */
+    public static final int MAX_REGION_BYTES = 1 << 30;
+
+    private static final int MAGIC = 0x4d435053; // "MCPS"
+    private static final int VERSION = 1;
+    // magic, version, number of objects, layout, number of regions
+    private static final int HEADER_BYTES = 4 + 4 + 4 + 8 + 4;
+    // number of objects and number of bytes of a region
+    private static final int REGION_BYTES = 4 + 4;
+
+    private Snapshot() {
+    }
+
+    /**
+     * Writes the current content of the objects of a state manager
+     * in a file, that is created or overwritten.
+     * This can be done at any level of the manager.
+     *
+     * @param sm the state manager, e.g. {@code cp.getStateManager()} for a solver
+     * @param file the file in which the image is written
+     * @throws IOException if the file cannot be written
+     */
+    public static void save(StateManager sm, Path file) throws IOException {
+        SnapshotRegistry registry = sm.getSnapshotRegistry();
+        int n = registry.size();
+        // split the objects into regions {number of objects, number of bytes}
+        List<int[]> regions = new ArrayList<>();
+        int count = 0;
+        long bytes = 0;
+        for (int i = 0; i < n; i++) {
+            int size = registry.get(i).snapshotSize();
+            if (count > 0 && bytes + size > MAX_REGION_BYTES) {
+                regions.add(new int[]{count, (int) bytes});
+                count = 0;
+                bytes = 0;
+            }
+            count++;
+            bytes += size;
+        }
+        regions.add(new int[]{count, (int) bytes});
+
+        try (FileChannel channel = FileChannel.open(file, CREATE, TRUNCATE_EXISTING, READ, WRITE)) {
+            long pos = HEADER_BYTES + (long) REGION_BYTES * regions.size();
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, pos);
+            header.putInt(MAGIC);
+            header.putInt(VERSION);
+            header.putInt(n);
+            header.putLong(layout(registry));
+            header.putInt(regions.size());
+            for (int[] r : regions) {
+                header.putInt(r[0]);
+                header.putInt(r[1]);
+            }
+            header.force();
+            int i = 0;
+            for (int[] r : regions) {
+                MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_WRITE, pos, r[1]);
+                for (int k = 0; k < r[0]; k++)
+                    registry.get(i++).writeSnapshot(buf);
+                if (buf.position() != r[1])
+                    throw new IllegalStateException("an object wrote more or less bytes than its snapshot size");
+                buf.force();
+                pos += r[1];
+            }
+        }
+    }
+
+    /**
+     * Replaces the content of the objects of a state manager
+     * with an image written by {@link #save(StateManager, Path)}.
+     * The state manager must be at the root level (-1)
+     * and it remains at this level.
+     * If an exception is thrown, the content of the objects is undefined.
+     *
+     * @param sm the state manager, e.g. {@code cp.getStateManager()} for a solver
+     * @param file the file from which the image is read
+     * @throws IOException if the file cannot be read or is not an image
+     * @throws IllegalArgumentException if the image was written by a different model
+     */
+    public static void load(StateManager sm, Path file) throws IOException {
+        if (sm.getLevel() != -1)
+            throw new IllegalStateException("a snapshot can only be loaded at the root level");
+        SnapshotRegistry registry = sm.getSnapshotRegistry();
+        try (FileChannel channel = FileChannel.open(file, READ)) {
+            if (channel.size() < HEADER_BYTES)
+                throw new IOException("not a snapshot: " + file);
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION)
+                throw new IOException("not a snapshot: " + file);
+            int n = header.getInt();
+            long layout = header.getLong();
+            int nRegions = header.getInt();
+            if (n != registry.size() || layout != layout(registry))
+                throw new IllegalArgumentException("the snapshot was written by a different model");
+            long pos = HEADER_BYTES + (long) REGION_BYTES * nRegions;
+            if (channel.size() < pos)
+                throw new IOException("truncated snapshot: " + file);
+            MappedByteBuffer table = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, pos - HEADER_BYTES);
+            int i = 0;
+            for (int r = 0; r < nRegions; r++) {
+                int count = table.getInt();
+                int bytes = table.getInt();
+                if (channel.size() < pos + bytes)
+                    throw new IOException("truncated snapshot: " + file);
+                MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, pos, bytes);
+                for (int k = 0; k < count; k++)
+                    registry.get(i++).readSnapshot(buf);
+                if (buf.position() != bytes)
+                    throw new IllegalArgumentException("the snapshot was written by a different model");
+                pos += bytes;
+            }
+        }
+    }
+
+    /**
+     * Identifies the sequence of kinds of objects of a registry,
+     * independently of the state manager that created them.
+     */
+    private static long layout(SnapshotRegistry registry) {
+        long h = registry.size();
+        for (int i = 0; i < registry.size(); i++)
+            h = 31 * h + kind(registry.get(i)).hashCode();
+        return h;
+    }
+
+    private static String kind(Snapshotable s) {
+        if (s instanceof StateInt) return "int";
+        if (s instanceof StateLong) return "long";
+        if (s instanceof StateBool) return "bool";
+        return s.getClass().getName();
+    }
+
+    /**
+     * Writes some values of an array at the position of the buffer
+     * and moves the position after them.
+     *
+     * @param buf the buffer
+     * @param values the array
+     * @param from the index of the first value to write
+     * @param n the number of values to write
+     */
+    public static void putInts(ByteBuffer buf, int[] values, int from, int n) {
+        buf.asIntBuffer().put(values, from, n);
+        buf.position(buf.position() + 4 * n);
+    }
+
+    /**
+     * Reads some values of an array at the position of the buffer
+     * and moves the position after them.
+     *
+     * @param buf the buffer
+     * @param values the array
+     * @param from the index of the first value to read
+     * @param n the number of values to read
+     */
+    public static void getInts(ByteBuffer buf, int[] values, int from, int n) {
+        buf.asIntBuffer().get(values, from, n);
+        buf.position(buf.position() + 4 * n);
+    }
+
+    /**
+     * Writes some values of an array at the position of the buffer
+     * and moves the position after them.
+     *
+     * @param buf the buffer
+     * @param values the array
+     * @param from the index of the first value to write
+     * @param n the number of values to write
+     */
+    public static void putLongs(ByteBuffer buf, long[] values, int from, int n) {
+        buf.asLongBuffer().put(values, from, n);
+        buf.position(buf.position() + 8 * n);
+    }
+
+    /**
+     * Reads some values of an array at the position of the buffer
+     * and moves the position after them.
+     *
+     * @param buf the buffer
+     * @param values the array
+     * @param from the index of the first value to read
+     * @param n the number of values to read
+     */
+    public static void getLongs(ByteBuffer buf, long[] values, int from, int n) {
+        buf.asLongBuffer().get(values, from, n);
+        buf.position(buf.position() + 8 * n);
+    }
+}
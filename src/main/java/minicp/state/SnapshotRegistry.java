@@ -0,0 +1,109 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+package minicp.state;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * The objects of a state manager that are part of its snapshots,
+ * in their creation order.
+ * <p>
+ * The primitive states ({@link StateInt}, {@link StateLong}, {@link StateBool})
+ * are registered by the state manager that creates them,
+ * the data-structures that keep some content in plain arrays
+ * (e.g. {@link StateSparseSet}) register themselves after their own states.
+ * The references and maps cannot be written
+ * in a binary image and are not registered.
+ * The objects created at a level are removed from the registry
+ * when this level is restored, such that the registry
+ * does not grow with the number of explored nodes.
+ *
+ * @see Snapshot
+ */
+public class SnapshotRegistry {
+
+    private final ArrayList<Snapshotable> objects = new ArrayList<>();
+    private int suspended = 0;
+    // marks[l] is the number of registered objects when level l was saved
+    private int[] marks = new int[32];
+
+    /**
+     * Adds an object at the end of the registry.
+     *
+     * @param s the object to add
+     */
+    public void register(Snapshotable s) {
+        if (suspended == 0) objects.add(s);
+    }
+
+    /**
+     * Creates some objects without registering them.
+     * This is used for the objects that are lazily created
+     * and written by their owner, such that the
+     * registry does not depend on the propagation.
+     *
+     * @param body the function that creates the objects
+     * @param <T> the type of the result of the function
+     * @return the result of the function
+     */
+    public <T> T unregistered(Supplier<T> body) {
+        suspended++;
+        try {
+            return body.get();
+        } finally {
+            suspended--;
+        }
+    }
+
+    /**
+     * Returns the number of registered objects.
+     *
+     * @return the number of registered objects
+     */
+    public int size() {
+        return objects.size();
+    }
+
+    /**
+     * Records the number of registered objects when a level is saved.
+     * Saving the same level twice (e.g. by the managers of a {@link Hybrid})
+     * records the same number.
+     *
+     * @param level the saved level
+     */
+    void mark(int level) {
+        if (level >= marks.length)
+            marks = Arrays.copyOf(marks, Math.max(level + 1, marks.length * 2));
+        marks[level] = objects.size();
+    }
+
+    /**
+     * Removes the objects registered since a level was saved,
+     * when this level is restored.
+     *
+     * @param level the restored level
+     */
+    void truncate(int level) {
+        int m = marks[level];
+        if (objects.size() > m)
+            objects.subList(m, objects.size()).clear();
+    }
+
+    Snapshotable get(int i) {
+        return objects.get(i);
+    }
+}
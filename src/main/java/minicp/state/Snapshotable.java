@@ -0,0 +1,52 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+package minicp.state;
+
+import java.nio.ByteBuffer;
+
+/**
+ * An object whose current content is part of the snapshots
+ * written and loaded by {@link Snapshot}.
+ * <p>
+ * The objects are registered in the {@link SnapshotRegistry}
+ * of their state manager when they are created, such that
+ * two identically built models register the same objects in the same order.
+ */
+public interface Snapshotable {
+
+    /**
+     * Returns the number of bytes written by {@link #writeSnapshot(ByteBuffer)}.
+     *
+     * @return the size of the current content in bytes
+     */
+    int snapshotSize();
+
+    /**
+     * Writes the current content at the position of the buffer.
+     *
+     * @param buf the buffer with at least {@link #snapshotSize()} remaining bytes
+     */
+    void writeSnapshot(ByteBuffer buf);
+
+    /**
+     * Replaces the current content with the one written
+     * by {@link #writeSnapshot(ByteBuffer)} at the position of the buffer.
+     * It is only called at the root level (-1) of the state manager
+     * such that nothing needs to be saved.
+     *
+     * @param buf the buffer positioned on the content to read
+     */
+    void readSnapshot(ByteBuffer buf);
+}
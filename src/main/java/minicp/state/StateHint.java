@@ -0,0 +1,37 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+
+package minicp.state;
+
+/**
+ * Hint given when creating a state object
+ * about how often it is expected to be modified.
+ * A {@link StateManager} may use it to choose how the object
+ * is saved and restored, the {@link Trailer} and the {@link Copier}
+ * ignore it while the {@link Hybrid} manager trails the
+ * rarely modified objects and copies the frequently modified ones.
+ */
+public enum StateHint {
+    /**
+     * The object is modified at few nodes of the search tree,
+     * recording its modifications is cheaper.
+     */
+    RARELY_MODIFIED,
+    /**
+     * The object is modified at almost every node of the search tree,
+     * copying it at each save is cheaper.
+     */
+    FREQUENTLY_MODIFIED
+}
@@ -20,10 +20,25 @@ package minicp.state;
  * that can be saved and restored through
  * the {@link StateManager#saveState()} / {@link StateManager#restoreState()}
  * methods.
+ * The value is stored as a primitive such that
+ * no boxing occurs when it is read or modified.
  *
  * @see StateManager#makeStateInt(int) for the creation.
  */
-public interface StateInt extends State<Integer> {
+public interface StateInt {
+
+    /**
+     * Set the value
+     * @param v the value to set
+     * @return the new value that was set
+     */
+    int setValue(int v);
+
+    /**
+     * Retrieves the value
+     * @return the value
+     */
+    int value();
 
     /**
      * Increments the value
@@ -41,4 +56,6 @@ public interface StateInt extends State<Integer> {
         return setValue(value() - 1);
     }
 
+    @Override
+    String toString();
 }
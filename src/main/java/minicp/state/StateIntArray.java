@@ -0,0 +1,172 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+
+package minicp.state;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Array of int values that can be saved and restored through
+ * the {@link StateManager#saveState()} / {@link StateManager#restoreState()}
+ * methods.
+ * <p>
+ * The values are stored in a primitive {@code int[]} and saved
+ * slot by slot in a {@link SlotTrail}: the first time a slot is modified
+ * after a {@link StateManager#saveState()}, its index and previous value
+ * are saved, and given back on {@link StateManager#restoreState()}.
+ * An array of n values thus costs a few objects instead of n {@link StateInt},
+ * and an array created during the search is no longer referenced
+ * by the state manager once the level where it was created is restored.
+ */
+public class StateIntArray implements Snapshotable {
+
+    private final int[] values;
+
+    private final SlotTrail trail;
+
+    /**
+     * Creates an array of n values all equal to the initial value.
+     *
+     * @param sm the state manager that will save and restore the array when
+     *        {@link StateManager#saveState()} / {@link StateManager#restoreState()}
+     *           methods are called
+     * @param n the length of the array
+     * @param initValue the initial value of every slot
+     */
+    public StateIntArray(StateManager sm, int n, int initValue) {
+        this(sm, filled(n, initValue));
+    }
+
+    /**
+     * Creates an array with the given initial values.
+     *
+     * @param sm the state manager that will save and restore the array when
+     *        {@link StateManager#saveState()} / {@link StateManager#restoreState()}
+     *           methods are called
+     * @param initValues the initial values, the array is copied
+     */
+    public StateIntArray(StateManager sm, int[] initValues) {
+        values = initValues.clone();
+        trail = new SlotTrail(sm, values.length, (i, v) -> values[i] = (int) v);
+        sm.getSnapshotRegistry().register(this);
+    }
+
+    private static int[] filled(int n, int v) {
+        int[] a = new int[n];
+        Arrays.fill(a, v);
+        return a;
+    }
+
+    @Override
+    public int snapshotSize() {
+        return 4 * values.length;
+    }
+
+    @Override
+    public void writeSnapshot(ByteBuffer buf) {
+        Snapshot.putInts(buf, values, 0, values.length);
+    }
+
+    @Override
+    public void readSnapshot(ByteBuffer buf) {
+        Snapshot.getInts(buf, values, 0, values.length);
+    }
+
+    /**
+     * Returns the length of the array.
+     *
+     * @return the number of slots
+     */
+    public int length() {
+        return values.length;
+    }
+
+    /**
+     * Retrieves the value at a given index.
+     *
+     * @param i the index of the slot
+     * @return the value in the slot i
+     */
+    public int get(int i) {
+        return values[i];
+    }
+
+    /**
+     * Sets the value at a given index.
+     *
+     * @param i the index of the slot
+     * @param v the value to set
+     * @return the new value that was set
+     */
+    public int set(int i, int v) {
+        if (values[i] != v) {
+            trail.save(i, values[i]);
+            values[i] = v;
+        }
+        return v;
+    }
+
+    /**
+     * Increments the value at a given index.
+     *
+     * @param i the index of the slot
+     * @return the new value
+     */
+    public int increment(int i) {
+        return set(i, values[i] + 1);
+    }
+
+    /**
+     * Decrements the value at a given index.
+     *
+     * @param i the index of the slot
+     * @return the new value
+     */
+    public int decrement(int i) {
+        return set(i, values[i] - 1);
+    }
+
+    /**
+     * Returns a {@link StateInt} view of a slot of the array.
+     * Reading or modifying the view reads or modifies the slot.
+     *
+     * @param i the index of the slot
+     * @return a view on the slot i
+     */
+    public StateInt stateInt(int i) {
+        return new StateInt() {
+            @Override
+            public int setValue(int v) {
+                return set(i, v);
+            }
+
+            @Override
+            public int value() {
+                return values[i];
+            }
+
+            @Override
+            public String toString() {
+                return String.valueOf(values[i]);
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(values);
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+
+package minicp.state;
+
+/**
+ * Doubly-linked list of the int values {@code {0,...,n-1}}
+ * that can be saved and restored through
+ * the {@link StateManager#saveState()} / {@link StateManager#restoreState()}
+ * methods.
+ * <p>
+ * The values are initially linked in increasing order
+ * and can only be removed (in constant time).
+ * The links are stored in a {@link StateIntArray}
+ * such that removed values are put back at their original place on
+ * {@link StateManager#restoreState()}.
+ */
+public class StateIntList {
+
+    private final int n;
+    private final StateIntArray next; // next[n] is the first value
+    private final StateIntArray prev; // prev[n] is the last value
+    private final StateInt size;
+
+    /**
+     * Creates a list containing the values {@code {0,...,n-1}} in increasing order.
+     *
+     * @param sm the state manager that will save and restore the list when
+     *        {@link StateManager#saveState()} / {@link StateManager#restoreState()}
+     *           methods are called
+     * @param n the number of values in the list
+     */
+    public StateIntList(StateManager sm, int n) {
+        this.n = n;
+        int[] nxt = new int[n + 1];
+        int[] prv = new int[n + 1];
+        for (int i = 0; i <= n; i++) {
+            nxt[i] = i == n ? 0 : i + 1;
+            prv[i] = i == 0 ? n : i - 1;
+        }
+        next = new StateIntArray(sm, nxt);
+        prev = new StateIntArray(sm, prv);
+        size = sm.makeStateInt(n);
+    }
+
+    /**
+     * Returns the number of values in the list.
+     *
+     * @return the size of the list
+     */
+    public int size() {
+        return size.value();
+    }
+
+    /**
+     * Checks if the list is empty.
+     *
+     * @return true if the list is empty
+     */
+    public boolean isEmpty() {
+        return size.value() == 0;
+    }
+
+    /**
+     * Checks if a value is in the list.
+     *
+     * @param v the value to check
+     * @return true if the value is in the list
+     */
+    public boolean contains(int v) {
+        // a removed value is never linked again by its previous value
+        return v >= 0 && v < n && next.get(prev.get(v)) == v;
+    }
+
+    /**
+     * Removes the given value from the list.
+     *
+     * @param v the value to remove
+     * @return true if the value was in the list and is removed
+     */
+    public boolean remove(int v) {
+        if (!contains(v)) return false;
+        int p = prev.get(v);
+        int s = next.get(v);
+        next.set(p, s);
+        prev.set(s, p);
+        size.decrement();
+        return true;
+    }
+
+    /**
+     * Returns the first value of the list.
+     *
+     * @return the first value, -1 if the list is empty
+     */
+    public int first() {
+        int f = next.get(n);
+        return f == n ? -1 : f;
+    }
+
+    /**
+     * Returns the last value of the list.
+     *
+     * @return the last value, -1 if the list is empty
+     */
+    public int last() {
+        int l = prev.get(n);
+        return l == n ? -1 : l;
+    }
+
+    /**
+     * Returns the value following a value in the list.
+     *
+     * @param v a value in the list
+     * @return the next value, -1 if v is the last one
+     */
+    public int next(int v) {
+        int s = next.get(v);
+        return s == n ? -1 : s;
+    }
+
+    /**
+     * Returns the value preceding a value in the list.
+     *
+     * @param v a value in the list
+     * @return the previous value, -1 if v is the first one
+     */
+    public int prev(int v) {
+        int p = prev.get(v);
+        return p == n ? -1 : p;
+    }
+
+    /**
+     * Copies the values of the list into an array
+     * in the order of the list.
+     *
+     * @param dest an array large enough {@code dest.length >= size()}
+     * @return the size of the list
+     */
+    public int fillArray(int[] dest) {
+        int k = 0;
+        for (int v = next.get(n); v != n; v = next.get(v))
+            dest[k++] = v;
+        return k;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder b = new StringBuilder();
+        b.append("[");
+        for (int v = next.get(n); v != n; v = next.get(v)) {
+            b.append(v);
+            if (next.get(v) != n) b.append(',');
+        }
+        b.append("]");
+        return b.toString();
+    }
+}
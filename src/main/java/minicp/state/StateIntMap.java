@@ -0,0 +1,241 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+
+package minicp.state;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Map from int keys to int values that can be saved and restored through
+ * the {@link StateManager#saveState()} / {@link StateManager#restoreState()}
+ * methods.
+ * <p>
+ * The entries are stored in primitive arrays in their insertion order
+ * and indexed by an open-addressing hash table with linear probing.
+ * Since entries cannot be removed, restoring the map only requires
+ * to restore its reversible size and the values that were updated.
+ * A value is saved in a {@link SlotTrail} at most once per saved state,
+ * such that only the slots that effectively change are trailed.
+ * A slot of the hash table referencing an entry removed by a restoration
+ * is detected as free, hence the table never needs to be restored.
+ */
+public class StateIntMap implements Snapshotable {
+
+    /* entries in insertion order */
+    private int[] keys;
+    private int[] values;
+    private int[] slotOf;     // slot of the hash table referencing the entry
+    private final StateInt size;
+
+    /* hash table, table[s] is the index of an entry */
+    private int[] table;
+    private int mask;
+
+    /* trail of the updated values */
+    private final SlotTrail trail;
+
+    /**
+     * Creates an empty map.
+     *
+     * @param sm the state manager that will save and restore the map when
+     *        {@link StateManager#saveState()} / {@link StateManager#restoreState()}
+     *           methods are called
+     */
+    public StateIntMap(StateManager sm) {
+        this(sm, 16);
+    }
+
+    /**
+     * Creates an empty map.
+     *
+     * @param sm the state manager that will save and restore the map when
+     *        {@link StateManager#saveState()} / {@link StateManager#restoreState()}
+     *           methods are called
+     * @param expectedSize the number of entries expected in the map
+     */
+    public StateIntMap(StateManager sm, int expectedSize) {
+        int n = Math.max(expectedSize, 4);
+        keys = new int[n];
+        values = new int[n];
+        slotOf = new int[n];
+        table = new int[tableCapacity(n)];
+        mask = table.length - 1;
+        size = sm.makeStateInt(0);
+        trail = new SlotTrail(sm, n, (e, v) -> values[e] = (int) v);
+        sm.getSnapshotRegistry().register(this);
+    }
+
+    private static int tableCapacity(int n) {
+        // keep the load factor below 1/2
+        return Integer.highestOneBit(Math.max(n, 2) * 2 - 1) * 2;
+    }
+
+    private static int hash(int k) {
+        int h = k * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private boolean isUsed(int slot) {
+        int e = table[slot];
+        return e < size.value() && slotOf[e] == slot;
+    }
+
+    /**
+     * Returns the index of the entry with the given key
+     * or the complement {@code -(slot + 1)} of the free slot
+     * where it should be inserted.
+     */
+    private int find(int k) {
+        int s = hash(k) & mask;
+        while (isUsed(s)) {
+            int e = table[s];
+            if (keys[e] == k) return e;
+            s = (s + 1) & mask;
+        }
+        return -(s + 1);
+    }
+
+    private void grow() {
+        int n = size.value();
+        int cap = keys.length * 2;
+        keys = Arrays.copyOf(keys, cap);
+        values = Arrays.copyOf(values, cap);
+        slotOf = Arrays.copyOf(slotOf, cap);
+        if (tableCapacity(cap) > table.length) {
+            table = new int[tableCapacity(cap)];
+            mask = table.length - 1;
+            rehash();
+        }
+    }
+
+    private void rehash() {
+        int n = size.value();
+        Arrays.fill(slotOf, 0, n, -1);
+        for (int e = 0; e < n; e++) {
+            int s = -find(keys[e]) - 1;
+            table[s] = e;
+            slotOf[e] = s;
+        }
+    }
+
+    @Override
+    public int snapshotSize() {
+        return 4 + 8 * size.value();
+    }
+
+    @Override
+    public void writeSnapshot(ByteBuffer buf) {
+        int n = size.value();
+        buf.putInt(n);
+        Snapshot.putInts(buf, keys, 0, n);
+        Snapshot.putInts(buf, values, 0, n);
+    }
+
+    @Override
+    public void readSnapshot(ByteBuffer buf) {
+        int n = buf.getInt();
+        size.setValue(0);
+        while (keys.length < n)
+            grow();
+        Snapshot.getInts(buf, keys, 0, n);
+        Snapshot.getInts(buf, values, 0, n);
+        size.setValue(n);
+        rehash();
+    }
+
+    /**
+     * Inserts the key-value pair.
+     * It erases the existing value
+     * if the map already contains an entry
+     * with the given key.
+     *
+     * @param k the key
+     * @param v the value
+     */
+    public void put(int k, int v) {
+        int e = find(k);
+        if (e >= 0) {
+            if (values[e] == v) return;
+            trail.save(e, values[e]);
+            values[e] = v;
+        } else {
+            int n = size.value();
+            if (n == keys.length) {
+                grow();
+                e = find(k);
+            }
+            int s = -e - 1;
+            keys[n] = k;
+            values[n] = v;
+            slotOf[n] = s;
+            trail.markSaved(n); // no need to save a value inserted in this state
+            table[s] = n;
+            size.setValue(n + 1);
+        }
+    }
+
+    /**
+     * Retrieves the value for a given key.
+     *
+     * @param k the key
+     * @param defaultValue the value returned if there is no entry for k
+     * @return the value v if the entry (k,v) was previously put, defaultValue otherwise
+     */
+    public int getOrDefault(int k, int defaultValue) {
+        int e = find(k);
+        return e >= 0 ? values[e] : defaultValue;
+    }
+
+    /**
+     * Checks if the map contains an entry for the given key.
+     *
+     * @param k the key
+     * @return true if an entry (k,v) was previously put
+     */
+    public boolean containsKey(int k) {
+        return find(k) >= 0;
+    }
+
+    /**
+     * Returns the number of entries in the map.
+     *
+     * @return the number of entries
+     */
+    public int size() {
+        return size.value();
+    }
+
+    /**
+     * Checks if the map is empty.
+     *
+     * @return true if the map has no entry
+     */
+    public boolean isEmpty() {
+        return size.value() == 0;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder b = new StringBuilder();
+        b.append("{");
+        for (int e = 0; e < size(); e++) {
+            if (e > 0) b.append(',');
+            b.append(keys[e]).append('=').append(values[e]);
+        }
+        b.append("}");
+        return b.toString();
+    }
+}
@@ -36,8 +36,8 @@ public class StateInterval {
      * @param max the maximum value of the interval {@code max >= min}
      */
     public StateInterval(StateManager sm, int min, int max) {
-        this.min = sm.makeStateInt(min);
-        this.max = sm.makeStateInt(max);
+        this.min = sm.makeStateInt(min, StateHint.FREQUENTLY_MODIFIED);
+        this.max = sm.makeStateInt(max, StateHint.FREQUENTLY_MODIFIED);
     }
 
     /**
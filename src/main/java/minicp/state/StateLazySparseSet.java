@@ -15,13 +15,252 @@
 
 package minicp.state;
 
+import java.nio.ByteBuffer;
+import java.util.NoSuchElementException;
+
 /**
  * A sparse-set that lazily switch
  * from an dense interval representation
  * to a sparse-set representation
  * when a hole is created in the interval.
+ * <p>
+ * As long as only the bounds are modified, the set is a {@link StateInterval}
+ * and no array of the size of the set is allocated.
+ * The {@link StateSparseSet} is created on the first removal of
+ * a value strictly between the bounds, on the initial range of the set,
+ * and kept afterwards. Only the flag telling that the sparse representation
+ * is in use is saved and restored, such that the set becomes an interval again
+ * when the state prior to the hole creation is restored.
+ * The next hole re-seeds the existing sparse-set from the interval
+ * in time linear in its size, without allocating.
  */
-public class StateLazySparseSet {
+public class StateLazySparseSet implements Snapshotable {
+
+    private final StateManager sm;
+    private final StateInterval interval;
+    private final int n;
+    private final int ofs;
+    private final StateBool sparseMode;
+    // created on the first hole, only meaningful when sparseMode is true
+    StateSparseSet sparse;
+
+    /**
+     * Creates a set containing the elements {@code {ofs,ofs+1,...,ofs+n-1}}.
+     *
+     * @param sm the state manager that will save and restore the set when
+     *        {@link StateManager#saveState()} / {@link StateManager#restoreState()}
+     *           methods are called
+     * @param n  the number of elements in the set
+     * @param ofs the minimum value in the set containing {@code {ofs,ofs+1,...,ofs+n-1}}
+     */
+    public StateLazySparseSet(StateManager sm, int n, int ofs) {
+        this.sm = sm;
+        this.n = n;
+        this.ofs = ofs;
+        interval = new StateInterval(sm, ofs, ofs + n - 1);
+        sparseMode = sm.makeStateBool(false, StateHint.RARELY_MODIFIED);
+        sm.getSnapshotRegistry().register(this);
+    }
+
+    /**
+     * Returns the sparse representation if it is in use, null otherwise.
+     */
+    private StateSparseSet sparse() {
+        return sparseMode.value() ? sparse : null;
+    }
+
+    private StateSparseSet switchToSparseSet() {
+        StateSparseSet s = allocate();
+        s.resetToInterval(interval.min(), interval.max());
+        sparseMode.setValue(true);
+        return s;
+    }
+
+    private StateSparseSet allocate() {
+        if (sparse == null) {
+            // created during the search hence written with this set, not registered
+            sparse = sm.getSnapshotRegistry().unregistered(() -> new StateSparseSet(sm, n, ofs));
+        }
+        return sparse;
+    }
+
+    @Override
+    public int snapshotSize() {
+        StateSparseSet s = sparse();
+        return s == null ? 0 : s.snapshotSize();
+    }
+
+    @Override
+    public void writeSnapshot(ByteBuffer buf) {
+        // the bounds of the interval and the mode are registered states
+        StateSparseSet s = sparse();
+        if (s != null)
+            s.writeSnapshot(buf);
+    }
+
+    @Override
+    public void readSnapshot(ByteBuffer buf) {
+        // the mode, registered before this set, is already read
+        if (sparseMode.value())
+            allocate().readSnapshot(buf);
+    }
+
+    /**
+     * Returns an array with the values present in the set.
+     *
+     * @return an array representation of the values present in the set
+     */
+    public int[] toArray() {
+        int[] res = new int[size()];
+        fillArray(res);
+        return res;
+    }
+
+    /**
+     * Sets the first values of <code>dest</code> to the ones
+     * present in the set.
+     *
+     * @param dest, an array large enough {@code dest.length >= size()}
+     * @return the size of the set
+     */
+    public int fillArray(int[] dest) {
+        StateSparseSet s = sparse();
+        return s == null ? interval.fillArray(dest) : s.fillArray(dest);
+    }
+
+    /**
+     * Checks if the set is empty
+     *
+     * @return true if the set is empty
+     */
+    public boolean isEmpty() {
+        StateSparseSet s = sparse();
+        return s == null ? interval.isEmpty() : s.isEmpty();
+    }
+
+    /**
+     * Returns the size of the set.
+     *
+     * @return the size of the set
+     */
+    public int size() {
+        StateSparseSet s = sparse();
+        return s == null ? interval.size() : s.size();
+    }
+
+    /**
+     * Returns the minimum value in the set.
+     *
+     * @return the minimum value in the set
+     */
+    public int min() {
+        StateSparseSet s = sparse();
+        if (s != null)
+            return s.min();
+        if (interval.isEmpty())
+            throw new NoSuchElementException();
+        return interval.min();
+    }
+
+    /**
+     * Returns the maximum value in the set.
+     *
+     * @return the maximum value in the set
+     */
+    public int max() {
+        StateSparseSet s = sparse();
+        if (s != null)
+            return s.max();
+        if (interval.isEmpty())
+            throw new NoSuchElementException();
+        return interval.max();
+    }
+
+    /**
+     * Removes the given value from the set.
+     *
+     * @param val the value to remove.
+     * @return true if val was in the set, false otherwise
+     */
+    public boolean remove(int val) {
+        StateSparseSet s = sparse();
+        if (s != null)
+            return s.remove(val);
+        if (!interval.contains(val))
+            return false;
+        if (val == interval.min())
+            interval.removeBelow(val + 1);
+        else if (val == interval.max())
+            interval.removeAbove(val - 1);
+        else
+            switchToSparseSet().remove(val);
+        return true;
+    }
+
+    /**
+     * Checks if a value is in the set.
+     *
+     * @param val the value to check
+     * @return true if val is in the set
+     */
+    public boolean contains(int val) {
+        StateSparseSet s = sparse();
+        return s == null ? interval.contains(val) : s.contains(val);
+    }
+
+    /**
+     * Removes all the element from the set except the given value.
+     *
+     * @param v is an element in the set
+     */
+    public void removeAllBut(int v) {
+        StateSparseSet s = sparse();
+        if (s == null) interval.removeAllBut(v);
+        else s.removeAllBut(v);
+    }
+
+    /**
+     * Removes all the values in the set.
+     */
+    public void removeAll() {
+        StateSparseSet s = sparse();
+        if (s == null) interval.removeAll();
+        else s.removeAll();
+    }
+
+    /**
+     * Remove all the values less than the given value from the set
+     *
+     * @param value a value such that all the ones smaller are removed
+     */
+    public void removeBelow(int value) {
+        StateSparseSet s = sparse();
+        if (s != null)
+            s.removeBelow(value);
+        else if (value > interval.max())
+            interval.removeAll();
+        else if (value > interval.min())
+            interval.removeBelow(value);
+    }
+
+    /**
+     * Remove all the values larger than the given value from the set
+     *
+     * @param value a value such that all the ones greater are removed
+     */
+    public void removeAbove(int value) {
+        StateSparseSet s = sparse();
+        if (s != null)
+            s.removeAbove(value);
+        else if (value < interval.min())
+            interval.removeAll();
+        else if (value < interval.max())
+            interval.removeAbove(value);
+    }
 
-    
+    @Override
+    public String toString() {
+        StateSparseSet s = sparse();
+        return s == null ? interval.toString() : s.toString();
+    }
 }
@@ -0,0 +1,61 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+
+package minicp.state;
+
+/**
+ * Object that wraps a long value
+ * that can be saved and restored through
+ * the {@link StateManager#saveState()} / {@link StateManager#restoreState()}
+ * methods.
+ * The value is stored as a primitive such that
+ * no boxing occurs when it is read or modified.
+ *
+ * @see StateManager#makeStateLong(long) for the creation.
+ */
+public interface StateLong {
+
+    /**
+     * Set the value
+     * @param v the value to set
+     * @return the new value that was set
+     */
+    long setValue(long v);
+
+    /**
+     * Retrieves the value
+     * @return the value
+     */
+    long value();
+
+    /**
+     * Increments the value
+     * @return the new value
+     */
+    default long increment() {
+        return setValue(value() + 1);
+    }
+
+    /**
+     * Decrements the value
+     * @return the new value
+     */
+    default long decrement() {
+        return setValue(value() - 1);
+    }
+
+    @Override
+    String toString();
+}
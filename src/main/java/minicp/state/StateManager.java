@@ -80,6 +80,70 @@ public interface StateManager {
      */
     StateInt makeStateInt(int initValue);
 
+    /**
+     * Creates a Stateful long (restorable)
+     *
+     * @param initValue the initial setValue
+     * @return a StateLong object wrapping the initValue
+     */
+    StateLong makeStateLong(long initValue);
+
+    /**
+     * Creates a Stateful boolean (restorable)
+     *
+     * @param initValue the initial setValue
+     * @return a StateBool object wrapping the initValue
+     */
+    StateBool makeStateBool(boolean initValue);
+
+    /**
+     * Creates a Stateful reference (restorable)
+     * with a hint on how often it is modified.
+     *
+     * @param initValue the initial setValue
+     * @param hint how often the reference is expected to be modified
+     * @return a State object wrapping the initValue
+     */
+    default <T> State<T> makeStateRef(T initValue, StateHint hint) {
+        return makeStateRef(initValue);
+    }
+
+    /**
+     * Creates a Stateful integer (restorable)
+     * with a hint on how often it is modified.
+     *
+     * @param initValue the initial setValue
+     * @param hint how often the integer is expected to be modified
+     * @return a StateInt object wrapping the initValue
+     */
+    default StateInt makeStateInt(int initValue, StateHint hint) {
+        return makeStateInt(initValue);
+    }
+
+    /**
+     * Creates a Stateful long (restorable)
+     * with a hint on how often it is modified.
+     *
+     * @param initValue the initial setValue
+     * @param hint how often the long is expected to be modified
+     * @return a StateLong object wrapping the initValue
+     */
+    default StateLong makeStateLong(long initValue, StateHint hint) {
+        return makeStateLong(initValue);
+    }
+
+    /**
+     * Creates a Stateful boolean (restorable)
+     * with a hint on how often it is modified.
+     *
+     * @param initValue the initial setValue
+     * @param hint how often the boolean is expected to be modified
+     * @return a StateBool object wrapping the initValue
+     */
+    default StateBool makeStateBool(boolean initValue, StateHint hint) {
+        return makeStateBool(initValue);
+    }
+
     /**
      * Creates a Stateful map (restorable)
      *
@@ -87,6 +151,93 @@ public interface StateManager {
      */
     StateMap makeStateMap();
 
+    /**
+     * Records the decision that is executed at the current level,
+     * that is the closure that transforms the state saved
+     * by the last {@link #saveState()} into the current one.
+     * The managers that rebuild states by recomputation
+     * replay the recorded decisions, the other ones ignore them.
+     *
+     * @param decision a deterministic closure executed at the current level
+     * @see Recomputer
+     */
+    default void recordDecision(Procedure decision) {
+    }
+
+    /**
+     * Returns statistics on the memory held by this manager
+     * to restore the saved states.
+     *
+     * @return the statistics at the time of the call
+     */
+    StateStatistics getStatistics();
+
+    /**
+     * Sets a limit on the estimated memory held by this manager.
+     * When it is exceeded, the next {@link #saveState()} throws a
+     * {@link StateMemoryLimitException} instead of saving the state,
+     * which cleanly stops a search rather than running out of memory.
+     *
+     * @param bytes the limit in bytes, a non positive value removes the limit
+     * @see StateStatistics#estimatedBytes()
+     */
+    void setMemoryLimit(long bytes);
+
+    /**
+     * Returns a number that changes at each {@link #saveState()}
+     * and {@link #restoreState()}, such that an object can tell whether
+     * it was already saved since the last one of these calls.
+     * It is always positive when the level is not negative.
+     *
+     * @return the current magic number
+     */
+    long getMagic();
+
+    /**
+     * Records a primitive value that is given back to its owner
+     * when the current level is restored.
+     * Nothing is recorded at the root level.
+     * No object is allocated by this method (except when the arena grows).
+     *
+     * @param owner the entry to restore
+     * @param value the value to restore the owner with
+     * @see SlotTrail
+     */
+    void pushState(PrimitiveStateEntry owner, long value);
+
+    /**
+     * Accounts for the memory of a data structure that saves its previous
+     * content in its own primitive trail (see {@link SlotTrail})
+     * rather than in entries of this manager, such that this trail is
+     * part of the estimated memory and of the memory limit.
+     *
+     * @param bytes the number of bytes added to that trail,
+     *              or released from it when negative
+     * @see #setMemoryLimit(long)
+     */
+    void accountSelfTrail(long bytes);
+
+    /**
+     * Tells whether the objects created with the given hint are saved
+     * by copying their content at each level rather than by recording
+     * their modifications. The data structures that save their own
+     * content (e.g. {@link StateSparseBitSet}) use it to choose
+     * between a word-level trail and a copy of all their words.
+     *
+     * @param hint how often the object is expected to be modified
+     * @return true if the objects created with this hint are copied
+     */
+    boolean isCopied(StateHint hint);
+
+    /**
+     * Returns the objects of this manager whose content
+     * is written in the snapshots.
+     *
+     * @return the registry of the objects created in this manager
+     * @see Snapshot
+     */
+    SnapshotRegistry getSnapshotRegistry();
+
     /**
      * Higher-order function that preserves the state prior to calling body and restores it after.
      *
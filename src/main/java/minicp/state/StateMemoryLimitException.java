@@ -0,0 +1,45 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+
+package minicp.state;
+
+/**
+ * Exception thrown by {@link StateManager#saveState()} when
+ * the estimated memory held by the manager exceeds its limit.
+ * It stops the search like a {@link minicp.search.StopSearchException}
+ * and gives the statistics of the manager when the limit was reached.
+ *
+ * @see StateManager#setMemoryLimit(long)
+ */
+public class StateMemoryLimitException extends RuntimeException {
+
+    private static final long serialVersionUID = 5195480315768297213L;
+
+    private final StateStatistics statistics;
+
+    public StateMemoryLimitException(StateStatistics statistics) {
+        super("memory limit of the state manager reached: " + statistics.estimatedBytes() + " bytes");
+        this.statistics = statistics;
+    }
+
+    /**
+     * Returns the statistics of the manager when the limit was reached.
+     *
+     * @return the statistics of the manager
+     */
+    public StateStatistics getStatistics() {
+        return statistics;
+    }
+}
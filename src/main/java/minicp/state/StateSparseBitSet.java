@@ -15,6 +15,7 @@
 
 package minicp.state;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import minicp.util.exception.NotImplementedException;
 
@@ -22,12 +23,29 @@ import minicp.util.exception.NotImplementedException;
 /**
  * Class to represent a bit-set that can be saved and restored through
  * the {@link StateManager#saveState()} / {@link StateManager#restoreState()}
+ * <p>
+ * The words are stored in a primitive {@code long[]} and saved
+ * word by word in a {@link SlotTrail}: the first time a word is modified
+ * after a {@link StateManager#saveState()}, its index and previous value
+ * are saved, and given back on {@link StateManager#restoreState()}.
+ * <p>
+ * When the state manager copies the objects created with the hint
+ * given at construction (see {@link StateManager#isCopied(StateHint)}),
+ * the first modification after a save copies all the words at once
+ * with {@link SlotTrail#saveAll(long[], int)} instead,
+ * and a restore copies them back.
+ * This is cheaper for a bit-set whose words are modified at almost every node,
+ * such as the supported tuples of a table constraint.
  */
-public class StateSparseBitSet {
+public class StateSparseBitSet implements Snapshotable {
 
     /* Variables used to store value of the bitset */
     private final int nWords;
-    private final State<Long>[] words;
+    private final long[] words;
+
+    /* Variables used to trail the words */
+    private final SlotTrail trail;
+    private final boolean bulkCopy; // true to save all the words at once
 
     /* Variables used to make set sparse */
     private final int[] nonZeroIdx;
@@ -159,12 +177,62 @@ public class StateSparseBitSet {
      * @param n  the number of bits
      */
     public StateSparseBitSet(StateManager sm, int n) {
+        this(sm, n, StateHint.RARELY_MODIFIED);
+    }
+
+    /**
+     * Creates a StateSparseSet with n bits, initially all set,
+     * with a hint on how often it is modified.
+     *
+     * @param sm   the state manager
+     * @param n    the number of bits
+     * @param hint how often the bits are expected to be modified
+     */
+    public StateSparseBitSet(StateManager sm, int n, StateHint hint) {
         nWords = (n + 63) >>> 6; // divided by 64
-        words = new State[nWords];
-        Arrays.setAll(words, i -> sm.makeStateRef(0xFFFFFFFFFFFFFFFFL));
+        words = new long[nWords];
+        Arrays.fill(words, 0xFFFFFFFFFFFFFFFFL);
+        bulkCopy = sm.isCopied(hint);
+        trail = new SlotTrail(sm, nWords, new SlotTrail.Slots() {
+            @Override
+            public void restore(int slot, long value) {
+                words[slot] = value;
+            }
+
+            @Override
+            public void restoreAll(long[] saved, int from, int n) {
+                System.arraycopy(saved, from, words, 0, n);
+            }
+        });
         nonZeroIdx = new int[nWords];
         Arrays.setAll(nonZeroIdx, i -> i);
         nonZeroSize = sm.makeStateInt(nWords);
+        sm.getSnapshotRegistry().register(this);
+    }
+
+    @Override
+    public int snapshotSize() {
+        return 12 * nWords;
+    }
+
+    @Override
+    public void writeSnapshot(ByteBuffer buf) {
+        Snapshot.putLongs(buf, words, 0, nWords);
+        Snapshot.putInts(buf, nonZeroIdx, 0, nWords);
+    }
+
+    @Override
+    public void readSnapshot(ByteBuffer buf) {
+        Snapshot.getLongs(buf, words, 0, nWords);
+        Snapshot.getInts(buf, nonZeroIdx, 0, nWords);
+    }
+
+    private void setWord(int i, long w) {
+        if (bulkCopy)
+            trail.saveAll(words, nWords);
+        else
+            trail.save(i, words[i]);
+        words[i] = w;
     }
 
     /**
@@ -181,9 +249,11 @@ public class StateSparseBitSet {
      */
     public void and(BitSet bs) {
         for (int i = nonZeroSize.value() - 1; i >= 0; i--) {
-            State<Long> w = words[nonZeroIdx[i]];
-            long wn = w.value() & bs.words[nonZeroIdx[i]];
-            w.setValue(wn);
+            int idx = nonZeroIdx[i];
+            long w = words[idx];
+            long wn = w & bs.words[idx];
+            if (wn != w)
+                setWord(idx, wn);
             if (wn == 0L) { // swap with last non-zero word
                 nonZeroSize.decrement();
                 int tmp = nonZeroIdx[i];
@@ -219,7 +289,7 @@ public class StateSparseBitSet {
             return false;
         }
         int residue=bs.residue;
-        return (words[residue].value() & bs.words[residue]) != 0L; //bs have some bits set to true that are also set to true in the corresponding words of this BitSet
+        return (words[residue] & bs.words[residue]) != 0L; //bs have some bits set to true that are also set to true in the corresponding words of this BitSet
     }
 
     /**
@@ -239,8 +309,7 @@ public class StateSparseBitSet {
         }
         for (int i = nonZeroSize.value() - 1; i >= 0; i--) {
             int idx = nonZeroIdx[i];
-            State<Long> w = words[idx];
-            if ((w.value() & bs.words[idx]) != 0L) {
+            if ((words[idx] & bs.words[idx]) != 0L) {
                 bs.residue = idx;
                 return true;
             }
@@ -257,14 +326,14 @@ public class StateSparseBitSet {
      */
     public boolean get(int i) {
         int wordIndex = i >>> 6;
-        return wordIndex < nonZeroSize.value() && (this.words[wordIndex].value() & 1L << i) != 0L;
+        return wordIndex < nWords && (this.words[wordIndex] & 1L << i) != 0L;
     }
 
     @Override
     public String toString() {
         StringBuilder res = new StringBuilder();
         for (int i = 0; i < nonZeroSize.value(); i++) {
-            res.append(" w").append(nonZeroIdx[i]).append("=").append(Long.toBinaryString(words[nonZeroIdx[i]].value()));
+            res.append(" w").append(nonZeroIdx[i]).append("=").append(Long.toBinaryString(words[nonZeroIdx[i]]));
         }
         return res.toString();
     }
@@ -15,6 +15,7 @@
 
 package minicp.state;
 
+import java.nio.ByteBuffer;
 import java.util.NoSuchElementException;
 
 /**
@@ -23,7 +24,7 @@ import java.util.NoSuchElementException;
  * the {@link StateManager#saveState()} / {@link StateManager#restoreState()}
  * methods.
  */
-public class StateSparseSet {
+public class StateSparseSet implements Snapshotable {
 
     private int[] values;
     private int[] indices;
@@ -45,17 +46,69 @@ public class StateSparseSet {
     public StateSparseSet(StateManager sm, int n, int ofs) {
         this.n = n;
         this.ofs = ofs;
-        size = sm.makeStateInt(n);
-        min = sm.makeStateInt(0);
-        max = sm.makeStateInt(n - 1);
+        size = sm.makeStateInt(n, StateHint.FREQUENTLY_MODIFIED);
+        min = sm.makeStateInt(0, StateHint.FREQUENTLY_MODIFIED);
+        max = sm.makeStateInt(n - 1, StateHint.FREQUENTLY_MODIFIED);
         values = new int[n];
         indices = new int[n];
         for (int i = 0; i < n; i++) {
             values[i] = i;
             indices[i] = i;
         }
+        sm.getSnapshotRegistry().register(this);
     }
 
+    int capacity() {
+        return n;
+    }
+
+    int offset() {
+        return ofs;
+    }
+
+    @Override
+    public int snapshotSize() {
+        return 4 * (3 + n);
+    }
+
+    @Override
+    public void writeSnapshot(ByteBuffer buf) {
+        // the size and bounds are also written, for the sets
+        // that are not registered and written by their owner
+        buf.putInt(size.value());
+        buf.putInt(min.value());
+        buf.putInt(max.value());
+        Snapshot.putInts(buf, values, 0, n);
+    }
+
+    @Override
+    public void readSnapshot(ByteBuffer buf) {
+        size.setValue(buf.getInt());
+        min.setValue(buf.getInt());
+        max.setValue(buf.getInt());
+        Snapshot.getInts(buf, values, 0, n);
+        for (int i = 0; i < n; i++)
+            indices[values[i]] = i;
+    }
+
+
+    /**
+     * Makes the set contain exactly the values {@code lo..hi}, whatever it contained.
+     * Contrary to the removals, this reorganizes the positions of all the values,
+     * such that the previous content cannot be restored: it is only valid
+     * if the set is not used in the states that are restored later,
+     * as the sparse representation of a {@link StateLazySparseSet}.
+     *
+     * @param lo the smallest value, at least the offset
+     * @param hi the largest value, at most the offset plus the capacity minus one
+     */
+    void resetToInterval(int lo, int hi) {
+        for (int v = lo; v <= hi; v++)
+            exchangePositions(v - ofs, values[v - lo]);
+        size.setValue(hi - lo + 1);
+        min.setValue(lo - ofs);
+        max.setValue(hi - ofs);
+    }
 
     private void exchangePositions(int val1, int val2) {
         assert (checkVal(val1));
@@ -250,34 +303,99 @@ public class StateSparseSet {
     }
 
     /**
-     * Remove all the values less than the given value from the set
+     * Remove all the values less than the given value from the set.
+     * The values are removed in one pass that either scans the removed
+     * range or the values in the set, whichever is smaller,
+     * and the new minimum is computed once.
      *
      * @param value a value such that all the ones smaller are removed
      */
     public void removeBelow(int value) {
         if (max() < value) {
             removeAll();
+            return;
+        }
+        int bound = value - ofs;
+        int mn = min.value();
+        if (bound <= mn)
+            return;
+        int s = size.value();
+        int newMin;
+        if (bound - mn <= s) {
+            // scan the removed range
+            for (int v = mn; v < bound; v++) {
+                if (indices[v] < s) {
+                    s--;
+                    exchangePositions(v, values[s]);
+                }
+            }
+            // the maximum is kept hence the new minimum exists
+            newMin = bound;
+            while (indices[newMin] >= s)
+                newMin++;
         } else {
-            for (int v = min(); v < value; v++) {
-                remove(v);
+            // scan the values in the set
+            newMin = max.value();
+            for (int i = s - 1; i >= 0; i--) {
+                int v = values[i];
+                if (v < bound) {
+                    s--;
+                    exchangePositions(v, values[s]);
+                } else if (v < newMin) {
+                    newMin = v;
+                }
             }
         }
+        size.setValue(s);
+        min.setValue(newMin);
     }
 
     /**
-     * Remove all the values larger than the given value from the set
+     * Remove all the values larger than the given value from the set.
+     * The values are removed in one pass that either scans the removed
+     * range or the values in the set, whichever is smaller,
+     * and the new maximum is computed once.
      *
      * @param value a value such that all the ones greater are removed
      */
     public void removeAbove(int value) {
         if (min() > value) {
             removeAll();
+            return;
+        }
+        int bound = value - ofs;
+        int mx = max.value();
+        if (bound >= mx)
+            return;
+        int s = size.value();
+        int newMax;
+        if (mx - bound <= s) {
+            // scan the removed range
+            for (int v = mx; v > bound; v--) {
+                if (indices[v] < s) {
+                    s--;
+                    exchangePositions(v, values[s]);
+                }
+            }
+            // the minimum is kept hence the new maximum exists
+            newMax = bound;
+            while (indices[newMax] >= s)
+                newMax--;
         } else {
-            int max = max();
-            for (int v = max; v > value; v--) {
-                remove(v);
+            // scan the values in the set
+            newMax = min.value();
+            for (int i = s - 1; i >= 0; i--) {
+                int v = values[i];
+                if (v > bound) {
+                    s--;
+                    exchangePositions(v, values[s]);
+                } else if (v > newMax) {
+                    newMax = v;
+                }
             }
         }
+        size.setValue(s);
+        max.setValue(newMax);
     }
 
 
@@ -15,6 +15,7 @@
 
 package minicp.state;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 
 /**
@@ -22,7 +23,7 @@ import java.util.ArrayList;
  * the {@link StateManager#saveState()} / {@link StateManager#restoreState()}
  * methods.
  */
-public class StateStack<E> {
+public class StateStack<E> implements Snapshotable {
 
     private StateInt size;
     private ArrayList<E> stack;
@@ -36,6 +37,7 @@ public class StateStack<E> {
     public StateStack(StateManager sm) {
         size = sm.makeStateInt(0);
         stack = new ArrayList<E>();
+        sm.getSnapshotRegistry().register(this);
     }
 
     public void push(E elem) {
@@ -52,4 +54,25 @@ public class StateStack<E> {
     public E get(int index) {
         return stack.get(index);
     }
+
+    /**
+     * The elements cannot be written in a snapshot,
+     * only their number is (as a registered state).
+     * The stacks of the two models must thus contain
+     * the same elements, which is partially checked here.
+     */
+    @Override
+    public int snapshotSize() {
+        return 0;
+    }
+
+    @Override
+    public void writeSnapshot(ByteBuffer buf) {
+    }
+
+    @Override
+    public void readSnapshot(ByteBuffer buf) {
+        if (size.value() > stack.size())
+            throw new IllegalArgumentException("the snapshot was written by a different model");
+    }
 }
@@ -0,0 +1,189 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+
+package minicp.state;
+
+import java.util.Arrays;
+
+/**
+ * Statistics on the memory held by a {@link StateManager}
+ * to restore the saved states, taken at a given time.
+ * <p>
+ * The memory is measured in number of entries
+ * (a value saved for one state object) and
+ * estimated in bytes from the kind of these entries:
+ * the saved values of the primitive states ({@link StateInt},
+ * {@link StateLong}, {@link StateBool}) are stored in primitive arrays
+ * while the other ones are objects.
+ * The estimated bytes also include the trails of the data-structures
+ * that save their content themselves in a {@link SlotTrail}
+ * (e.g. {@link StateSparseBitSet}, {@link StateIntArray}), reported with
+ * {@link StateManager#accountSelfTrail(long)}.
+ *
+ * @see StateManager#getStatistics()
+ */
+public class StateStatistics {
+
+    /**
+     * Estimated size of an entry saving a primitive value:
+     * the value and the reference to its owner.
+     */
+    public static final int PRIMITIVE_ENTRY_BYTES = 12;
+
+    /**
+     * Estimated size of an entry saving any other value:
+     * the reference to the entry and the entry itself.
+     */
+    public static final int ENTRY_BYTES = 32;
+
+    private final int level;
+    private final int[] entriesPerLevel;
+    private final long entries;
+    private final long peakEntries;
+    private final long estimatedBytes;
+    private final long peakEstimatedBytes;
+    private final long nSaves;
+    private final long nRestores;
+    private final double elapsedSeconds;
+
+    StateStatistics(int level, int[] entriesPerLevel, long entries, long peakEntries,
+                    long estimatedBytes, long peakEstimatedBytes,
+                    long nSaves, long nRestores, long elapsedNanos) {
+        this.level = level;
+        this.entriesPerLevel = entriesPerLevel;
+        this.entries = entries;
+        this.peakEntries = peakEntries;
+        this.estimatedBytes = estimatedBytes;
+        this.peakEstimatedBytes = peakEstimatedBytes;
+        this.nSaves = nSaves;
+        this.nRestores = nRestores;
+        this.elapsedSeconds = elapsedNanos / 1e9;
+    }
+
+    /**
+     * Returns the level of the manager.
+     *
+     * @return the level when the statistics were taken
+     */
+    public int level() {
+        return level;
+    }
+
+    /**
+     * Returns the number of entries recorded at a level,
+     * that is since the corresponding {@link StateManager#saveState()}.
+     *
+     * @param level a level between 0 and {@link #level()}
+     * @return the number of entries recorded at the level
+     */
+    public int entriesAtLevel(int level) {
+        return entriesPerLevel[level];
+    }
+
+    /**
+     * Returns the number of entries recorded at each level.
+     *
+     * @return an array with the number of entries of the levels {@code 0,...,level()}
+     */
+    public int[] entriesPerLevel() {
+        return entriesPerLevel.clone();
+    }
+
+    /**
+     * Returns the number of entries held by the manager.
+     *
+     * @return the number of entries
+     */
+    public long entries() {
+        return entries;
+    }
+
+    /**
+     * Returns the largest number of entries held so far.
+     *
+     * @return the peak number of entries
+     */
+    public long peakEntries() {
+        return peakEntries;
+    }
+
+    /**
+     * Returns the estimated memory held by the entries.
+     *
+     * @return the estimated number of bytes
+     */
+    public long estimatedBytes() {
+        return estimatedBytes;
+    }
+
+    /**
+     * Returns the largest estimated memory held so far.
+     *
+     * @return the peak estimated number of bytes
+     */
+    public long peakEstimatedBytes() {
+        return peakEstimatedBytes;
+    }
+
+    /**
+     * Returns the number of calls to {@link StateManager#saveState()}.
+     *
+     * @return the number of saves
+     */
+    public long numberOfSaves() {
+        return nSaves;
+    }
+
+    /**
+     * Returns the number of calls to {@link StateManager#restoreState()}.
+     *
+     * @return the number of restores
+     */
+    public long numberOfRestores() {
+        return nRestores;
+    }
+
+    /**
+     * Returns the average number of saves per second
+     * since the creation of the manager.
+     *
+     * @return the number of saves per second
+     */
+    public double savesPerSecond() {
+        return elapsedSeconds > 0 ? nSaves / elapsedSeconds : 0;
+    }
+
+    /**
+     * Returns the average number of restores per second
+     * since the creation of the manager.
+     *
+     * @return the number of restores per second
+     */
+    public double restoresPerSecond() {
+        return elapsedSeconds > 0 ? nRestores / elapsedSeconds : 0;
+    }
+
+    @Override
+    public String toString() {
+        return "\n\tlevel: " + level
+                + "\n\t#entries: " + entries
+                + "\n\tpeak #entries: " + peakEntries
+                + "\n\testimated bytes: " + estimatedBytes
+                + "\n\tpeak estimated bytes: " + peakEstimatedBytes
+                + "\n\t#saves: " + nSaves + String.format(" (%.1f/s)", savesPerSecond())
+                + "\n\t#restores: " + nRestores + String.format(" (%.1f/s)", restoresPerSecond())
+                + "\n\tentries per level: " + Arrays.toString(entriesPerLevel) + "\n";
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+
+package minicp.state;
+
+/**
+ * Union-find (disjoint-set) structure over the values {@code {0,...,n-1}}
+ * that can be saved and restored through
+ * the {@link StateManager#saveState()} / {@link StateManager#restoreState()}
+ * methods.
+ * <p>
+ * It uses union by rank and path compression.
+ * The parents, ranks and sizes are stored in {@link StateIntArray}
+ * such that both the unions and the path compressions
+ * are undone on {@link StateManager#restoreState()}.
+ */
+public class StateUnionFind {
+
+    private final StateIntArray parent;
+    private final StateIntArray rank;
+    private final StateIntArray setSize;
+    private final StateInt nSets;
+
+    /**
+     * Creates n singleton sets {@code {0},...,{n-1}}.
+     *
+     * @param sm the state manager that will save and restore the sets when
+     *        {@link StateManager#saveState()} / {@link StateManager#restoreState()}
+     *           methods are called
+     * @param n the number of values
+     */
+    public StateUnionFind(StateManager sm, int n) {
+        int[] p = new int[n];
+        for (int i = 0; i < n; i++)
+            p[i] = i;
+        parent = new StateIntArray(sm, p);
+        rank = new StateIntArray(sm, n, 0);
+        setSize = new StateIntArray(sm, n, 1);
+        nSets = sm.makeStateInt(n);
+    }
+
+    /**
+     * Returns the representative of the set containing a value.
+     *
+     * @param i the value
+     * @return the representative of the set of i
+     */
+    public int find(int i) {
+        int root = i;
+        while (parent.get(root) != root)
+            root = parent.get(root);
+        // path compression
+        while (parent.get(i) != root) {
+            int p = parent.get(i);
+            parent.set(i, root);
+            i = p;
+        }
+        return root;
+    }
+
+    /**
+     * Merges the sets containing two values.
+     *
+     * @param i a value
+     * @param j another value
+     * @return true if i and j were in different sets
+     */
+    public boolean union(int i, int j) {
+        int ri = find(i);
+        int rj = find(j);
+        if (ri == rj) return false;
+        if (rank.get(ri) < rank.get(rj)) {
+            int t = ri;
+            ri = rj;
+            rj = t;
+        }
+        parent.set(rj, ri);
+        if (rank.get(ri) == rank.get(rj))
+            rank.increment(ri);
+        setSize.set(ri, setSize.get(ri) + setSize.get(rj));
+        nSets.decrement();
+        return true;
+    }
+
+    /**
+     * Checks if two values are in the same set.
+     *
+     * @param i a value
+     * @param j another value
+     * @return true if i and j are in the same set
+     */
+    public boolean sameSet(int i, int j) {
+        return find(i) == find(j);
+    }
+
+    /**
+     * Returns the number of values in the set containing a value.
+     *
+     * @param i the value
+     * @return the size of the set of i
+     */
+    public int size(int i) {
+        return setSize.get(find(i));
+    }
+
+    /**
+     * Returns the number of disjoint sets.
+     *
+     * @return the number of sets
+     */
+    public int nSets() {
+        return nSets.value();
+    }
+}
@@ -17,6 +17,9 @@ package minicp.state;
 
 /**
  * Object that can be saved by the {@link Copier}.
+ * It is copied at every {@link Copier#saveState()},
+ * see {@link DirtyStorage} for objects that are copied
+ * only when they are modified.
  */
 public interface Storage {
     StateEntry save();
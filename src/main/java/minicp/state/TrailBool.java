@@ -0,0 +1,84 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+
+package minicp.state;
+
+import java.nio.ByteBuffer;
+
+
+/**
+ * Implementation of {@link StateBool} with trail strategy
+ * @see Trailer
+ * @see StateManager#makeStateBool(boolean)
+ */
+public class TrailBool implements PrimitiveStateEntry, Snapshotable, StateBool {
+
+    private Trailer trail;
+    private boolean v;
+    private long lastMagic = -1L;
+
+    protected TrailBool(Trailer trail, boolean initial) {
+        this.trail = trail;
+        v = initial;
+        lastMagic = trail.getMagic() - 1;
+    }
+
+    private void trail() {
+        long trailMagic = trail.getMagic();
+        if (lastMagic != trailMagic) {
+            lastMagic = trailMagic;
+            trail.pushState(this, v ? 1L : 0L);
+        }
+    }
+
+    @Override
+    public boolean setValue(boolean v) {
+        if (v != this.v) {
+            trail();
+            this.v = v;
+        }
+        return this.v;
+    }
+
+    @Override
+    public boolean value() {
+        return this.v;
+    }
+
+    @Override
+    public void restore(long v) {
+        this.v = v != 0L;
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(v);
+    }
+
+    @Override
+    public int snapshotSize() {
+        return 1;
+    }
+
+    @Override
+    public void writeSnapshot(ByteBuffer buf) {
+        buf.put(v ? (byte) 1 : (byte) 0);
+    }
+
+    @Override
+    public void readSnapshot(ByteBuffer buf) {
+        v = buf.get() != 0;
+    }
+}
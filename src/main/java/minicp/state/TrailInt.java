@@ -15,16 +15,70 @@
 
 package minicp.state;
 
+import java.nio.ByteBuffer;
+
 
 /**
  * Implementation of {@link StateInt} with trail strategy
  * @see Trailer
  * @see StateManager#makeStateInt(int)
  */
-public class TrailInt extends Trail<Integer> implements StateInt {
+public class TrailInt implements PrimitiveStateEntry, Snapshotable, StateInt {
+
+    private Trailer trail;
+    private int v;
+    private long lastMagic = -1L;
 
     protected TrailInt(Trailer trail, int initial) {
-        super(trail, initial);
+        this.trail = trail;
+        v = initial;
+        lastMagic = trail.getMagic() - 1;
     }
 
+    private void trail() {
+        long trailMagic = trail.getMagic();
+        if (lastMagic != trailMagic) {
+            lastMagic = trailMagic;
+            trail.pushState(this, v);
+        }
+    }
+
+    @Override
+    public int setValue(int v) {
+        if (v != this.v) {
+            trail();
+            this.v = v;
+        }
+        return this.v;
+    }
+
+    @Override
+    public int value() {
+        return this.v;
+    }
+
+    @Override
+    public void restore(long v) {
+        this.v = (int) v;
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(v);
+    }
+
+    @Override
+    public int snapshotSize() {
+        return 4;
+    }
+
+    @Override
+    public void writeSnapshot(ByteBuffer buf) {
+        buf.putInt(v);
+    }
+
+    @Override
+    public void readSnapshot(ByteBuffer buf) {
+        v = buf.getInt();
+    }
 }
@@ -0,0 +1,84 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+
+package minicp.state;
+
+import java.nio.ByteBuffer;
+
+
+/**
+ * Implementation of {@link StateLong} with trail strategy
+ * @see Trailer
+ * @see StateManager#makeStateLong(long)
+ */
+public class TrailLong implements PrimitiveStateEntry, Snapshotable, StateLong {
+
+    private Trailer trail;
+    private long v;
+    private long lastMagic = -1L;
+
+    protected TrailLong(Trailer trail, long initial) {
+        this.trail = trail;
+        v = initial;
+        lastMagic = trail.getMagic() - 1;
+    }
+
+    private void trail() {
+        long trailMagic = trail.getMagic();
+        if (lastMagic != trailMagic) {
+            lastMagic = trailMagic;
+            trail.pushState(this, v);
+        }
+    }
+
+    @Override
+    public long setValue(long v) {
+        if (v != this.v) {
+            trail();
+            this.v = v;
+        }
+        return this.v;
+    }
+
+    @Override
+    public long value() {
+        return this.v;
+    }
+
+    @Override
+    public void restore(long v) {
+        this.v = v;
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(v);
+    }
+
+    @Override
+    public int snapshotSize() {
+        return 8;
+    }
+
+    @Override
+    public void writeSnapshot(ByteBuffer buf) {
+        buf.putLong(v);
+    }
+
+    @Override
+    public void readSnapshot(ByteBuffer buf) {
+        v = buf.getLong();
+    }
+}
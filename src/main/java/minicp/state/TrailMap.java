@@ -16,9 +16,7 @@
 package minicp.state;
 
 
-import minicp.util.exception.NotImplementedException;
-
-import java.util.IdentityHashMap;
+import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -28,17 +26,35 @@ import java.util.Map;
  */
 public class TrailMap<K, V> implements StateMap<K, V> {
 
-    
+    private Trailer trail;
+    private Map<K, V> map = new HashMap<>();
 
     protected TrailMap(Trailer trail) {
-         throw new NotImplementedException("TrailMap");
+        this.trail = trail;
     }
 
     public void put(K k, V v) {
-         throw new NotImplementedException("TrailMap");
+        if (!map.containsKey(k)) {
+            trail.pushState(new StateEntry() {
+                @Override
+                public void restore() {
+                    map.remove(k);
+                }
+            });
+        } else {
+            V vOld = map.get(k);
+            if (vOld == v) return;
+            trail.pushState(new StateEntry() {
+                @Override
+                public void restore() {
+                    map.put(k, vOld);
+                }
+            });
+        }
+        map.put(k, v);
     }
 
     public V get(K k) {
-         throw new NotImplementedException("TrailMap");
+        return map.get(k);
     }
 }
@@ -18,9 +18,9 @@ package minicp.state;
 
 import minicp.util.Procedure;
 
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Stack;
 
 /**
  * StateManager that will lazily store
@@ -29,29 +29,65 @@ import java.util.Stack;
  * Only the one that effectively change are stored
  * and at most once between any to call to {@link #saveState()}.
  * This can be seen as an optimized version of {@link Copier}.
+ * <p>
+ * The trail is kept in growable arrays with one marker per level.
+ * The primitive states ({@link StateInt}, {@link StateLong}, {@link StateBool})
+ * record a (owner, old value) pair into a primitive arena such that
+ * no object is allocated when they are modified,
+ * and saving or restoring a level only moves an index.
  */
 public class Trailer implements StateManager {
 
-    static class Backup extends Stack<StateEntry> {
-        Backup() {
-        }
+    private static final int INITIAL_CAPACITY = 64;
 
-        void restore() {
-            //note that using for on a Stack gives the wrong order.
-            while (!isEmpty())
-                pop().restore();
-        }
-    }
+    // arena of the primitive entries, owners[i] is restored with values[i]
+    private PrimitiveStateEntry[] owners;
+    private long[] values;
+    private int primitiveSize;
+
+    // arena of the generic entries
+    private StateEntry[] entries;
+    private int entrySize;
+
+    // size of each arena when the corresponding level was saved
+    private int[] primitiveMarks;
+    private int[] entryMarks;
+    private int level;
 
-    private Stack<Backup> prior;
-    private Backup current;
     private long magic = 0L;
 
+    // statistics
+    private final long creationTime = System.nanoTime();
+    private long nSaves = 0;
+    private long nRestores = 0;
+    private long peakEntries = 0;
+    private long peakBytes = 0;
+    private long memoryLimit = 0;
+    // bytes held by the trails of the self-trailing data-structures
+    private long selfTrailBytes = 0;
+
     private List<Procedure> onRestoreListeners;
 
+    private final SnapshotRegistry snapshots;
+
     public Trailer() {
-        prior = new Stack<Backup>();
-        current = new Backup();
+        this(new SnapshotRegistry());
+    }
+
+    /**
+     * Creates a manager that registers the primitive states it creates
+     * in a given registry, possibly shared with another manager.
+     *
+     * @param snapshots the registry of the objects part of the snapshots
+     */
+    Trailer(SnapshotRegistry snapshots) {
+        this.snapshots = snapshots;
+        owners = new PrimitiveStateEntry[INITIAL_CAPACITY];
+        values = new long[INITIAL_CAPACITY];
+        entries = new StateEntry[INITIAL_CAPACITY];
+        primitiveMarks = new int[INITIAL_CAPACITY];
+        entryMarks = new int[INITIAL_CAPACITY];
+        level = -1;
         onRestoreListeners = new LinkedList<Procedure>();
     }
 
@@ -66,31 +102,135 @@ public class Trailer implements StateManager {
         onRestoreListeners.add(listener);
     }
 
+    @Override
     public long getMagic() {
         return magic;
     }
 
+    /**
+     * Records an entry that is restored at the next {@link #restoreState()}.
+     *
+     * @param entry the entry to restore
+     */
     public void pushState(StateEntry entry) {
-        current.push(entry);
+        if (level < 0) return; // nothing can be restored below the root level
+        if (entrySize == entries.length)
+            entries = Arrays.copyOf(entries, entrySize * 2);
+        entries[entrySize++] = entry;
+    }
+
+    /**
+     * Records a primitive value that is given back to its owner
+     * at the next {@link #restoreState()}.
+     * No object is allocated by this method (except when the arena grows).
+     *
+     * @param owner the entry to restore
+     * @param value the value to restore the owner with
+     */
+    @Override
+    public void pushState(PrimitiveStateEntry owner, long value) {
+        if (level < 0) return; // nothing can be restored below the root level
+        if (primitiveSize == owners.length) {
+            owners = Arrays.copyOf(owners, primitiveSize * 2);
+            values = Arrays.copyOf(values, primitiveSize * 2);
+        }
+        owners[primitiveSize] = owner;
+        values[primitiveSize] = value;
+        primitiveSize++;
     }
 
     @Override
     public int getLevel() {
-        return prior.size() - 1;
+        return level;
+    }
+
+    long numberOfEntries() {
+        return primitiveSize + entrySize;
+    }
+
+    long estimatedBytes() {
+        return (long) primitiveSize * StateStatistics.PRIMITIVE_ENTRY_BYTES
+                + (long) entrySize * StateStatistics.ENTRY_BYTES
+                + selfTrailBytes;
+    }
+
+    private void updatePeak() {
+        peakEntries = Math.max(peakEntries, numberOfEntries());
+        peakBytes = Math.max(peakBytes, estimatedBytes());
+    }
+
+    @Override
+    public StateStatistics getStatistics() {
+        updatePeak();
+        int[] perLevel = new int[level + 1];
+        for (int l = 0; l <= level; l++) {
+            int primitiveEnd = l < level ? primitiveMarks[l + 1] : primitiveSize;
+            int entryEnd = l < level ? entryMarks[l + 1] : entrySize;
+            perLevel[l] = primitiveEnd - primitiveMarks[l] + entryEnd - entryMarks[l];
+        }
+        return new StateStatistics(level, perLevel, numberOfEntries(), peakEntries,
+                estimatedBytes(), peakBytes, nSaves, nRestores, System.nanoTime() - creationTime);
+    }
+
+    @Override
+    public void setMemoryLimit(long bytes) {
+        memoryLimit = bytes;
+    }
+
+    @Override
+    public void accountSelfTrail(long bytes) {
+        selfTrailBytes += bytes;
+    }
+
+    @Override
+    public boolean isCopied(StateHint hint) {
+        return false;
+    }
+
+    @Override
+    public SnapshotRegistry getSnapshotRegistry() {
+        return snapshots;
     }
 
     @Override
     public void saveState() {
-        prior.add(current);
-        current = new Backup();
+        if (memoryLimit > 0 && estimatedBytes() > memoryLimit)
+            throw new StateMemoryLimitException(getStatistics());
+        nSaves++;
+        level++;
+        if (level == primitiveMarks.length) {
+            primitiveMarks = Arrays.copyOf(primitiveMarks, level * 2);
+            entryMarks = Arrays.copyOf(entryMarks, level * 2);
+        }
+        primitiveMarks[level] = primitiveSize;
+        entryMarks[level] = entrySize;
+        snapshots.mark(level);
         magic++;
     }
 
 
     @Override
     public void restoreState() {
-        current.restore();
-        current = prior.pop();
+        if (level < 0)
+            throw new IllegalStateException("no saved state to restore");
+        // the entries only decrease when a state is restored
+        updatePeak();
+        nRestores++;
+        int mark = primitiveMarks[level];
+        // restore in the reverse order of the recording
+        while (primitiveSize > mark) {
+            primitiveSize--;
+            owners[primitiveSize].restore(values[primitiveSize]);
+            owners[primitiveSize] = null;
+        }
+        mark = entryMarks[level];
+        while (entrySize > mark) {
+            entrySize--;
+            entries[entrySize].restore();
+            entries[entrySize] = null;
+        }
+        snapshots.truncate(level);
+        level--;
         magic++;
         notifyRestore();
     }
@@ -116,7 +256,23 @@ public class Trailer implements StateManager {
 
     @Override
     public StateInt makeStateInt(int initValue) {
-        return new TrailInt(this,initValue);
+        TrailInt s = new TrailInt(this, initValue);
+        snapshots.register(s);
+        return s;
+    }
+
+    @Override
+    public StateLong makeStateLong(long initValue) {
+        TrailLong s = new TrailLong(this, initValue);
+        snapshots.register(s);
+        return s;
+    }
+
+    @Override
+    public StateBool makeStateBool(boolean initValue) {
+        TrailBool s = new TrailBool(this, initValue);
+        snapshots.register(s);
+        return s;
     }
 
     @Override
@@ -19,6 +19,7 @@ package minicp.engine;
 import minicp.engine.core.MiniCP;
 import minicp.engine.core.Solver;
 import minicp.state.Copier;
+import minicp.state.Hybrid;
 import minicp.state.Trailer;
 import org.javagrader.Allow;
 import org.javagrader.Grade;
@@ -34,7 +35,7 @@ import static org.junit.jupiter.params.provider.Arguments.arguments;
 public abstract class SolverTest {
 
     public static Stream<Solver> getSolver() {
-        return Stream.of(new MiniCP(new Trailer()), new MiniCP(new Copier()));
+        return Stream.of(new MiniCP(new Trailer()), new MiniCP(new Copier()), new MiniCP(new Hybrid()), new MiniCP(new Trailer(), true));
     }
 
     public static Stream<Arguments> solverSupplier() {
@@ -44,7 +45,13 @@ public abstract class SolverTest {
                         (Supplier<Solver>) () -> new MiniCP(new Trailer()))),
                 arguments(named(
                         new MiniCP(new Copier()).toString(),
-                        (Supplier<Solver>) () -> new MiniCP(new Copier()))));
+                        (Supplier<Solver>) () -> new MiniCP(new Copier()))),
+                arguments(named(
+                        new MiniCP(new Hybrid()).toString(),
+                        (Supplier<Solver>) () -> new MiniCP(new Hybrid()))),
+                arguments(named(
+                        new MiniCP(new Trailer(), true).toString(),
+                        (Supplier<Solver>) () -> new MiniCP(new Trailer(), true))));
     }
 
 }
@@ -20,6 +20,7 @@ import minicp.engine.core.IntVar;
 import minicp.engine.core.Solver;
 import minicp.search.DFSearch;
 import minicp.search.SearchStatistics;
+import minicp.state.StateManager;
 import minicp.util.exception.InconsistencyException;
 import org.junit.jupiter.api.Timeout;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -120,4 +121,35 @@ public class Element2DTest extends SolverTest {
         }
     }
 
+    @ParameterizedTest
+    @MethodSource("getSolver")
+    public void element2dPostedInSubtrees(Solver cp) {
+        StateManager sm = cp.getStateManager();
+        IntVar x = makeIntVar(cp, 0, 3);
+        IntVar y = makeIntVar(cp, 0, 4);
+        IntVar z = makeIntVar(cp, 0, 10);
+        int[][] T = new int[][]{
+                {9, 8, 7, 5, 6},
+                {9, 1, 5, 2, 8},
+                {8, 3, 1, 4, 9},
+                {9, 1, 2, 8, 6},
+        };
+        sm.saveState();
+        long entries = sm.getStatistics().entries();
+        long bytes = sm.getStatistics().estimatedBytes();
+        for (int run = 0; run < 100; run++) {
+            sm.saveState();
+            cp.post(new Element2D(T, x, y, z));
+            z.removeAbove(7);
+            cp.fixPoint();
+            assertEquals(1, y.min());
+            sm.restoreState();
+            // the arrays of the constraint are no longer referenced by the manager
+            assertEquals(entries, sm.getStatistics().entries());
+            assertEquals(bytes, sm.getStatistics().estimatedBytes());
+            assertEquals(0, y.min());
+        }
+        sm.restoreState();
+    }
+
 }
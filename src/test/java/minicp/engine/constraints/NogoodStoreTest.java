@@ -0,0 +1,100 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+
+package minicp.engine.constraints;
+
+import minicp.engine.SolverTest;
+import minicp.engine.core.IntVar;
+import minicp.engine.core.Solver;
+import minicp.search.DFSearch;
+import minicp.search.SearchStatistics;
+import minicp.util.exception.InconsistencyException;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import static minicp.cp.BranchingScheme.firstFail;
+import static minicp.cp.Factory.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NogoodStoreTest extends SolverTest {
+
+    @ParameterizedTest
+    @MethodSource("getSolver")
+    public void testPropagation(Solver cp) {
+        IntVar[] x = makeIntVarArray(cp, 3, 4);
+        NogoodStore store = new NogoodStore(cp);
+        store.add(new IntVar[]{x[0], x[1], x[2]}, new int[]{1, 2, 3});
+        assertEquals(1, store.size());
+
+        cp.getStateManager().saveState();
+        cp.post(equal(x[0], 1));
+        assertTrue(x[2].contains(3));
+        cp.post(equal(x[2], 3));
+        assertFalse(x[1].contains(2));
+        cp.getStateManager().restoreState();
+
+        cp.getStateManager().saveState();
+        cp.post(equal(x[1], 2));
+        cp.post(equal(x[2], 3));
+        assertFalse(x[0].contains(1));
+        cp.getStateManager().restoreState();
+
+        // the watches moved during the search are still valid after backtrack
+        cp.getStateManager().saveState();
+        cp.post(equal(x[2], 3));
+        cp.post(equal(x[0], 1));
+        assertFalse(x[1].contains(2));
+        cp.getStateManager().restoreState();
+
+        for (IntVar xi : x)
+            assertEquals(4, xi.size());
+    }
+
+    @ParameterizedTest
+    @MethodSource("getSolver")
+    public void testUnitAndViolated(Solver cp) {
+        IntVar[] x = makeIntVarArray(cp, 2, 4);
+        NogoodStore store = new NogoodStore(cp);
+        store.add(new IntVar[]{x[0]}, new int[]{0});
+        assertFalse(x[0].contains(0));
+
+        cp.post(equal(x[1], 2));
+        store.add(new IntVar[]{x[1], x[0]}, new int[]{2, 3});
+        assertFalse(x[0].contains(3));
+
+        cp.post(equal(x[0], 1));
+        assertThrows(InconsistencyException.class, () -> store.add(new IntVar[]{x[0], x[1]}, new int[]{1, 2}));
+        assertThrows(InconsistencyException.class, () -> store.add(new IntVar[0], new int[0]));
+    }
+
+    @ParameterizedTest
+    @MethodSource("getSolver")
+    public void testSolutionsAreForbidden(Solver cp) {
+        IntVar[] x = makeIntVarArray(cp, 3, 3);
+        NogoodStore store = new NogoodStore(cp);
+        // forbid every solution with x0 = x1
+        for (int v = 0; v < 3; v++)
+            store.add(new IntVar[]{x[0], x[1]}, new int[]{v, v});
+        store.add(new IntVar[]{x[0], x[1], x[2]}, new int[]{0, 1, 2});
+
+        DFSearch dfs = makeDfs(cp, firstFail(x));
+        dfs.onSolution(() -> {
+            assertNotEquals(x[0].min(), x[1].min());
+            assertFalse(x[0].min() == 0 && x[1].min() == 1 && x[2].min() == 2);
+        });
+        SearchStatistics stats = dfs.solve();
+        assertEquals(3 * 2 * 3 - 1, stats.numberOfSolutions());
+    }
+}
@@ -16,10 +16,17 @@
 package minicp.engine.core;
 
 import minicp.engine.SolverTest;
+import minicp.state.StateManager;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.BiFunction;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 
 public class DomainTest extends SolverTest {
@@ -122,5 +129,176 @@ public class DomainTest extends SolverTest {
 
     }
 
+    @ParameterizedTest
+    @MethodSource("getSolver")
+    public void testBitSetDomain(Solver cp) {
+        MyDomainListener dlistener = new MyDomainListener();
+        IntDomain dom = new BitSetDomain(cp.getStateManager(), 5, 10);
+
+        dom.removeAbove(8, dlistener);
+
+        assertEquals(1, dlistener.nChange);
+        assertEquals(0, dlistener.nFix);
+        assertEquals(1, dlistener.nRemoveAbove);
+        assertEquals(0, dlistener.nRemoveBelow);
+
+        dom.remove(6, dlistener);
+        dom.remove(5, dlistener);
+
+        assertEquals(3, dlistener.nChange);
+        assertEquals(0, dlistener.nFix);
+        assertEquals(1, dlistener.nRemoveAbove);
+        assertEquals(1, dlistener.nRemoveBelow);
+
+        dom.removeAllBut(8, dlistener);
+
+        assertEquals(4, dlistener.nChange);
+        assertEquals(1, dlistener.nFix);
+        assertEquals(1, dlistener.nRemoveAbove);
+        assertEquals(2, dlistener.nRemoveBelow);
+        assertEquals(8, dom.min());
+        assertEquals(8, dom.max());
+    }
+
+    @ParameterizedTest
+    @MethodSource("getSolver")
+    public void testBitSetDomainSameAsSparseSet(Solver cp) {
+        assertSameAsSparseSet(cp, BitSetDomain.MAX_SIZE, (min, max) -> new BitSetDomain(cp.getStateManager(), min, max));
+    }
+
+    @ParameterizedTest
+    @MethodSource("getSolver")
+    public void testIntervalListDomainSameAsSparseSet(Solver cp) {
+        assertSameAsSparseSet(cp, 500, (min, max) -> new IntervalListDomain(cp.getStateManager(), min, max));
+    }
+
+    @ParameterizedTest
+    @MethodSource("getSolver")
+    public void testIntervalListDomainBoundsWithManyHoles(Solver cp) {
+        StateManager sm = cp.getStateManager();
+        MyDomainListener l = new MyDomainListener();
+        IntervalListDomain dom = new IntervalListDomain(sm, 0, 9999);
+        // 1000 intervals of 9 values
+        for (int v = 9; v < 10000; v += 10)
+            dom.remove(v, l);
+        assertEquals(1000, dom.nIntervals());
+        assertEquals(9000, dom.size());
+        Random rand = new Random(3);
+        for (int run = 0; run < 200; run++) {
+            sm.saveState();
+            int below = rand.nextInt(5000);
+            int above = 5000 + rand.nextInt(5000);
+            dom.removeBelow(below, l);
+            dom.removeAbove(above, l);
+            int expected = 0;
+            for (int v = below; v <= above; v++)
+                if (v % 10 != 9) expected++;
+            assertEquals(expected, dom.size());
+            sm.saveState();
+            dom.remove(dom.min() + 1, l);
+            dom.removeBelow(dom.min() + 25, l);
+            assertTrue(dom.size() < expected);
+            sm.restoreState();
+            assertEquals(expected, dom.size());
+            sm.restoreState();
+            assertEquals(9000, dom.size());
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("getSolver")
+    public void testIntervalListDomainsCreatedInSubtrees(Solver cp) {
+        StateManager sm = cp.getStateManager();
+        MyDomainListener l = new MyDomainListener();
+        IntervalListDomain root = new IntervalListDomain(sm, 0, 99);
+        sm.saveState();
+        long entries = sm.getStatistics().entries();
+        long bytes = sm.getStatistics().estimatedBytes();
+        for (int run = 0; run < 100; run++) {
+            sm.saveState();
+            IntervalListDomain dom = new IntervalListDomain(sm, 0, 99);
+            sm.saveState();
+            dom.remove(50, l);
+            dom.removeBelow(10, l);
+            root.remove(run, l);
+            assertEquals(2, dom.nIntervals());
+            sm.restoreState();
+            assertEquals(100, dom.size());
+            assertEquals(1, dom.nIntervals());
+            sm.restoreState();
+            // the domains created in the subtree left nothing to restore
+            assertEquals(entries, sm.getStatistics().entries());
+            assertEquals(bytes, sm.getStatistics().estimatedBytes());
+        }
+        assertEquals(100, root.size());
+        sm.restoreState();
+    }
+
+    private static void assertSameAsSparseSet(Solver cp, int maxSize, BiFunction<Integer, Integer, IntDomain> makeDomain) {
+        Random rand = new Random(7);
+        for (int run = 0; run < 50; run++) {
+            int min = rand.nextInt(200) - 100;
+            int max = min + rand.nextInt(maxSize);
+            MyDomainListener l1 = new MyDomainListener();
+            MyDomainListener l2 = new MyDomainListener();
+            IntDomain dom = makeDomain.apply(min, max);
+            IntDomain sparse = new SparseSetDomain(cp.getStateManager(), min, max);
+            int level = cp.getStateManager().getLevel();
+            int[] d1 = new int[max - min + 1];
+            int[] d2 = new int[max - min + 1];
+            while (sparse.size() > 1) {
+                cp.getStateManager().saveState();
+                int v = min - 2 + rand.nextInt(max - min + 5);
+                switch (rand.nextInt(5)) {
+                    case 0:
+                        dom.remove(v, l1);
+                        sparse.remove(v, l2);
+                        break;
+                    case 1:
+                        dom.removeBelow(v, l1);
+                        sparse.removeBelow(v, l2);
+                        break;
+                    case 2:
+                        dom.removeAbove(v, l1);
+                        sparse.removeAbove(v, l2);
+                        break;
+                    case 3:
+                        dom.remove(v, l1);
+                        sparse.remove(v, l2);
+                        assertEquals(sparse.contains(v + 1), dom.contains(v + 1));
+                        break;
+                    default:
+                        if (rand.nextInt(10) == 0) {
+                            dom.removeAllBut(v, l1);
+                            sparse.removeAllBut(v, l2);
+                        }
+                }
+                assertEquals(sparse.size(), dom.size());
+                if (sparse.size() > 0) {
+                    assertEquals(sparse.min(), dom.min());
+                    assertEquals(sparse.max(), dom.max());
+                }
+                assertEquals(sparse.toString(), dom.toString());
+                int n1 = dom.fillArray(d1);
+                int n2 = sparse.fillArray(d2);
+                assertEquals(n2, n1);
+                Arrays.sort(d2, 0, n2);
+                assertArrayEquals(Arrays.copyOf(d2, n2), Arrays.copyOf(d1, n1));
+                assertEquals(l2.nChange, l1.nChange);
+                assertEquals(l2.nFix, l1.nFix);
+                assertEquals(l2.nRemoveAbove, l1.nRemoveAbove);
+                assertEquals(l2.nRemoveBelow, l1.nRemoveBelow);
+                if (rand.nextInt(4) == 0) {
+                    cp.getStateManager().restoreState();
+                    assertEquals(sparse.toString(), dom.toString());
+                }
+            }
+            cp.getStateManager().restoreStateUntil(level);
+            assertEquals(sparse.toString(), dom.toString());
+            assertEquals(max - min + 1, dom.size());
+            assertEquals(min, dom.min());
+            assertEquals(max, dom.max());
+        }
+    }
 
 }
@@ -18,12 +18,13 @@ package minicp.engine.core;
 import minicp.engine.SolverTest;
 import minicp.search.DFSearch;
 import minicp.search.SearchStatistics;
+import minicp.util.exception.InconsistencyException;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 
 import static minicp.cp.BranchingScheme.*;
 import static minicp.cp.Factory.*;
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.*;
 
 
 public class MiniCPTest extends SolverTest {
@@ -75,5 +76,59 @@ public class MiniCPTest extends SolverTest {
         assertEquals((8 + 4 + 2),stats.numberOfNodes());
     }
 
-
+    @ParameterizedTest
+    @MethodSource("getSolver")
+    public void testFailureAttribution(Solver cp) {
+        IntVar[] x = makeIntVarArray(cp, 3, 2);
+        Constraint[] c = new Constraint[]{notEqual(x[0], x[1]), notEqual(x[1], x[2]), notEqual(x[0], x[2])};
+        for (Constraint ci : c)
+            cp.post(ci);
+        for (Constraint ci : c) {
+            assertEquals(0, ci.getWeight());
+            assertEquals(2, ci.getScopeSize());
+        }
+        assertTrue(cp.getFailedConstraints().isEmpty());
+
+        cp.getStateManager().saveState();
+        assertThrows(InconsistencyException.class, () -> cp.post(equal(x[0], 0)));
+        cp.getStateManager().restoreState();
+
+        assertEquals(1, cp.getFailedConstraints().size());
+        Constraint failed = cp.getFailedConstraints().get(0);
+        assertEquals(1, failed.getWeight());
+        int total = 0;
+        for (Constraint ci : c)
+            total += ci.getWeight();
+        assertEquals(1, total);
+
+        // a constraint is logged at its first failure only
+        cp.getStateManager().saveState();
+        assertThrows(InconsistencyException.class, () -> cp.post(equal(x[0], 0)));
+        cp.getStateManager().restoreState();
+        assertEquals(1, cp.getFailedConstraints().size());
+        assertEquals(2, failed.getWeight());
+
+        // the decisions are not weighted
+        Constraint d = equal(x[1], 0);
+        cp.getStateManager().saveState();
+        assertThrows(InconsistencyException.class, () -> cp.post(d));
+        cp.getStateManager().restoreState();
+        assertEquals(0, d.getWeight());
+        assertEquals(0, d.getScopeSize());
+        assertFalse(cp.getFailedConstraints().contains(d));
+        int nFailed = cp.getFailedConstraints().size();
+
+        // a model built above the root level is weighted
+        IntVar[] y = makeIntVarArray(cp, 2, 2);
+        cp.getStateManager().saveState();
+        Constraint e = notEqual(y[0], y[1]);
+        cp.post(e);
+        assertEquals(2, e.getScopeSize());
+        y[0].fix(0);
+        y[1].fix(0);
+        assertThrows(InconsistencyException.class, () -> cp.fixPoint());
+        cp.getStateManager().restoreState();
+        assertEquals(1, e.getWeight());
+        assertEquals(nFailed + 1, cp.getFailedConstraints().size());
+    }
 }
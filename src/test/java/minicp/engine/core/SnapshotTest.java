@@ -0,0 +1,208 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+package minicp.engine.core;
+
+import minicp.engine.SolverTest;
+import minicp.engine.constraints.AllDifferentFWC;
+import minicp.engine.constraints.IsOr;
+import minicp.engine.constraints.Sum;
+import minicp.engine.constraints.TableCT;
+import minicp.search.DFSearch;
+import minicp.search.SearchStatistics;
+import minicp.state.Copier;
+import minicp.state.Snapshot;
+import minicp.state.StateIntMap;
+import minicp.state.StateUnionFind;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static minicp.cp.BranchingScheme.firstFail;
+import static minicp.cp.Factory.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SnapshotTest extends SolverTest {
+
+    private static class Model {
+        final Solver cp;
+        final IntVar[] x;
+        final IntVar s;
+        final IntVar big;
+        final IntVar intervals;
+        final BoolVar[] b;
+        final BoolVar or;
+        final StateIntMap map;
+        final StateUnionFind uf;
+
+        Model(Solver cp) {
+            this.cp = cp;
+            x = makeIntVarArray(cp, 6, 8);
+            s = makeIntVar(cp, 0, 40);
+            big = makeIntVar(cp, 0, 1000);
+            intervals = makeIntervalListIntVar(cp, 0, 100000);
+            b = new BoolVar[]{makeBoolVar(cp), makeBoolVar(cp), makeBoolVar(cp)};
+            or = makeBoolVar(cp);
+            map = new StateIntMap(cp.getStateManager());
+            uf = new StateUnionFind(cp.getStateManager(), 8);
+            cp.post(new AllDifferentFWC(x));
+            cp.post(new Sum(x, s));
+            int[][] tuples = {{0, 1, 2}, {1, 2, 3}, {2, 3, 4}, {3, 4, 5}, {1, 3, 5}, {5, 4, 3}};
+            cp.post(new TableCT(new IntVar[]{x[3], x[4], x[5]}, tuples));
+            cp.post(new IsOr(or, b));
+        }
+
+        String describe() {
+            return Arrays.toString(x) + " " + s + " " + big + " " + intervals + " " + Arrays.toString(b) + " " + or
+                    + " " + map + " " + uf.nSets() + " " + uf.sameSet(1, 5) + " " + uf.sameSet(2, 6);
+        }
+
+        List<String> solutions() {
+            List<String> solutions = new ArrayList<>();
+            DFSearch dfs = makeDfs(cp, firstFail(x));
+            dfs.onSolution(() -> solutions.add(Arrays.toString(x) + " " + s));
+            dfs.solve();
+            return solutions;
+        }
+
+        /**
+         * Brings the model in a state that the constructor does not reach,
+         * without posting constraints since they would not be in the other model.
+         */
+        void propagate() {
+            x[0].remove(0);
+            x[1].remove(7);
+            b[1].fix(false);
+            cp.fixPoint();
+            big.remove(500);
+            big.removeAbove(900);
+            intervals.remove(50);
+            intervals.remove(60000);
+            intervals.removeBelow(10);
+            map.put(3, 4);
+            map.put(7, 1);
+            uf.union(1, 5);
+        }
+
+        /**
+         * Modifies the model at a level above the root.
+         */
+        void propagateAboveRoot() {
+            cp.getStateManager().saveState();
+            x[2].remove(1);
+            cp.fixPoint();
+            big.remove(10);
+            intervals.remove(70);
+            map.put(3, 9);
+            uf.union(2, 6);
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("solverSupplier")
+    public void testLoadInIdenticalModel(Supplier<Solver> solver, @TempDir Path dir) throws IOException {
+        Path file = dir.resolve("model.snapshot");
+        Model source = new Model(solver.get());
+        source.propagate();
+        source.propagateAboveRoot();
+        Snapshot.save(source.cp.getStateManager(), file);
+
+        Model target = new Model(solver.get());
+        Snapshot.load(target.cp.getStateManager(), file);
+        assertEquals(-1, target.cp.getStateManager().getLevel());
+        assertEquals(source.describe(), target.describe());
+        // the constraints of both models are in the same state
+        List<String> solutions = source.solutions();
+        assertFalse(solutions.isEmpty());
+        assertEquals(solutions, target.solutions());
+        assertEquals(source.describe(), target.describe());
+
+        // the loaded state is the root state of the target
+        target.cp.getStateManager().saveState();
+        target.map.put(7, 2);
+        target.intervals.remove(90);
+        target.big.remove(20);
+        target.cp.getStateManager().restoreState();
+        assertEquals(source.describe(), target.describe());
+    }
+
+    @ParameterizedTest
+    @MethodSource("solverSupplier")
+    public void testLoadWithAnotherManager(Supplier<Solver> solver, @TempDir Path dir) throws IOException {
+        Path file = dir.resolve("model.snapshot");
+        Model source = new Model(solver.get());
+        source.propagate();
+        Snapshot.save(source.cp.getStateManager(), file);
+
+        Model target = new Model(new MiniCP(new Copier(), source.cp.getVarStore() != null));
+        Snapshot.load(target.cp.getStateManager(), file);
+        assertEquals(source.describe(), target.describe());
+        assertEquals(source.solutions(), target.solutions());
+    }
+
+    @ParameterizedTest
+    @MethodSource("solverSupplier")
+    public void testLoadInDifferentModel(Supplier<Solver> solver, @TempDir Path dir) throws IOException {
+        Path file = dir.resolve("model.snapshot");
+        Model source = new Model(solver.get());
+        Snapshot.save(source.cp.getStateManager(), file);
+
+        Solver cp = solver.get();
+        new Model(cp);
+        makeIntVar(cp, 0, 3);
+        assertThrows(IllegalArgumentException.class, () -> Snapshot.load(cp.getStateManager(), file));
+    }
+
+    @ParameterizedTest
+    @MethodSource("solverSupplier")
+    public void testLoadAboveRoot(Supplier<Solver> solver, @TempDir Path dir) throws IOException {
+        Path file = dir.resolve("model.snapshot");
+        Model source = new Model(solver.get());
+        Snapshot.save(source.cp.getStateManager(), file);
+
+        Model target = new Model(solver.get());
+        target.cp.getStateManager().saveState();
+        assertThrows(IllegalStateException.class, () -> Snapshot.load(target.cp.getStateManager(), file));
+    }
+
+    @ParameterizedTest
+    @MethodSource("solverSupplier")
+    public void testRegistryDoesNotGrowWithSearch(Supplier<Solver> solver) {
+        Model model = new Model(solver.get());
+        DFSearch dfs = makeDfs(model.cp, firstFail(model.x));
+        int size = model.cp.getStateManager().getSnapshotRegistry().size();
+        // each decision posts a constraint whose states are created during the search
+        SearchStatistics stats = dfs.solve();
+        assertTrue(stats.numberOfNodes() > 10);
+        assertEquals(size, model.cp.getStateManager().getSnapshotRegistry().size());
+    }
+
+    @Test
+    public void testNotASnapshot(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("model.snapshot");
+        Files.write(file, new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20, 21, 22, 23, 24});
+        Solver cp = makeSolver();
+        new Model(cp);
+        assertThrows(IOException.class, () -> Snapshot.load(cp.getStateManager(), file));
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+package minicp.engine.core;
+
+import minicp.state.Copier;
+import minicp.state.Hybrid;
+import minicp.state.StateManager;
+import minicp.state.Trailer;
+import minicp.util.exception.InconsistencyException;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static minicp.cp.Factory.makeIntVar;
+import static minicp.cp.Factory.notEqual;
+import static minicp.cp.Factory.sum;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VarStoreTest {
+
+    private static class Events {
+        int fix, bound, domain;
+
+        void listen(IntVar x) {
+            x.whenFixed(() -> fix++);
+            x.whenBoundChange(() -> bound++);
+            x.whenDomainChange(() -> domain++);
+        }
+
+        @Override
+        public String toString() {
+            return fix + " " + bound + " " + domain;
+        }
+    }
+
+    @Test
+    public void testSameAsIntVarImpl() {
+        Random rand = new Random(4242);
+        Solver stored = new MiniCP(new Trailer(), true);
+        Solver plain = new MiniCP(new Trailer());
+        int n = 20;
+        IntVar[] x = new IntVar[n];
+        IntVar[] y = new IntVar[n];
+        Events[] ex = new Events[n];
+        Events[] ey = new Events[n];
+        for (int i = 0; i < n; i++) {
+            int min = rand.nextInt(20) - 10;
+            int max = min + rand.nextInt(40);
+            x[i] = makeIntVar(stored, min, max);
+            y[i] = makeIntVar(plain, min, max);
+            assertEquals(StoredIntVar.class, x[i].getClass());
+            ex[i] = new Events();
+            ey[i] = new Events();
+            ex[i].listen(x[i]);
+            ey[i].listen(y[i]);
+        }
+        StateManager smx = stored.getStateManager();
+        StateManager smy = plain.getStateManager();
+        // a failure at the root would end the test
+        smx.saveState();
+        smy.saveState();
+        for (int step = 0; step < 20000; step++) {
+            int op = rand.nextInt(10);
+            if (op == 0 && smx.getLevel() < 30) {
+                smx.saveState();
+                smy.saveState();
+            } else if (op == 1 && smx.getLevel() > 0) {
+                smx.restoreState();
+                smy.restoreState();
+            } else {
+                int i = rand.nextInt(n);
+                int v = x[i].min() + rand.nextInt(x[i].max() - x[i].min() + 3) - 1;
+                boolean fx = false, fy = false;
+                try {
+                    apply(op, x[i], v);
+                    stored.fixPoint();
+                } catch (InconsistencyException e) {
+                    fx = true;
+                }
+                try {
+                    apply(op, y[i], v);
+                    plain.fixPoint();
+                } catch (InconsistencyException e) {
+                    fy = true;
+                }
+                assertEquals(fy, fx);
+                if (fx) {
+                    smx.restoreState();
+                    smy.restoreState();
+                    if (smx.getLevel() < 0) {
+                        smx.saveState();
+                        smy.saveState();
+                    }
+                }
+            }
+            for (int i = 0; i < n; i++) {
+                assertEquals(y[i].toString(), x[i].toString());
+                assertEquals(y[i].size(), x[i].size());
+                assertEquals(y[i].min(), x[i].min());
+                assertEquals(y[i].max(), x[i].max());
+                assertEquals(ey[i].toString(), ex[i].toString());
+            }
+        }
+    }
+
+    private static void apply(int op, IntVar x, int v) {
+        switch (op % 4) {
+            case 0:
+                x.remove(v);
+                break;
+            case 1:
+                x.removeBelow(v);
+                break;
+            case 2:
+                x.removeAbove(v);
+                break;
+            default:
+                if (op == 3) x.fix(v);
+                else x.remove(v);
+        }
+    }
+
+    @Test
+    public void testLargeDomainIsNotStored() {
+        Solver cp = new MiniCP(new Trailer(), true);
+        IntVar x = makeIntVar(cp, 0, VarStore.MAX_DOMAIN_SIZE);
+        assertEquals(IntVarImpl.class, x.getClass());
+        IntVar y = makeIntVar(cp, 0, VarStore.MAX_DOMAIN_SIZE - 1);
+        assertEquals(StoredIntVar.class, y.getClass());
+        assertEquals(1, cp.getVarStore().size());
+    }
+
+    @Test
+    public void testVariablesCreatedInSubtreesAreDiscarded() {
+        for (StateManager sm : new StateManager[]{new Trailer(), new Copier(), new Hybrid()}) {
+            Solver cp = new MiniCP(sm, true);
+            IntVar[] x = new IntVar[]{makeIntVar(cp, 0, 9), makeIntVar(cp, 0, 9)};
+            VarStore store = cp.getVarStore();
+            sm.saveState();
+            for (int run = 0; run < 100; run++) {
+                sm.saveState();
+                // an auxiliary variable and a variable created in a neighborhood
+                IntVar s = sum(x);
+                IntVar y = makeIntVar(cp, 0, 9);
+                cp.post(notEqual(y, x[0]));
+                x[0].fix(run % 10);
+                cp.fixPoint();
+                assertFalse(y.contains(run % 10));
+                assertEquals(run % 10, s.min());
+                assertEquals(4, store.size());
+                sm.restoreState();
+                assertEquals(2, store.size());
+                assertEquals(10, x[0].size());
+            }
+            sm.restoreState();
+            // the ids of the discarded variables are reused
+            IntVar z = makeIntVar(cp, 5, 7);
+            assertEquals(3, store.size());
+            assertEquals(3, z.size());
+            assertEquals(5, z.min());
+        }
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+package minicp.search;
+
+import minicp.engine.constraints.AllDifferentBinary;
+import minicp.engine.core.IntVar;
+import minicp.engine.core.Solver;
+import org.junit.jupiter.api.Test;
+
+import static minicp.cp.Factory.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ActivityBasedSearchTest {
+
+    @Test
+    public void testActivities() {
+        Solver cp = makeSolver();
+        IntVar[] free = makeIntVarArray(cp, 3, 5);
+        IntVar[] linked = makeIntVarArray(cp, 3, 5);
+        cp.post(new AllDifferentBinary(linked));
+        IntVar[] x = new IntVar[]{free[0], free[1], free[2], linked[0], linked[1], linked[2]};
+        ActivityBasedSearch abs = new ActivityBasedSearch(x, 0.99, 20, 1);
+        abs.get(); // probing at the root
+        // assigning a free variable only modifies its own domain
+        for (int i = 0; i < 3; i++)
+            for (int j = 3; j < 6; j++)
+                assertTrue(abs.activity(i) < abs.activity(j));
+        assertThrows(IllegalArgumentException.class, () -> new ActivityBasedSearch(x, 1.5, 0, 0));
+    }
+}
@@ -30,6 +30,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -282,7 +283,6 @@ public class DFSearchTest extends StateManagerTest {
     @ParameterizedTest
     @MethodSource("getStateManager")
     @Order(2)
-    @Disabled
     public void testDeepDFS(StateManager sm) {
 
         StateInt i = sm.makeStateInt(0);
@@ -339,4 +339,59 @@ public class DFSearchTest extends StateManagerTest {
 
         dfs.solve();
     }
+
+    @ParameterizedTest
+    @MethodSource("getStateManager")
+    public void testListenersAndLevels(StateManager sm) {
+        StateInt depth = sm.makeStateInt(0);
+        List<String> events = new LinkedList<>();
+        // binary tree of depth 2 whose leftmost leaf fails
+        DFSearch dfs = new DFSearch(sm, () -> {
+            if (depth.value() == 2)
+                return EMPTY;
+            int level = sm.getLevel();
+            return branch(
+                    () -> {
+                        assertEquals(level + 1, sm.getLevel());
+                        depth.increment();
+                        if (depth.value() == 2 && events.size() == 2)
+                            throw InconsistencyException.INCONSISTENCY;
+                    },
+                    () -> {
+                        assertEquals(level + 1, sm.getLevel());
+                        depth.increment();
+                    });
+        });
+        dfs.addListener(new DFSListener() {
+            @Override
+            public void solution(int parentId, int id, int position) {
+                events.add("solution " + parentId + " " + id + " " + position);
+            }
+
+            @Override
+            public void fail(int parentId, int id, int position) {
+                events.add("fail " + parentId + " " + id + " " + position);
+            }
+
+            @Override
+            public void branch(int parentId, int id, int position, int nChilds) {
+                events.add("branch " + parentId + " " + id + " " + position + " " + nChilds);
+            }
+        });
+        int level = sm.getLevel();
+        SearchStatistics stats = dfs.solve();
+        assertEquals(level, sm.getLevel());
+        assertEquals(0, depth.value());
+        assertEquals(3, stats.numberOfSolutions());
+        assertEquals(1, stats.numberOfFailures());
+        assertEquals(6, stats.numberOfNodes());
+        assertEquals(Arrays.asList(
+                "branch -1 0 -1 2",
+                "branch 0 1 0 2",
+                "fail 0 1 0",
+                "solution 1 3 1",
+                "branch 0 4 1 2",
+                "solution 4 5 0",
+                "solution 4 6 1"), events);
+    }
 }
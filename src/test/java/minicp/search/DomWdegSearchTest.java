@@ -0,0 +1,135 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+package minicp.search;
+
+import minicp.engine.constraints.AllDifferentBinary;
+import minicp.engine.constraints.Or;
+import minicp.engine.core.BoolVar;
+import minicp.engine.core.Constraint;
+import minicp.engine.core.IntVar;
+import minicp.engine.core.Solver;
+import minicp.util.Procedure;
+import org.junit.jupiter.api.Test;
+
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static minicp.cp.BranchingScheme.domWdeg;
+import static minicp.cp.BranchingScheme.firstFail;
+import static minicp.cp.Factory.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DomWdegSearchTest {
+
+    @Test
+    public void testQueens() {
+        Solver cp = makeSolver();
+        int n = 8;
+        IntVar[] q = makeIntVarArray(cp, n, n);
+        for (int i = 0; i < n; i++)
+            for (int j = i + 1; j < n; j++) {
+                cp.post(notEqual(q[i], q[j]));
+                cp.post(notEqual(q[i], q[j], j - i));
+                cp.post(notEqual(q[i], q[j], i - j));
+            }
+        SearchStatistics stats = makeDfs(cp, domWdeg(q)).solve();
+        assertEquals(92, stats.numberOfSolutions());
+        assertTrue(stats.isCompleted());
+    }
+
+    /**
+     * Free variables with small domains hide an infeasible pigeonhole subproblem.
+     */
+    private static SearchStatistics pigeonhole(Function<IntVar[], Supplier<Procedure[]>> branching) {
+        Solver cp = makeSolver();
+        IntVar[] free = makeIntVarArray(cp, 6, 3);
+        IntVar[] pigeons = makeIntVarArray(cp, 5, 4);
+        cp.post(new AllDifferentBinary(pigeons));
+        IntVar[] x = new IntVar[11];
+        System.arraycopy(free, 0, x, 0, 6);
+        System.arraycopy(pigeons, 0, x, 6, 5);
+        return makeDfs(cp, branching.apply(x)).solve();
+    }
+
+    @Test
+    public void testLearnsFromFailures() {
+        SearchStatistics ff = pigeonhole(x -> firstFail(x));
+        SearchStatistics wdeg = pigeonhole(x -> domWdeg(x));
+        assertEquals(0, ff.numberOfSolutions());
+        assertEquals(0, wdeg.numberOfSolutions());
+        assertTrue(wdeg.isCompleted());
+        assertTrue(wdeg.numberOfNodes() * 10 < ff.numberOfNodes());
+    }
+
+    @Test
+    public void testWeightedDegrees() {
+        Solver cp = makeSolver();
+        IntVar[] x = makeIntVarArray(cp, 3, 2);
+        BoolVar b = makeBoolVar(cp);
+        cp.post(notEqual(x[0], x[1]));
+        cp.post(notEqual(x[1], x[2]));
+        cp.post(notEqual(x[0], x[2]));
+        cp.post(new Or(new BoolVar[]{b, isEqual(x[0], 0), isEqual(x[1], 1)}));
+        DomWdegSearch search = new DomWdegSearch(x);
+        for (int i = 0; i < 3; i++)
+            assertEquals(1, search.weightedDegree(i));
+
+        SearchStatistics stats = makeDfs(cp, search).solve();
+        assertEquals(0, stats.numberOfSolutions());
+        long total = 0;
+        for (int i = 0; i < 3; i++)
+            total += search.weightedDegree(i) - 1;
+        assertTrue(total > 0);
+        int nFailed = cp.getFailedConstraints().size();
+
+        // the weights are kept by the constraints and shared by a new search
+        DomWdegSearch again = new DomWdegSearch(x);
+        for (int i = 0; i < 3; i++)
+            assertEquals(search.weightedDegree(i), again.weightedDegree(i));
+        makeDfs(cp, again).solve();
+        assertTrue(cp.getFailedConstraints().size() >= nFailed);
+
+        // the constraints that are no longer active do not count
+        cp.getStateManager().saveState();
+        for (Constraint c : cp.getFailedConstraints())
+            c.setActive(false);
+        for (int i = 0; i < 3; i++)
+            assertEquals(1, again.weightedDegree(i));
+        cp.getStateManager().restoreState();
+        assertTrue(again.weightedDegree(0) > 1 || again.weightedDegree(1) > 1 || again.weightedDegree(2) > 1);
+    }
+
+    @Test
+    public void testScopeOfWatchedLiterals() {
+        Solver cp = makeSolver();
+        BoolVar[] b = new BoolVar[]{makeBoolVar(cp), makeBoolVar(cp), makeBoolVar(cp), makeBoolVar(cp)};
+        Or or = new Or(b);
+        cp.post(or);
+        int size = or.getScopeSize();
+        for (BoolVar bi : b) {
+            boolean found = false;
+            for (int k = 0; k < size; k++)
+                found |= or.getScopeVariable(k) == bi;
+            assertTrue(found);
+        }
+        // the watched literals move during the search without changing the scope
+        cp.getStateManager().saveState();
+        b[0].fix(false);
+        b[1].fix(false);
+        cp.fixPoint();
+        assertEquals(size, or.getScopeSize());
+        cp.getStateManager().restoreState();
+    }
+}
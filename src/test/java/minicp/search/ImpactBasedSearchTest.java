@@ -0,0 +1,44 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+package minicp.search;
+
+import minicp.engine.core.IntVar;
+import minicp.engine.core.Solver;
+import minicp.util.Procedure;
+import org.junit.jupiter.api.Test;
+
+import static minicp.cp.Factory.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ImpactBasedSearchTest {
+
+    @Test
+    public void testImpacts() {
+        Solver cp = makeSolver();
+        IntVar x = makeIntVar(cp, 0, 3);
+        IntVar y = makeIntVar(cp, 0, 3);
+        cp.post(lessOrEqual(x, y));
+        ImpactBasedSearch ibs = new ImpactBasedSearch(new IntVar[]{x, y}, 1.0, 0, 0);
+        Procedure[] branches = ibs.get();
+        // x is selected first (ties) with its value 0 of unknown impact
+        cp.getStateManager().saveState();
+        branches[0].call();
+        cp.getStateManager().restoreState();
+        // x = 0: P goes from 16 to 4
+        assertEquals(0.75, ibs.impact(0, 0), 1e-9);
+        assertEquals(0, ibs.impact(0, 3));
+        assertThrows(IllegalArgumentException.class, () -> new ImpactBasedSearch(new IntVar[]{x}, 0, 0, 0));
+    }
+}
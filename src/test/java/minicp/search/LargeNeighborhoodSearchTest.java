@@ -0,0 +1,207 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+package minicp.search;
+
+import minicp.engine.core.IntVar;
+import minicp.engine.core.Solver;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static minicp.cp.BranchingScheme.firstFail;
+import static minicp.cp.Factory.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LargeNeighborhoodSearchTest {
+
+    /**
+     * Small random quadratic assignment problem.
+     */
+    private static class QAP {
+        final int n;
+        final int[][] w;
+        final int[][] d;
+        final Solver cp;
+        final IntVar[] x;
+        final IntVar cost;
+
+        QAP(int n, long seed) {
+            this.n = n;
+            Random rand = new Random(seed);
+            w = new int[n][n];
+            d = new int[n][n];
+            for (int i = 0; i < n; i++)
+                for (int j = 0; j < n; j++) {
+                    w[i][j] = i == j ? 0 : rand.nextInt(10);
+                    d[i][j] = i == j ? 0 : 1 + rand.nextInt(10);
+                }
+            cp = makeSolver();
+            x = makeIntVarArray(cp, n, n);
+            cp.post(allDifferent(x));
+            IntVar[] weightedDist = new IntVar[n * n];
+            for (int i = 0; i < n; i++)
+                for (int j = 0; j < n; j++)
+                    weightedDist[i * n + j] = mul(element(d, x[i], x[j]), w[i][j]);
+            cost = sum(weightedDist);
+        }
+
+        int evaluate(int[] sol) {
+            int c = 0;
+            for (int i = 0; i < n; i++)
+                for (int j = 0; j < n; j++)
+                    c += w[i][j] * d[sol[i]][sol[j]];
+            return c;
+        }
+
+        int contribution(int[] sol, int i) {
+            int c = 0;
+            for (int j = 0; j < n; j++)
+                c += w[i][j] * d[sol[i]][sol[j]];
+            return c;
+        }
+
+        int optimum() {
+            int[] best = new int[]{Integer.MAX_VALUE};
+            DFSearch dfs = makeDfs(cp, firstFail(x));
+            dfs.onSolution(() -> best[0] = cost.min());
+            dfs.optimize(cp.minimize(cost));
+            return best[0];
+        }
+    }
+
+    private static void assertPermutation(int[] sol) {
+        boolean[] used = new boolean[sol.length];
+        for (int v : sol) {
+            assertFalse(used[v]);
+            used[v] = true;
+        }
+    }
+
+    @Test
+    public void testEachRelaxation() {
+        for (int k = 0; k < 4; k++) {
+            QAP qap = new QAP(9, 1);
+            LargeNeighborhoodSearch.Relaxation relaxation =
+                    k == 0 ? LargeNeighborhoodSearch.random(qap.x)
+                    : k == 1 ? LargeNeighborhoodSearch.propagationGuided(qap.x)
+                    : k == 2 ? LargeNeighborhoodSearch.segment(qap.x)
+                    : LargeNeighborhoodSearch.objectiveGuided(qap.x, qap::contribution);
+            LargeNeighborhoodSearch lns = new LargeNeighborhoodSearch(makeDfs(qap.cp, firstFail(qap.x)), qap.x, qap.cost)
+                    .addRelaxation(relaxation)
+                    .setFailureLimit(50)
+                    .setIterationLimit(100);
+            List<Integer> objectives = new ArrayList<>();
+            lns.onSolution(() -> objectives.add(qap.cost.min()));
+            SearchStatistics stats = lns.optimize();
+
+            assertTrue(objectives.size() > 1);
+            for (int i = 1; i < objectives.size(); i++)
+                assertTrue(objectives.get(i) < objectives.get(i - 1));
+            int[] best = lns.getBestSolution();
+            assertPermutation(best);
+            assertEquals(qap.evaluate(best), lns.getBestObjective());
+            assertEquals(objectives.get(objectives.size() - 1), lns.getBestObjective());
+            assertTrue(stats.isCompleted() || lns.numberOfIterations() == 100);
+            // the state is restored after the search
+            for (IntVar xi : qap.x)
+                assertEquals(9, xi.size());
+        }
+    }
+
+    @Test
+    public void testPropagationGuidedFixesInteractingVariables() {
+        // pairs x[2k] <= x[2k+1] with the value 5 in the best solution,
+        // fixing one variable of a pair reduces the domain of the other one
+        Solver cp = makeSolver();
+        IntVar[] x = makeIntVarArray(cp, 10, 10);
+        for (int k = 0; k < 5; k++)
+            cp.post(lessOrEqual(x[2 * k], x[2 * k + 1]));
+        int[] best = new int[10];
+        Arrays.fill(best, 5);
+        LargeNeighborhoodSearch.Relaxation op = LargeNeighborhoodSearch.propagationGuided(x);
+        for (int seed = 0; seed < 50; seed++) {
+            Random rand = new Random(seed);
+            cp.getStateManager().withNewState(() -> {
+                op.relax(best, 0.6, rand);
+                // two pairs are fixed, the next variable being the partner of the previous one
+                int fixed = 0;
+                for (int k = 0; k < 5; k++) {
+                    assertEquals(x[2 * k].isFixed(), x[2 * k + 1].isFixed());
+                    if (x[2 * k].isFixed()) fixed++;
+                }
+                assertEquals(2, fixed);
+            });
+        }
+        for (IntVar xi : x)
+            assertEquals(10, xi.size());
+    }
+
+    @Test
+    public void testReproducible() {
+        List<List<Integer>> runs = new ArrayList<>();
+        for (int run = 0; run < 2; run++) {
+            QAP qap = new QAP(10, 2);
+            LargeNeighborhoodSearch lns = new LargeNeighborhoodSearch(makeDfs(qap.cp, firstFail(qap.x)), qap.x, qap.cost)
+                    .addRelaxation(LargeNeighborhoodSearch.random(qap.x))
+                    .addRelaxation(LargeNeighborhoodSearch.segment(qap.x))
+                    .addRelaxation(LargeNeighborhoodSearch.objectiveGuided(qap.x, qap::contribution))
+                    .setSeed(42)
+                    .setIterationLimit(60);
+            List<Integer> objectives = new ArrayList<>();
+            lns.onSolution(() -> objectives.add(qap.cost.min()));
+            lns.optimize();
+            runs.add(objectives);
+        }
+        assertEquals(runs.get(0), runs.get(1));
+    }
+
+    @Test
+    public void testProvesOptimality() {
+        QAP qap = new QAP(6, 3);
+        int optimum = new QAP(6, 3).optimum();
+        LargeNeighborhoodSearch lns = new LargeNeighborhoodSearch(makeDfs(qap.cp, firstFail(qap.x)), qap.x, qap.cost)
+                .addRelaxation(LargeNeighborhoodSearch.random(qap.x))
+                .setRelaxationSize(0.5, 0.1, 1.0)
+                .setFailureLimit(100000);
+        SearchStatistics stats = lns.optimize();
+        assertTrue(stats.isCompleted());
+        assertEquals(optimum, lns.getBestObjective());
+    }
+
+    @Test
+    public void testTimeLimit() {
+        QAP qap = new QAP(14, 4);
+        LargeNeighborhoodSearch lns = new LargeNeighborhoodSearch(makeDfs(qap.cp, firstFail(qap.x)), qap.x, qap.cost)
+                .addRelaxation(LargeNeighborhoodSearch.propagationGuided(qap.x))
+                .setTimeLimit(200);
+        long start = System.currentTimeMillis();
+        SearchStatistics stats = lns.optimize();
+        assertTrue(System.currentTimeMillis() - start < 5000);
+        assertFalse(stats.isCompleted());
+        assertPermutation(lns.getBestSolution());
+    }
+
+    @Test
+    public void testInvalidSizes() {
+        QAP qap = new QAP(4, 5);
+        LargeNeighborhoodSearch lns = new LargeNeighborhoodSearch(makeDfs(qap.cp, firstFail(qap.x)), qap.x, qap.cost);
+        assertThrows(IllegalArgumentException.class, () -> lns.setRelaxationSize(0.5, 0.6, 1));
+        assertThrows(IllegalArgumentException.class, () -> lns.setRelaxationSize(0.5, 0.1, 1.5));
+        assertThrows(IllegalStateException.class, lns::getBestSolution);
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+package minicp.search;
+
+import minicp.engine.constraints.AllDifferentBinary;
+import minicp.engine.core.IntVar;
+import minicp.engine.core.MiniCP;
+import minicp.engine.core.Solver;
+import minicp.state.Copier;
+import minicp.state.Recomputer;
+import minicp.util.Procedure;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static minicp.cp.BranchingScheme.*;
+import static minicp.cp.Factory.*;
+import static minicp.search.SearchModels.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Named.named;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+/**
+ * Behaviour shared by the heuristics that learn from the propagation
+ * (see {@link ActivityBasedSearchTest} and {@link ImpactBasedSearchTest}
+ * for the specific ones).
+ */
+public class LearningSearchTest {
+
+    public static Stream<Arguments> getBranching() {
+        return Stream.of(
+                arguments(named("activityBasedSearch",
+                        (Function<IntVar[], Supplier<Procedure[]>>) x -> activityBasedSearch(x))),
+                arguments(named("impactBasedSearch",
+                        (Function<IntVar[], Supplier<Procedure[]>>) x -> impactBasedSearch(x))));
+    }
+
+    @ParameterizedTest
+    @MethodSource("getBranching")
+    public void testQueens(Function<IntVar[], Supplier<Procedure[]>> branching) {
+        Solver cp = makeSolver();
+        IntVar[] q = queens(cp, 8);
+        Set<String> solutions = new HashSet<>();
+        DFSearch dfs = makeDfs(cp, branching.apply(q));
+        dfs.onSolution(() -> assertTrue(solutions.add(Arrays.toString(q))));
+        SearchStatistics stats = dfs.solve();
+        assertEquals(92, stats.numberOfSolutions());
+        assertEquals(92, solutions.size());
+        // the probing at the root leaves the state unchanged
+        for (IntVar x : q)
+            assertEquals(8, x.size());
+    }
+
+    @ParameterizedTest
+    @MethodSource("getBranching")
+    public void testRecomputation(Function<IntVar[], Supplier<Procedure[]>> branching) {
+        long[] nodes = new long[2];
+        for (int k = 0; k < 2; k++) {
+            Solver cp = k == 0 ? makeSolver() : new MiniCP(new Recomputer(new Copier(), 4, 4, 1.0));
+            IntVar[] q = queens(cp, 8);
+            Set<String> solutions = new HashSet<>();
+            DFSearch dfs = makeDfs(cp, branching.apply(q));
+            dfs.onSolution(() -> assertTrue(solutions.add(Arrays.toString(q))));
+            SearchStatistics stats = dfs.solve();
+            assertEquals(92, solutions.size());
+            nodes[k] = stats.numberOfNodes();
+        }
+        // the replayed decisions apply the recorded values and learn nothing
+        assertEquals(nodes[0], nodes[1]);
+    }
+
+    @ParameterizedTest
+    @MethodSource("getBranching")
+    public void testOptimize(Function<IntVar[], Supplier<Procedure[]>> branching) {
+        int[] optimum = new int[2];
+        for (int k = 0; k < 2; k++) {
+            Solver cp = makeSolver();
+            IntVar[] q = queens(cp, 8);
+            IntVar obj = weightedSum(q);
+            DFSearch dfs = makeDfs(cp, k == 0 ? firstFail(q) : branching.apply(q));
+            int kk = k;
+            dfs.onSolution(() -> optimum[kk] = obj.min());
+            assertTrue(dfs.optimize(cp.minimize(obj)).isCompleted());
+        }
+        assertEquals(optimum[0], optimum[1]);
+    }
+
+    /**
+     * Free variables with small domains hide an infeasible pigeonhole subproblem.
+     */
+    private static SearchStatistics pigeonhole(Function<IntVar[], Supplier<Procedure[]>> branching) {
+        Solver cp = makeSolver();
+        IntVar[] free = makeIntVarArray(cp, 6, 3);
+        IntVar[] pigeons = makeIntVarArray(cp, 5, 4);
+        cp.post(new AllDifferentBinary(pigeons));
+        IntVar[] x = new IntVar[11];
+        System.arraycopy(free, 0, x, 0, 6);
+        System.arraycopy(pigeons, 0, x, 6, 5);
+        return makeDfs(cp, branching.apply(x)).solve();
+    }
+
+    @ParameterizedTest
+    @MethodSource("getBranching")
+    public void testLearnsFromPropagation(Function<IntVar[], Supplier<Procedure[]>> branching) {
+        SearchStatistics ff = pigeonhole(x -> firstFail(x));
+        SearchStatistics learned = pigeonhole(branching);
+        assertEquals(0, learned.numberOfSolutions());
+        assertTrue(learned.isCompleted());
+        assertTrue(learned.numberOfNodes() * 10 < ff.numberOfNodes());
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+package minicp.search;
+
+import minicp.engine.core.IntVar;
+import minicp.engine.core.Solver;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import static minicp.cp.BranchingScheme.firstFail;
+import static minicp.cp.Factory.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParallelLargeNeighborhoodSearchTest {
+
+    private static int[][] matrix(int n, Random rand, int offset) {
+        int[][] m = new int[n][n];
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < n; j++)
+                m[i][j] = i == j ? 0 : offset + rand.nextInt(10);
+        return m;
+    }
+
+    private static int evaluate(int[][] w, int[][] d, int[] sol) {
+        int c = 0;
+        for (int i = 0; i < sol.length; i++)
+            for (int j = 0; j < sol.length; j++)
+                c += w[i][j] * d[sol[i]][sol[j]];
+        return c;
+    }
+
+    /**
+     * Returns a factory of LNS on a random quadratic assignment problem.
+     */
+    private static Supplier<LargeNeighborhoodSearch> qap(int[][] w, int[][] d, int iterations) {
+        int n = w.length;
+        return () -> {
+            Solver cp = makeSolver();
+            IntVar[] x = makeIntVarArray(cp, n, n);
+            cp.post(allDifferent(x));
+            IntVar[] weightedDist = new IntVar[n * n];
+            for (int i = 0; i < n; i++)
+                for (int j = 0; j < n; j++)
+                    weightedDist[i * n + j] = mul(element(d, x[i], x[j]), w[i][j]);
+            IntVar cost = sum(weightedDist);
+            return new LargeNeighborhoodSearch(makeDfs(cp, firstFail(x)), x, cost)
+                    .addRelaxation(LargeNeighborhoodSearch.random(x))
+                    .addRelaxation(LargeNeighborhoodSearch.propagationGuided(x))
+                    .setFailureLimit(50)
+                    .setIterationLimit(iterations);
+        };
+    }
+
+    private static void assertPermutation(int[] sol) {
+        boolean[] used = new boolean[sol.length];
+        for (int v : sol) {
+            assertFalse(used[v]);
+            used[v] = true;
+        }
+    }
+
+    @Test
+    public void testSharedIncumbent() {
+        Random rand = new Random(7);
+        int[][] w = matrix(10, rand, 0);
+        int[][] d = matrix(10, rand, 1);
+        ParallelLargeNeighborhoodSearch search = new ParallelLargeNeighborhoodSearch(qap(w, d, 50), 4);
+        List<Integer> objectives = new ArrayList<>();
+        search.onSolution(() -> {
+            int[] best = search.getBestSolution();
+            assertPermutation(best);
+            objectives.add(evaluate(w, d, best));
+        });
+        search.optimize();
+
+        assertFalse(objectives.isEmpty());
+        int[] best = search.getBestSolution();
+        assertPermutation(best);
+        assertEquals(evaluate(w, d, best), search.getBestObjective());
+        for (int o : objectives)
+            assertTrue(o >= search.getBestObjective());
+    }
+
+    @Test
+    public void testProvesOptimality() {
+        Random rand = new Random(8);
+        int[][] w = matrix(6, rand, 0);
+        int[][] d = matrix(6, rand, 1);
+
+        LargeNeighborhoodSearch sequential = qap(w, d, Integer.MAX_VALUE).get()
+                .setRelaxationSize(0.5, 0.1, 1.0)
+                .setFailureLimit(100000);
+        assertTrue(sequential.optimize().isCompleted());
+
+        ParallelLargeNeighborhoodSearch search = new ParallelLargeNeighborhoodSearch(() ->
+                qap(w, d, Integer.MAX_VALUE).get()
+                        .setRelaxationSize(0.5, 0.1, 1.0)
+                        .setFailureLimit(100000), 3);
+        SearchStatistics stats = search.optimize();
+        assertTrue(stats.isCompleted());
+        assertEquals(sequential.getBestObjective(), search.getBestObjective());
+    }
+
+    @Test
+    public void testTimeLimit() {
+        Random rand = new Random(9);
+        int[][] w = matrix(14, rand, 0);
+        int[][] d = matrix(14, rand, 1);
+        ParallelLargeNeighborhoodSearch search =
+                new ParallelLargeNeighborhoodSearch(qap(w, d, Integer.MAX_VALUE), 2).setTimeLimit(200);
+        long start = System.currentTimeMillis();
+        SearchStatistics stats = search.optimize();
+        assertTrue(System.currentTimeMillis() - start < 5000);
+        assertFalse(stats.isCompleted());
+        assertPermutation(search.getBestSolution());
+    }
+
+    @Test
+    public void testNoSolution() {
+        ParallelLargeNeighborhoodSearch search = new ParallelLargeNeighborhoodSearch(() -> {
+            Solver cp = makeSolver();
+            IntVar[] x = makeIntVarArray(cp, 3, 2);
+            cp.post(allDifferent(x));
+            return new LargeNeighborhoodSearch(makeDfs(cp, firstFail(x)), x, sum(x));
+        }, 2);
+        SearchStatistics stats = search.optimize();
+        assertTrue(stats.isCompleted());
+        assertEquals(Integer.MAX_VALUE, search.getBestObjective());
+        assertThrows(IllegalStateException.class, search::getBestSolution);
+    }
+}
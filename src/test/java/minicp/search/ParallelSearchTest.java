@@ -0,0 +1,110 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+package minicp.search;
+
+import minicp.engine.core.IntVar;
+import minicp.engine.core.Solver;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static minicp.cp.BranchingScheme.firstFail;
+import static minicp.cp.Factory.*;
+import static minicp.search.SearchModels.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParallelSearchTest {
+
+    @Test
+    public void testAllSolutions() {
+        Set<String> solutions = new HashSet<>();
+        ParallelSearch search = new ParallelSearch(() -> {
+            Solver cp = makeSolver();
+            IntVar[] q = queens(cp, 8);
+            return new ParallelSearch.Model(cp, firstFail(q))
+                    .onSolution(() -> assertTrue(solutions.add(Arrays.toString(q))));
+        }, 4);
+        SearchStatistics stats = search.solve();
+        assertEquals(92, stats.numberOfSolutions());
+        assertEquals(92, solutions.size());
+        assertTrue(stats.isCompleted());
+        assertTrue(search.numberOfSubproblems() > 4);
+    }
+
+    @Test
+    public void testFixedDepth() {
+        AtomicInteger nSolutions = new AtomicInteger();
+        ParallelSearch search = new ParallelSearch(() -> {
+            Solver cp = makeSolver(true);
+            IntVar[] q = queens(cp, 6);
+            return new ParallelSearch.Model(cp, firstFail(q)).onSolution(nSolutions::incrementAndGet);
+        }, 3);
+        for (int depth = 1; depth <= 8; depth++) {
+            nSolutions.set(0);
+            search.setDecompositionDepth(depth);
+            SearchStatistics stats = search.solve();
+            assertEquals(4, stats.numberOfSolutions());
+            assertEquals(4, nSolutions.get());
+            assertTrue(stats.isCompleted());
+        }
+    }
+
+    @Test
+    public void testLimit() {
+        ParallelSearch search = new ParallelSearch(() -> {
+            Solver cp = makeSolver();
+            IntVar[] q = queens(cp, 10);
+            return new ParallelSearch.Model(cp, firstFail(q));
+        }, 2);
+        SearchStatistics stats = search.solve(s -> s.numberOfSolutions() >= 1);
+        assertTrue(stats.numberOfSolutions() >= 1);
+        assertFalse(stats.isCompleted());
+    }
+
+    @Test
+    public void testOptimize() {
+        Solver cp = makeSolver();
+        IntVar[] q = queens(cp, 8);
+        IntVar objective = weightedSum(q);
+        int[] sequential = new int[]{Integer.MAX_VALUE};
+        DFSearch dfs = makeDfs(cp, firstFail(q));
+        dfs.onSolution(() -> sequential[0] = objective.min());
+        dfs.optimize(cp.minimize(objective));
+
+        int[] parallel = new int[]{Integer.MAX_VALUE};
+        ParallelSearch search = new ParallelSearch(() -> {
+            Solver s = makeSolver();
+            IntVar[] x = queens(s, 8);
+            IntVar obj = weightedSum(x);
+            return new ParallelSearch.Model(s, firstFail(x), s.minimize(obj))
+                    .onSolution(() -> parallel[0] = Math.min(parallel[0], obj.min()));
+        }, 4);
+        SearchStatistics stats = search.optimize();
+        assertTrue(stats.isCompleted());
+        assertEquals(sequential[0], parallel[0]);
+    }
+
+    @Test
+    public void testOptimizeWithoutObjective() {
+        ParallelSearch search = new ParallelSearch(() -> {
+            Solver cp = makeSolver();
+            return new ParallelSearch.Model(cp, firstFail(queens(cp, 6)));
+        }, 2);
+        assertThrows(IllegalArgumentException.class, search::optimize);
+    }
+}
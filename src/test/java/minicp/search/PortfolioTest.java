@@ -0,0 +1,132 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+package minicp.search;
+
+import minicp.engine.core.IntVar;
+import minicp.engine.core.Solver;
+import minicp.util.Procedure;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static minicp.cp.BranchingScheme.*;
+import static minicp.cp.Factory.*;
+import static minicp.search.SearchModels.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PortfolioTest {
+
+    private static Supplier<IntVar> firstUnfixed(IntVar[] x) {
+        return () -> selectMin(x, xi -> !xi.isFixed(), xi -> 0);
+    }
+
+    @Test
+    public void testHeuristicStateIsPerSolver() {
+        // a search must not be influenced by a previous one on another solver
+        for (int run = 0; run < 2; run++) {
+            SearchStatistics[] stats = new SearchStatistics[2];
+            for (int k = 0; k < 2; k++) {
+                Solver cp = makeSolver();
+                IntVar[] q = queens(cp, 8);
+                Supplier<Procedure[]> branching = run == 0
+                        ? lastConflict(firstUnfixed(q), IntVar::min)
+                        : conflictOrderingSearch(firstUnfixed(q), IntVar::min);
+                stats[k] = makeDfs(cp, branching).solve();
+            }
+            assertEquals(92, stats[0].numberOfSolutions());
+            assertEquals(stats[0].numberOfNodes(), stats[1].numberOfNodes());
+            assertEquals(stats[0].numberOfFailures(), stats[1].numberOfFailures());
+        }
+    }
+
+    @Test
+    public void testFirstSolutionStopsAll() {
+        AtomicInteger nSolutions = new AtomicInteger();
+        Portfolio portfolio = new Portfolio();
+        for (int k = 0; k < 3; k++) {
+            int member = k;
+            portfolio.add(() -> {
+                Solver cp = makeSolver();
+                IntVar[] q = queens(cp, 10);
+                Supplier<Procedure[]> branching = member == 0 ? firstFail(q)
+                        : member == 1 ? lastConflict(firstUnfixed(q), IntVar::max)
+                        : limitedDiscrepancy(firstFail(q), 3);
+                return new ParallelSearch.Model(cp, branching).onSolution(() -> {
+                    for (IntVar x : q) assertTrue(x.isFixed());
+                    nSolutions.incrementAndGet();
+                });
+            });
+        }
+        SearchStatistics stats = portfolio.solve();
+        assertTrue(stats.numberOfSolutions() >= 1);
+        assertEquals(stats.numberOfSolutions(), nSolutions.get());
+        assertFalse(stats.isCompleted());
+        assertTrue(portfolio.winner() >= 0 && portfolio.winner() < 3);
+    }
+
+    @Test
+    public void testInfeasible() {
+        Portfolio portfolio = new Portfolio();
+        for (int k = 0; k < 2; k++) {
+            int member = k;
+            portfolio.add(() -> {
+                Solver cp = makeSolver();
+                IntVar[] q = queens(cp, 3);
+                return new ParallelSearch.Model(cp, member == 0 ? firstFail(q)
+                        : conflictOrderingSearch(firstUnfixed(q), IntVar::min));
+            });
+        }
+        SearchStatistics stats = portfolio.solve();
+        assertEquals(0, stats.numberOfSolutions());
+        assertTrue(stats.isCompleted());
+    }
+
+    @Test
+    public void testOptimize() {
+        Solver cp = makeSolver();
+        IntVar[] q = queens(cp, 8);
+        IntVar objective = weightedSum(q);
+        int[] sequential = new int[]{Integer.MAX_VALUE};
+        DFSearch dfs = makeDfs(cp, firstFail(q));
+        dfs.onSolution(() -> sequential[0] = objective.min());
+        dfs.optimize(cp.minimize(objective));
+
+        int[] best = new int[]{Integer.MAX_VALUE};
+        Portfolio portfolio = new Portfolio();
+        for (int k = 0; k < 3; k++) {
+            int member = k;
+            portfolio.add(() -> {
+                Solver s = makeSolver();
+                IntVar[] x = queens(s, 8);
+                IntVar obj = weightedSum(x);
+                Supplier<Procedure[]> branching = member == 0 ? firstFail(x)
+                        : member == 1 ? lastConflict(firstUnfixed(x), IntVar::max)
+                        : conflictOrderingSearch(firstUnfixed(x), IntVar::min);
+                return new ParallelSearch.Model(s, branching, s.minimize(obj))
+                        .onSolution(() -> best[0] = Math.min(best[0], obj.min()));
+            });
+        }
+        SearchStatistics stats = portfolio.optimize();
+        assertTrue(stats.isCompleted());
+        assertTrue(portfolio.winner() >= 0);
+        assertEquals(sequential[0], best[0]);
+    }
+
+    @Test
+    public void testEmptyPortfolio() {
+        assertThrows(IllegalStateException.class, () -> new Portfolio().solve());
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+package minicp.search;
+
+import minicp.engine.core.IntVar;
+import minicp.engine.core.Solver;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.IntUnaryOperator;
+import java.util.function.Supplier;
+
+import static minicp.cp.BranchingScheme.firstFail;
+import static minicp.cp.BranchingScheme.selectMin;
+import static minicp.cp.Factory.*;
+import static minicp.search.SearchModels.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RestartSearchTest {
+
+    private static Supplier<IntVar> smallestDomain(IntVar[] x) {
+        return () -> selectMin(x, xi -> !xi.isFixed(), IntVar::size);
+    }
+
+    @Test
+    public void testCutoffSequences() {
+        IntUnaryOperator luby = RestartSearch.luby(3);
+        int[] expected = {1, 1, 2, 1, 1, 2, 4, 1, 1, 2, 1, 1, 2, 4, 8, 1};
+        for (int i = 0; i < expected.length; i++)
+            assertEquals(3 * expected[i], luby.applyAsInt(i));
+        IntUnaryOperator geometric = RestartSearch.geometric(10, 1.5);
+        assertEquals(10, geometric.applyAsInt(0));
+        assertEquals(15, geometric.applyAsInt(1));
+        assertEquals(22, geometric.applyAsInt(2));
+        assertEquals(Integer.MAX_VALUE, geometric.applyAsInt(1000));
+        assertThrows(IllegalArgumentException.class, () -> RestartSearch.luby(0));
+        assertThrows(IllegalArgumentException.class, () -> RestartSearch.geometric(10, 0.5));
+    }
+
+    @Test
+    public void testAllSolutionsAreFoundOnce() {
+        for (RestartSearch.Measure measure : RestartSearch.Measure.values()) {
+            Solver cp = makeSolver();
+            IntVar[] q = queens(cp, 8);
+            RestartSearch search = new RestartSearch(cp, smallestDomain(q), IntVar::min)
+                    .setCutoffs(RestartSearch.luby(2), measure);
+            Set<String> solutions = new HashSet<>();
+            search.onSolution(() -> assertTrue(solutions.add(Arrays.toString(q))));
+            SearchStatistics stats = search.solve();
+            assertTrue(stats.isCompleted());
+            assertEquals(92, stats.numberOfSolutions());
+            assertEquals(92, solutions.size());
+            assertTrue(search.numberOfRestarts() > 0);
+            assertTrue(search.numberOfNogoods() > 0);
+            // the state is restored after the search
+            for (IntVar x : q)
+                assertEquals(8, x.size());
+        }
+    }
+
+    @Test
+    public void testInfeasible() {
+        Solver cp = makeSolver();
+        IntVar[] q = queens(cp, 3);
+        RestartSearch search = new RestartSearch(cp, smallestDomain(q), IntVar::min)
+                .setCutoffs(RestartSearch.geometric(1, 1.2), RestartSearch.Measure.FAILURES);
+        SearchStatistics stats = search.solve();
+        assertTrue(stats.isCompleted());
+        assertEquals(0, stats.numberOfSolutions());
+    }
+
+    @Test
+    public void testLimit() {
+        Solver cp = makeSolver();
+        IntVar[] q = queens(cp, 20);
+        RestartSearch search = new RestartSearch(cp, smallestDomain(q), IntVar::min)
+                .setCutoffs(RestartSearch.luby(5), RestartSearch.Measure.FAILURES);
+        SearchStatistics stats = search.solve(s -> s.numberOfSolutions() >= 1);
+        assertEquals(1, stats.numberOfSolutions());
+        assertFalse(stats.isCompleted());
+    }
+
+    @Test
+    public void testOptimize() {
+        Solver cp = makeSolver();
+        IntVar[] q = queens(cp, 8);
+        IntVar objective = weightedSum(q);
+        int[] sequential = new int[]{Integer.MAX_VALUE};
+        DFSearch dfs = makeDfs(cp, firstFail(q));
+        dfs.onSolution(() -> sequential[0] = objective.min());
+        dfs.optimize(cp.minimize(objective));
+
+        Solver cp2 = makeSolver();
+        IntVar[] q2 = queens(cp2, 8);
+        IntVar objective2 = weightedSum(q2);
+        int[] restarts = new int[]{Integer.MAX_VALUE};
+        RestartSearch search = new RestartSearch(cp2, smallestDomain(q2), IntVar::max)
+                .setCutoffs(RestartSearch.luby(4), RestartSearch.Measure.FAILURES);
+        search.onSolution(() -> {
+            assertTrue(objective2.min() < restarts[0]);
+            restarts[0] = objective2.min();
+        });
+        SearchStatistics stats = search.optimize(cp2.minimize(objective2));
+        assertTrue(stats.isCompleted());
+        assertTrue(search.numberOfRestarts() > 0);
+        assertEquals(sequential[0], restarts[0]);
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+package minicp.search;
+
+import minicp.engine.core.IntVar;
+import minicp.engine.core.Solver;
+
+import static minicp.cp.Factory.*;
+
+/**
+ * Models shared by the tests of the searches.
+ */
+final class SearchModels {
+
+    private SearchModels() {
+    }
+
+    /**
+     * Weights of the queens in {@link #weightedSum(IntVar[])}.
+     */
+    static final int[] WEIGHTS = {7, 3, 9, 4, 6, 2, 8, 5, 1, 10};
+
+    /**
+     * Creates the n-queens problem with one variable per column.
+     *
+     * @param cp the solver
+     * @param n the number of queens
+     * @return the row of the queen of each column
+     */
+    static IntVar[] queens(Solver cp, int n) {
+        IntVar[] q = makeIntVarArray(cp, n, n);
+        for (int i = 0; i < n; i++)
+            for (int j = i + 1; j < n; j++) {
+                cp.post(notEqual(q[i], q[j]));
+                cp.post(notEqual(q[i], q[j], j - i));
+                cp.post(notEqual(q[i], q[j], i - j));
+            }
+        return q;
+    }
+
+    /**
+     * Creates an objective for the queens: the sum of their rows
+     * weighted by {@link #WEIGHTS}, which has a single optimum.
+     *
+     * @param q at most {@code WEIGHTS.length} queens
+     * @return the weighted sum
+     */
+    static IntVar weightedSum(IntVar[] q) {
+        IntVar[] cost = new IntVar[q.length];
+        for (int i = 0; i < q.length; i++)
+            cost[i] = mul(q[i], WEIGHTS[i]);
+        return sum(cost);
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+package minicp.search;
+
+import minicp.cp.BranchingScheme;
+import minicp.engine.core.IntVar;
+import minicp.engine.core.Solver;
+import minicp.state.StateManager;
+import minicp.util.Procedure;
+import org.junit.jupiter.api.Test;
+
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static minicp.cp.BranchingScheme.*;
+import static minicp.cp.Factory.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UnfixedVariablesTest {
+
+    @Test
+    public void testRestoredOnBacktrack() {
+        Solver cp = makeSolver();
+        StateManager sm = cp.getStateManager();
+        IntVar[] x = makeIntVarArray(cp, 5, 4);
+        UnfixedVariables unfixed = new UnfixedVariables(x);
+        assertEquals(5, unfixed.size());
+
+        sm.saveState();
+        x[1].fix(2);
+        x[3].fix(0);
+        assertEquals(3, unfixed.size());
+        sm.saveState();
+        x[0].fix(1);
+        assertEquals(2, unfixed.size());
+        sm.restoreState();
+        assertEquals(3, unfixed.size());
+        sm.restoreState();
+        assertEquals(5, unfixed.size());
+
+        x[2].fix(0);
+        assertEquals(4, unfixed.size());
+        for (IntVar xi : x) if (!xi.isFixed()) xi.fix(0);
+        assertEquals(-1, unfixed.selectMin(IntVar::size));
+    }
+
+    @Test
+    public void testTieBreaking() {
+        Solver cp = makeSolver();
+        StateManager sm = cp.getStateManager();
+        IntVar[] x = makeIntVarArray(cp, 6, 10);
+        UnfixedVariables unfixed = new UnfixedVariables(x);
+        x[4].removeBelow(4);
+        x[2].removeAbove(5);
+        x[5].removeBelow(3);
+        // the removals shuffle the internal order of the set
+        sm.saveState();
+        x[0].fix(0);
+        x[1].fix(0);
+        assertEquals(2, unfixed.selectMin(IntVar::size));
+        assertEquals(4, unfixed.selectMin(IntVar::size, xi -> -xi.min()));
+        assertEquals(2, unfixed.selectMinLong(xi -> (long) xi.size()));
+        assertEquals(x[2], selectMinInt(x, xi -> !xi.isFixed(), IntVar::size));
+        assertEquals(x[4], selectMinInt(x, xi -> !xi.isFixed(), IntVar::size, xi -> -xi.min()));
+        assertEquals(x[2], selectMinLong(x, xi -> !xi.isFixed(), xi -> (long) xi.size()));
+        // sizes 6, 10, 6, 7 with weights 1, 3, 1, 1: 10/3 is the smallest ratio
+        long[] w = {1, 1, 1, 1, 1, 1};
+        w[3] = 3;
+        assertEquals(3, unfixed.selectMinRatio(IntVar::size, i -> w[i]));
+        sm.restoreState();
+        assertEquals(0, unfixed.selectMin(xi -> 0));
+    }
+
+    private static long nodes(Function<IntVar[], Supplier<Procedure[]>> branching) {
+        Solver cp = makeSolver();
+        int n = 8;
+        IntVar[] q = makeIntVarArray(cp, n, n);
+        for (int i = 0; i < n; i++)
+            for (int j = i + 1; j < n; j++) {
+                cp.post(notEqual(q[i], q[j]));
+                cp.post(notEqual(q[i], q[j], j - i));
+                cp.post(notEqual(q[i], q[j], i - j));
+            }
+        SearchStatistics stats = makeDfs(cp, branching.apply(q)).solve();
+        assertEquals(92, stats.numberOfSolutions());
+        return stats.numberOfNodes();
+    }
+
+    @Test
+    public void testFirstFailExploresTheSameTree() {
+        Function<IntVar[], Supplier<Procedure[]>> boxed = x -> () -> {
+            IntVar xs = BranchingScheme.selectMin(x, xi -> xi.size() > 1, xi -> xi.size());
+            if (xs == null)
+                return EMPTY;
+            int v = xs.min();
+            return branch(() -> xs.getSolver().post(equal(xs, v)),
+                    () -> xs.getSolver().post(notEqual(xs, v)));
+        };
+        assertEquals(nodes(boxed), nodes(x -> firstFail(x)));
+    }
+}
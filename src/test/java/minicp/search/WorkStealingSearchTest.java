@@ -0,0 +1,113 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+package minicp.search;
+
+import minicp.engine.core.IntVar;
+import minicp.engine.core.Solver;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static minicp.cp.BranchingScheme.firstFail;
+import static minicp.cp.Factory.*;
+import static minicp.search.SearchModels.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WorkStealingSearchTest {
+
+    @Test
+    public void testAllSolutions() {
+        Set<String> solutions = ConcurrentHashMap.newKeySet();
+        WorkStealingSearch search = new WorkStealingSearch(() -> {
+            Solver cp = makeSolver();
+            IntVar[] q = queens(cp, 10);
+            return new ParallelSearch.Model(cp, firstFail(q))
+                    .onSolution(() -> assertTrue(solutions.add(Arrays.toString(q))));
+        }, 6);
+        SearchStatistics stats = search.solve();
+        assertEquals(724, stats.numberOfSolutions());
+        assertEquals(724, solutions.size());
+        assertTrue(stats.isCompleted());
+    }
+
+    @Test
+    public void testSingleWorker() {
+        AtomicInteger nSolutions = new AtomicInteger();
+        WorkStealingSearch search = new WorkStealingSearch(() -> {
+            Solver cp = makeSolver(true);
+            IntVar[] q = queens(cp, 8);
+            return new ParallelSearch.Model(cp, firstFail(q)).onSolution(nSolutions::incrementAndGet);
+        }, 1);
+        SearchStatistics stats = search.solve();
+        assertEquals(92, stats.numberOfSolutions());
+        assertEquals(92, nSolutions.get());
+        assertEquals(0, search.numberOfSteals());
+
+        Solver cp = makeSolver(true);
+        DFSearch dfs = makeDfs(cp, firstFail(queens(cp, 8)));
+        SearchStatistics sequential = dfs.solve();
+        assertEquals(sequential.numberOfNodes(), stats.numberOfNodes());
+        assertEquals(sequential.numberOfFailures(), stats.numberOfFailures());
+    }
+
+    @Test
+    public void testLimit() {
+        WorkStealingSearch search = new WorkStealingSearch(() -> {
+            Solver cp = makeSolver();
+            IntVar[] q = queens(cp, 12);
+            return new ParallelSearch.Model(cp, firstFail(q));
+        }, 3);
+        SearchStatistics stats = search.solve(s -> s.numberOfSolutions() >= 1);
+        assertTrue(stats.numberOfSolutions() >= 1);
+        assertFalse(stats.isCompleted());
+    }
+
+    @Test
+    public void testOptimize() {
+        Solver cp = makeSolver();
+        IntVar[] q = queens(cp, 10);
+        IntVar objective = weightedSum(q);
+        int[] sequential = new int[]{Integer.MAX_VALUE};
+        DFSearch dfs = makeDfs(cp, firstFail(q));
+        dfs.onSolution(() -> sequential[0] = objective.min());
+        dfs.optimize(cp.minimize(objective));
+
+        for (int nWorkers = 2; nWorkers <= 6; nWorkers += 2) {
+            int[] parallel = new int[]{Integer.MAX_VALUE};
+            WorkStealingSearch search = new WorkStealingSearch(() -> {
+                Solver s = makeSolver();
+                IntVar[] x = queens(s, 10);
+                IntVar obj = weightedSum(x);
+                return new ParallelSearch.Model(s, firstFail(x), s.minimize(obj))
+                        .onSolution(() -> parallel[0] = Math.min(parallel[0], obj.min()));
+            }, nWorkers);
+            SearchStatistics stats = search.optimize();
+            assertTrue(stats.isCompleted());
+            assertEquals(sequential[0], parallel[0]);
+        }
+    }
+
+    @Test
+    public void testOptimizeWithoutObjective() {
+        WorkStealingSearch search = new WorkStealingSearch(() -> {
+            Solver cp = makeSolver();
+            return new ParallelSearch.Model(cp, firstFail(queens(cp, 6)));
+        }, 2);
+        assertThrows(IllegalArgumentException.class, search::optimize);
+    }
+}
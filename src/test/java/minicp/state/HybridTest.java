@@ -0,0 +1,61 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+
+package minicp.state;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HybridTest {
+
+    @Test
+    public void testMixedStrategies() {
+        Hybrid sm = new Hybrid();
+        StateInt trailed = sm.makeStateInt(0, StateHint.RARELY_MODIFIED);
+        StateInt copied = sm.makeStateInt(0, StateHint.FREQUENTLY_MODIFIED);
+        State<String> ref = sm.makeStateRef("a", StateHint.FREQUENTLY_MODIFIED);
+        StateBool bool = sm.makeStateBool(false);
+        assertTrue(trailed instanceof TrailInt);
+        assertTrue(copied instanceof CopyInt);
+        int[] nRestores = new int[1];
+        sm.onRestore(() -> nRestores[0]++);
+
+        for (int i = 1; i <= 5; i++) {
+            sm.saveState();
+            copied.setValue(i);
+            ref.setValue("a" + i);
+            if (i == 3) {
+                trailed.setValue(i);
+                bool.setValue(true);
+            }
+        }
+        assertEquals(4, sm.getLevel());
+        for (int i = 5; i >= 1; i--) {
+            assertEquals(i, copied.value());
+            assertEquals("a" + i, ref.value());
+            assertEquals(i >= 3 ? 3 : 0, trailed.value());
+            assertEquals(i >= 3, bool.value());
+            sm.restoreState();
+        }
+        assertEquals(-1, sm.getLevel());
+        assertEquals(0, copied.value());
+        assertEquals("a", ref.value());
+        assertEquals(0, trailed.value());
+        assertFalse(bool.value());
+        assertEquals(5, nRestores[0]);
+    }
+
+}
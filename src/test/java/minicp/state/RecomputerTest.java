@@ -0,0 +1,157 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+
+package minicp.state;
+
+import minicp.engine.core.IntVar;
+import minicp.engine.core.MiniCP;
+import minicp.engine.core.Solver;
+import minicp.search.DFSearch;
+import minicp.search.Objective;
+import minicp.search.SearchStatistics;
+import minicp.util.exception.InconsistencyException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.Stack;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static minicp.cp.BranchingScheme.firstFail;
+import static minicp.cp.Factory.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RecomputerTest {
+
+    public static Stream<Supplier<StateManager>> getCheckpoints() {
+        return Stream.of(Trailer::new, Copier::new);
+    }
+
+    @ParameterizedTest
+    @MethodSource("getCheckpoints")
+    public void testReplayDecisions(Supplier<StateManager> checkpoints) {
+        Recomputer sm = new Recomputer(checkpoints.get(), 3, 3, 1.0);
+        StateInt x = sm.makeStateInt(1);
+        StateInt y = sm.makeStateInt(0);
+        Stack<Integer> expected = new Stack<>();
+        sm.saveState();
+        for (int i = 0; i < 10; i++) {
+            expected.push(x.value());
+            sm.saveState();
+            final int k = i;
+            sm.recordDecision(() -> {
+                x.setValue(x.value() * 2 + k);
+                y.increment();
+            });
+            x.setValue(x.value() * 2 + k);
+            y.increment();
+        }
+        // one checkpoint for the root and one every 3 levels
+        assertEquals(5, sm.numberOfCheckpoints());
+        assertEquals(0, sm.numberOfReplayedDecisions());
+        for (int i = 9; i >= 0; i--) {
+            sm.restoreState();
+            assertEquals(i, sm.getLevel());
+            assertEquals((int) expected.pop(), x.value());
+            assertEquals(i, y.value());
+        }
+        assertTrue(sm.numberOfReplayedDecisions() > 0);
+        sm.restoreState();
+        assertEquals(1, x.value());
+        assertEquals(0, sm.numberOfCheckpoints());
+    }
+
+    @ParameterizedTest
+    @MethodSource("getCheckpoints")
+    public void testFailedReplay(Supplier<StateManager> checkpoints) {
+        Recomputer sm = new Recomputer(checkpoints.get(), 4, 4, 1.0);
+        StateInt x = sm.makeStateInt(0);
+        int[] bound = new int[]{10};
+        sm.saveState();
+        for (int i = 0; i < 3; i++) {
+            sm.saveState();
+            sm.recordDecision(() -> {
+                if (x.increment() > bound[0]) throw InconsistencyException.INCONSISTENCY;
+            });
+            x.increment();
+        }
+        sm.saveState();
+        // the first decision does not hold anymore when replayed
+        bound[0] = 0;
+        sm.restoreState();
+        assertEquals(3, sm.getLevel());
+        sm.saveState();
+        assertThrows(InconsistencyException.class, () -> sm.recordDecision(() -> {}));
+        sm.restoreStateUntil(0);
+        assertEquals(0, x.value());
+        sm.saveState();
+        sm.recordDecision(() -> {});
+    }
+
+    @Test
+    public void testSameSearchAsTrailer() {
+        int n = 8;
+        SearchStatistics expected = nQueens(new MiniCP(new Trailer()), n);
+        Recomputer recomputer = new Recomputer(new Copier(), 4, 4, 1.0);
+        SearchStatistics stats = nQueens(new MiniCP(recomputer), n);
+        assertEquals(92, stats.numberOfSolutions());
+        assertEquals(expected.numberOfSolutions(), stats.numberOfSolutions());
+        assertEquals(expected.numberOfFailures(), stats.numberOfFailures());
+        assertEquals(expected.numberOfNodes(), stats.numberOfNodes());
+        assertTrue(recomputer.numberOfReplayedDecisions() > 0);
+    }
+
+    private static SearchStatistics nQueens(Solver cp, int n) {
+        IntVar[] q = makeIntVarArray(cp, n, n);
+        for (int i = 0; i < n; i++)
+            for (int j = i + 1; j < n; j++) {
+                cp.post(notEqual(q[i], q[j]));
+                cp.post(notEqual(q[i], q[j], j - i));
+                cp.post(notEqual(q[i], q[j], i - j));
+            }
+        DFSearch search = makeDfs(cp, firstFail(q));
+        return search.solve();
+    }
+
+    @Test
+    public void testSameOptimumAsTrailer() {
+        int[] expected = minimizeWeightedSum(new MiniCP(new Trailer()));
+        int[] found = minimizeWeightedSum(new MiniCP(new Recomputer()));
+        assertArrayEquals(expected, found);
+    }
+
+    /**
+     * Minimizes a weighted sum of all different variables
+     * and returns the value of the successive solutions.
+     */
+    private static int[] minimizeWeightedSum(Solver cp) {
+        int n = 7;
+        int[] w = new int[]{3, 1, 4, 1, 5, 9, 2};
+        IntVar[] x = makeIntVarArray(cp, n, n);
+        cp.post(allDifferent(x));
+        IntVar[] terms = new IntVar[n];
+        for (int i = 0; i < n; i++)
+            terms[i] = mul(x[i], w[i]);
+        IntVar obj = sum(terms);
+        Objective objective = cp.minimize(obj);
+        DFSearch search = makeDfs(cp, firstFail(x));
+        Stack<Integer> values = new Stack<>();
+        search.onSolution(() -> values.push(obj.min()));
+        search.optimize(objective);
+        return values.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+}
@@ -0,0 +1,108 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+
+package minicp.state;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SlotTrailTest extends StateManagerTest {
+
+    private static void set(SlotTrail trail, long[] slots, int i, long v) {
+        trail.save(i, slots[i]);
+        slots[i] = v;
+    }
+
+    @ParameterizedTest
+    @MethodSource("getStateManager")
+    public void testRestoreSeveralLevels(StateManager sm) {
+        long[] slots = new long[100];
+        SlotTrail trail = new SlotTrail(sm, 10, (i, v) -> slots[i] = v);
+        set(trail, slots, 0, 1); // not saved at the root
+        sm.saveState();
+        long entries = sm.getStatistics().entries();
+        for (int k = 0; k < 3; k++)
+            for (int i = 0; i < slots.length; i++)
+                set(trail, slots, i, k + 10);
+        // a single entry of the manager for the whole level
+        assertEquals(entries + 1, sm.getStatistics().entries());
+        sm.saveState();
+        set(trail, slots, 5, 20);
+        sm.restoreState();
+        assertEquals(12, slots[5]);
+        set(trail, slots, 5, 30);
+        sm.saveState();
+        set(trail, slots, 5, 40);
+        sm.restoreState();
+        assertEquals(30, slots[5]);
+        sm.restoreState();
+        assertEquals(1, slots[0]);
+        for (int i = 1; i < slots.length; i++)
+            assertEquals(0, slots[i]);
+    }
+
+    @ParameterizedTest
+    @MethodSource("getStateManager")
+    public void testSaveAll(StateManager sm) {
+        long[] slots = new long[]{1, 2, 3};
+        SlotTrail trail = new SlotTrail(sm, slots.length, new SlotTrail.Slots() {
+            @Override
+            public void restore(int slot, long value) {
+                slots[slot] = value;
+            }
+
+            @Override
+            public void restoreAll(long[] saved, int from, int n) {
+                System.arraycopy(saved, from, slots, 0, n);
+            }
+        });
+        long bytes = sm.getStatistics().estimatedBytes();
+        sm.saveState();
+        trail.saveAll(slots, 3);
+        slots[0] = 10;
+        trail.saveAll(slots, 3);
+        slots[1] = 20;
+        sm.saveState();
+        trail.save(2, slots[2]);
+        slots[2] = 30;
+        trail.saveAll(slots, 3);
+        slots[0] = 40;
+        sm.restoreState();
+        assertArrayEquals(new long[]{10, 20, 3}, slots);
+        sm.restoreState();
+        assertArrayEquals(new long[]{1, 2, 3}, slots);
+        assertEquals(bytes, sm.getStatistics().estimatedBytes());
+    }
+
+    @ParameterizedTest
+    @MethodSource("getStateManager")
+    public void testTrailCreatedInSubtree(StateManager sm) {
+        sm.saveState();
+        long entries = sm.getStatistics().entries();
+        long bytes = sm.getStatistics().estimatedBytes();
+        sm.saveState();
+        long[] slots = new long[4];
+        SlotTrail trail = new SlotTrail(sm, slots.length, (i, v) -> slots[i] = v);
+        set(trail, slots, 1, 5);
+        sm.restoreState();
+        // the manager no longer references the trail
+        assertEquals(entries, sm.getStatistics().entries());
+        assertEquals(bytes, sm.getStatistics().estimatedBytes());
+        assertEquals(0, slots[1]);
+        sm.restoreState();
+    }
+}
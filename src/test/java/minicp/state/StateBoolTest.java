@@ -77,4 +77,33 @@ public class StateBoolTest extends StateManagerTest {
     }
 
 
+    @ParameterizedTest
+    @MethodSource("getStateManager")
+    public void testPrimitiveStateBool(StateManager sm) {
+
+        StateBool b1 = sm.makeStateBool(true);
+        StateBool b2 = sm.makeStateBool(false);
+
+        sm.saveState();
+
+        b1.setValue(false);
+        b2.setValue(true);
+
+        sm.saveState();
+
+        b1.setValue(true);
+        b2.setValue(false);
+        b2.setValue(true);
+
+        sm.restoreState();
+
+        assertFalse(b1.value());
+        assertTrue(b2.value());
+
+        sm.restoreState();
+
+        assertTrue(b1.value());
+        assertFalse(b2.value());
+    }
+
 }
@@ -0,0 +1,89 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+
+package minicp.state;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.Random;
+import java.util.Stack;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StateIntArrayTest extends StateManagerTest {
+
+    @ParameterizedTest
+    @MethodSource("getStateManager")
+    public void testExample(StateManager sm) {
+        StateIntArray a = new StateIntArray(sm, 4, 7);
+        a.set(0, 1);
+
+        sm.saveState();
+
+        a.set(1, 2);
+        a.increment(1);
+        a.decrement(3);
+        StateInt view = a.stateInt(2);
+        view.setValue(9);
+        assertEquals(3, a.get(1));
+        assertEquals(9, a.get(2));
+        assertEquals(6, a.get(3));
+
+        sm.saveState();
+
+        a.set(1, 4);
+        view.increment();
+        assertEquals(10, view.value());
+
+        sm.restoreState();
+
+        assertEquals(3, a.get(1));
+        assertEquals(9, view.value());
+
+        sm.restoreState();
+
+        assertArrayEquals(new int[]{1, 7, 7, 7}, new int[]{a.get(0), a.get(1), a.get(2), a.get(3)});
+        assertEquals(4, a.length());
+    }
+
+    @ParameterizedTest
+    @MethodSource("getStateManager")
+    public void testRandomAgainstArray(StateManager sm) {
+        Random rand = new Random(42);
+        int n = 50;
+        StateIntArray a = new StateIntArray(sm, n, 0);
+        Stack<int[]> expected = new Stack<>();
+        int[] current = new int[n];
+        for (int iter = 0; iter < 3000; iter++) {
+            int action = rand.nextInt(10);
+            if (action == 0 && expected.size() < 30) {
+                sm.saveState();
+                expected.push(current.clone());
+            } else if (action == 1 && !expected.isEmpty()) {
+                sm.restoreState();
+                current = expected.pop();
+            } else {
+                int i = rand.nextInt(n);
+                int v = rand.nextInt(5);
+                a.set(i, v);
+                current[i] = v;
+            }
+            for (int i = 0; i < n; i++)
+                assertEquals(current[i], a.get(i));
+        }
+    }
+
+}
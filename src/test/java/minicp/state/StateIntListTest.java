@@ -0,0 +1,101 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+
+package minicp.state;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Stack;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StateIntListTest extends StateManagerTest {
+
+    @ParameterizedTest
+    @MethodSource("getStateManager")
+    public void testExample(StateManager sm) {
+        StateIntList list = new StateIntList(sm, 5);
+        assertEquals("[0,1,2,3,4]", list.toString());
+
+        sm.saveState();
+
+        assertTrue(list.remove(2));
+        assertFalse(list.remove(2));
+        assertTrue(list.remove(0));
+        assertEquals(1, list.first());
+        assertEquals(3, list.next(1));
+        assertEquals(1, list.prev(3));
+        assertEquals(-1, list.prev(1));
+        assertEquals(3, list.size());
+
+        sm.saveState();
+
+        list.remove(4);
+        list.remove(1);
+        list.remove(3);
+        assertTrue(list.isEmpty());
+        assertEquals(-1, list.first());
+        assertEquals(-1, list.last());
+
+        sm.restoreState();
+
+        assertEquals("[1,3,4]", list.toString());
+        assertFalse(list.contains(2));
+
+        sm.restoreState();
+
+        assertEquals("[0,1,2,3,4]", list.toString());
+        assertTrue(list.contains(2));
+        assertEquals(4, list.last());
+    }
+
+    @ParameterizedTest
+    @MethodSource("getStateManager")
+    public void testRandomAgainstArrayList(StateManager sm) {
+        Random rand = new Random(42);
+        int n = 40;
+        StateIntList list = new StateIntList(sm, n);
+        Stack<List<Integer>> expected = new Stack<>();
+        List<Integer> current = new ArrayList<>();
+        for (int i = 0; i < n; i++)
+            current.add(i);
+        int[] values = new int[n];
+        for (int iter = 0; iter < 3000; iter++) {
+            int action = rand.nextInt(10);
+            if (action == 0 && expected.size() < 30) {
+                sm.saveState();
+                expected.push(new ArrayList<>(current));
+            } else if (action == 1 && !expected.isEmpty()) {
+                sm.restoreState();
+                current = expected.pop();
+            } else {
+                Integer v = rand.nextInt(n);
+                assertEquals(current.remove(v), list.remove(v));
+            }
+            assertEquals(current.size(), list.size());
+            int k = list.fillArray(values);
+            assertEquals(current.size(), k);
+            for (int i = 0; i < k; i++)
+                assertEquals((int) current.get(i), values[i]);
+            for (int v = 0; v < n; v++)
+                assertEquals(current.contains(v), list.contains(v));
+        }
+    }
+
+}
@@ -0,0 +1,96 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+
+package minicp.state;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Stack;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StateIntMapTest extends StateManagerTest {
+
+    @ParameterizedTest
+    @MethodSource("getStateManager")
+    public void testExample(StateManager sm) {
+        StateIntMap map = new StateIntMap(sm);
+        map.put(5, 50);
+
+        sm.saveState();
+
+        map.put(5, 51);
+        map.put(-7, 70);
+        map.put(1_000_000, 1);
+        assertEquals(51, map.getOrDefault(5, -1));
+        assertEquals(70, map.getOrDefault(-7, -1));
+        assertEquals(3, map.size());
+
+        sm.saveState();
+
+        map.put(-7, 71);
+        map.put(-7, 72);
+        map.put(8, 80);
+        assertEquals(72, map.getOrDefault(-7, -1));
+
+        sm.restoreState();
+
+        assertEquals(70, map.getOrDefault(-7, -1));
+        assertFalse(map.containsKey(8));
+        assertEquals(3, map.size());
+
+        sm.restoreState();
+
+        assertEquals(50, map.getOrDefault(5, -1));
+        assertFalse(map.containsKey(-7));
+        assertFalse(map.containsKey(1_000_000));
+        assertEquals(-1, map.getOrDefault(1_000_000, -1));
+        assertEquals(1, map.size());
+    }
+
+    @ParameterizedTest
+    @MethodSource("getStateManager")
+    public void testRandomAgainstHashMap(StateManager sm) {
+        Random rand = new Random(42);
+        StateIntMap map = new StateIntMap(sm, 2);
+        Stack<Map<Integer, Integer>> expected = new Stack<>();
+        Map<Integer, Integer> current = new HashMap<>();
+        for (int iter = 0; iter < 3000; iter++) {
+            int action = rand.nextInt(10);
+            if (action == 0 && expected.size() < 30) {
+                sm.saveState();
+                expected.push(new HashMap<>(current));
+            } else if (action == 1 && !expected.isEmpty()) {
+                sm.restoreState();
+                current = expected.pop();
+            } else {
+                int k = rand.nextInt(400) - 200;
+                int v = rand.nextInt(5);
+                map.put(k, v);
+                current.put(k, v);
+            }
+            assertEquals(current.size(), map.size());
+            for (int k = -200; k < 200; k++) {
+                assertEquals(current.containsKey(k), map.containsKey(k));
+                assertEquals((int) current.getOrDefault(k, -1), map.getOrDefault(k, -1));
+            }
+        }
+    }
+
+}
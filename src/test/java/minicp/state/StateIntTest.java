@@ -189,4 +189,70 @@ public class StateIntTest extends StateManagerTest {
         assertEquals(Integer.valueOf(6), a.value());
     }
 
+    @ParameterizedTest
+    @MethodSource("getStateManager")
+    public void testManyLevels(StateManager sm) {
+        // enough values and levels to make the trail grow several times
+        int n = 500;
+        int depth = 300;
+        StateInt[] a = new StateInt[n];
+        for (int i = 0; i < n; i++)
+            a[i] = sm.makeStateInt(0);
+
+        for (int d = 1; d <= depth; d++) {
+            sm.saveState();
+            for (int i = 0; i < n; i++) {
+                a[i].setValue(d);
+                a[i].setValue(d * 2);
+            }
+        }
+        assertEquals(depth - 1, sm.getLevel());
+
+        for (int d = depth; d >= 1; d--) {
+            for (int i = 0; i < n; i++)
+                assertEquals(d * 2, a[i].value());
+            sm.restoreState();
+        }
+        for (int i = 0; i < n; i++)
+            assertEquals(0, a[i].value());
+        assertEquals(-1, sm.getLevel());
+    }
+
+    @ParameterizedTest
+    @MethodSource("getStateManager")
+    public void testModifiedAtSomeLevels(StateManager sm) {
+        StateInt a = sm.makeStateInt(0);
+        StateInt b = sm.makeStateInt(0);
+
+        a.setValue(1);
+        sm.saveState(); // level 0: a = 1, b = 0
+        b.setValue(1);
+        sm.saveState(); // level 1: a = 1, b = 1
+        sm.saveState(); // level 2: a = 1, b = 1
+        a.setValue(2);
+        sm.saveState(); // level 3: a = 2, b = 1
+        b.setValue(2);
+        b.setValue(3);
+
+        sm.restoreState();
+        assertEquals(2, a.value());
+        assertEquals(1, b.value());
+        a.setValue(5);
+        b.setValue(5);
+
+        sm.restoreState();
+        assertEquals(1, a.value());
+        assertEquals(1, b.value());
+
+        sm.saveState(); // level 2: a = 1, b = 1
+        a.setValue(7);
+        sm.restoreStateUntil(0);
+        assertEquals(1, a.value());
+        assertEquals(1, b.value());
+
+        sm.restoreState();
+        assertEquals(1, a.value());
+        assertEquals(0, b.value());
+    }
+
 }
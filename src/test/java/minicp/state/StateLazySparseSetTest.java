@@ -0,0 +1,153 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+
+package minicp.state;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StateLazySparseSetTest extends StateManagerTest {
+
+    @ParameterizedTest
+    @MethodSource("getStateManager")
+    public void testExample(StateManager sm) {
+        StateLazySparseSet set = new StateLazySparseSet(sm, 10, 5); // {5..14}
+
+        sm.saveState();
+
+        set.removeBelow(7);
+        set.removeAbove(12);
+        assertEquals(7, set.min());
+        assertEquals(12, set.max());
+        assertEquals(6, set.size());
+        assertEquals("{7..12}", set.toString());
+
+        sm.saveState();
+
+        set.remove(9); // creates a hole
+        assertFalse(set.contains(9));
+        assertEquals(5, set.size());
+        set.remove(7);
+        assertEquals(8, set.min());
+
+        sm.restoreState();
+
+        assertTrue(set.contains(9));
+        assertEquals(7, set.min());
+        assertEquals(6, set.size());
+
+        sm.restoreState();
+
+        for (int v = 5; v < 15; v++)
+            assertTrue(set.contains(v));
+        assertFalse(set.contains(4));
+        assertFalse(set.contains(15));
+    }
+
+    @ParameterizedTest
+    @MethodSource("getStateManager")
+    public void testHolesInSiblingSubtrees(StateManager sm) {
+        StateLazySparseSet set = new StateLazySparseSet(sm, 100, 0);
+        StateSparseSet sparse = null;
+        for (int k = 1; k < 40; k++) {
+            sm.saveState();
+            set.removeBelow(k);
+            set.removeAbove(99 - k);
+            set.remove(50); // creates a hole
+            set.remove(k);
+            assertEquals(100 - 2 * k - 2, set.size());
+            assertEquals(k + 1, set.min());
+            assertFalse(set.contains(50));
+            assertTrue(set.contains(51));
+            // the sparse representation is allocated once
+            if (sparse == null) sparse = set.sparse;
+            assertSame(sparse, set.sparse);
+            sm.saveState();
+            set.remove(60);
+            assertEquals(100 - 2 * k - 3, set.size());
+            sm.restoreState();
+            assertTrue(set.contains(60));
+            sm.restoreState();
+            assertEquals("{0..99}", set.toString());
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("getStateManager")
+    public void testEmpty(StateManager sm) {
+        StateLazySparseSet set = new StateLazySparseSet(sm, 5, 0);
+        sm.saveState();
+        set.removeAbove(-1);
+        assertTrue(set.isEmpty());
+        assertEquals(0, set.size());
+        sm.restoreState();
+        sm.saveState();
+        set.removeAllBut(3);
+        assertEquals(3, set.min());
+        assertEquals(3, set.max());
+        set.remove(3);
+        assertTrue(set.isEmpty());
+        sm.restoreState();
+        assertEquals(5, set.size());
+    }
+
+    @ParameterizedTest
+    @MethodSource("getStateManager")
+    public void testRandomAgainstSparseSet(StateManager sm) {
+        Random rand = new Random(0);
+        for (int run = 0; run < 20; run++) {
+            StateLazySparseSet lazy = new StateLazySparseSet(sm, 30, -10);
+            StateSparseSet sparse = new StateSparseSet(sm, 30, -10);
+            int level = sm.getLevel();
+            for (int iter = 0; iter < 200; iter++) {
+                int action = rand.nextInt(8);
+                int v = rand.nextInt(34) - 12;
+                if (action == 0) {
+                    sm.saveState();
+                } else if (action == 1 && sm.getLevel() > level) {
+                    sm.restoreState();
+                } else if (!sparse.isEmpty()) {
+                    if (action < 4) {
+                        lazy.remove(v);
+                        sparse.remove(v);
+                    } else if (action < 6) {
+                        lazy.removeBelow(v);
+                        sparse.removeBelow(v);
+                    } else {
+                        lazy.removeAbove(v);
+                        sparse.removeAbove(v);
+                    }
+                }
+                assertEquals(sparse.size(), lazy.size());
+                if (!sparse.isEmpty()) {
+                    assertEquals(sparse.min(), lazy.min());
+                    assertEquals(sparse.max(), lazy.max());
+                }
+                int[] expected = sparse.toArray();
+                int[] actual = lazy.toArray();
+                Arrays.sort(expected);
+                Arrays.sort(actual);
+                assertArrayEquals(expected, actual);
+            }
+            sm.restoreStateUntil(level);
+        }
+    }
+
+}
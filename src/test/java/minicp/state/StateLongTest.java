@@ -0,0 +1,56 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+
+package minicp.state;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class StateLongTest extends StateManagerTest {
+
+    @ParameterizedTest
+    @MethodSource("getStateManager")
+    public void testStateLong(StateManager sm) {
+        StateLong a = sm.makeStateLong(5L);
+        StateLong b = sm.makeStateLong(Long.MAX_VALUE);
+        assertEquals(5L, a.value());
+        a.setValue(7L);
+
+        sm.saveState();
+
+        a.setValue(10L);
+        a.increment();
+        assertEquals(11L, a.value());
+        b.decrement();
+        b.setValue(Integer.MAX_VALUE + 1L);
+        assertEquals(Integer.MAX_VALUE + 1L, b.value());
+
+        sm.saveState();
+
+        a.setValue(-3L);
+        b.setValue(0L);
+
+        sm.restoreState();
+        assertEquals(11L, a.value());
+        assertEquals(Integer.MAX_VALUE + 1L, b.value());
+
+        sm.restoreState();
+        assertEquals(7L, a.value());
+        assertEquals(Long.MAX_VALUE, b.value());
+    }
+
+}
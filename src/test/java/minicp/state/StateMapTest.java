@@ -0,0 +1,61 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+
+package minicp.state;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class StateMapTest extends StateManagerTest {
+
+    @ParameterizedTest
+    @MethodSource("getStateManager")
+    public void testStateMap(StateManager sm) {
+        StateMap<Integer, String> map = sm.makeStateMap();
+        map.put(1, "a");
+        map.put(1000, "b");
+
+        sm.saveState();
+
+        map.put(1, "c");
+        map.put(2, "d");
+        map.put(Integer.valueOf(1000), "e");
+        assertEquals("c", map.get(1));
+        assertEquals("d", map.get(2));
+        assertEquals("e", map.get(1000));
+
+        sm.saveState();
+
+        map.put(2, "f");
+        map.put(3, "g");
+        assertEquals("f", map.get(2));
+
+        sm.restoreState();
+
+        assertEquals("d", map.get(2));
+        assertNull(map.get(3));
+
+        sm.restoreState();
+
+        assertEquals("a", map.get(1));
+        assertEquals("b", map.get(1000));
+        assertNull(map.get(2));
+        assertNull(map.get(3));
+    }
+
+}
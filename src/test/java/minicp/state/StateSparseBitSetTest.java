@@ -233,4 +233,99 @@ public class StateSparseBitSetTest extends StateManagerTest {
         }
     }
 
-}
\ No newline at end of file
+
+    @ParameterizedTest
+    @MethodSource("getStateManager")
+    @Order(4)
+    public void testRestoreWordsSeveralLevels(StateManager sm) {
+        try {
+            StateSparseBitSet set = new StateSparseBitSet(sm, 200);
+            StateSparseBitSet.SupportBitSet even = set.new SupportBitSet();
+            StateSparseBitSet.SupportBitSet low = set.new SupportBitSet(); // [0..99]
+            StateSparseBitSet.SupportBitSet high = set.new SupportBitSet(); // [100..199]
+            for (int i = 0; i < 200; i++) {
+                if (i % 2 == 0) even.set(i);
+                if (i < 100) low.set(i);
+                else high.set(i);
+            }
+
+            sm.saveState();
+            set.and(even);
+            sm.saveState();
+            set.and(low);
+            assertFalse(set.intersects(high));
+            sm.restoreState();
+            assertTrue(set.intersects(high));
+
+            // the words modified again after the restoration must be saved again
+            set.and(low);
+            sm.saveState();
+            set.and(high);
+            assertTrue(set.isEmpty());
+            sm.restoreState();
+            assertFalse(set.intersects(high));
+            assertTrue(set.intersects(low));
+            sm.restoreState();
+
+            for (int i = 0; i < 200; i++) {
+                assertTrue(set.get(i));
+                StateSparseBitSet.SupportBitSet bit = set.new SupportBitSet();
+                bit.set(i);
+                assertTrue(set.intersects(bit));
+            }
+        } catch (NotImplementedException e) {
+            NotImplementedExceptionAssume.fail(e);
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("getStateManager")
+    @Order(5)
+    public void testRestoreFrequentlyModifiedWords(StateManager sm) {
+        try {
+            StateSparseBitSet set = new StateSparseBitSet(sm, 200, StateHint.FREQUENTLY_MODIFIED);
+            StateSparseBitSet.SupportBitSet even = set.new SupportBitSet();
+            StateSparseBitSet.SupportBitSet low = set.new SupportBitSet(); // [0..99]
+            StateSparseBitSet.SupportBitSet high = set.new SupportBitSet(); // [100..199]
+            for (int i = 0; i < 200; i++) {
+                if (i % 2 == 0) even.set(i);
+                if (i < 100) low.set(i);
+                else high.set(i);
+            }
+            long bytes = sm.getStatistics().estimatedBytes();
+
+            sm.saveState();
+            set.and(even);
+            sm.saveState();
+            set.and(low);
+            sm.saveState();
+            set.and(high);
+            assertTrue(set.isEmpty());
+            sm.restoreState();
+            assertFalse(set.intersects(high));
+            assertTrue(set.intersects(low));
+            assertFalse(set.get(1));
+            sm.restoreState();
+            assertTrue(set.intersects(high));
+            assertFalse(set.get(101));
+
+            // modified again after the restoration, the words must be saved again
+            set.and(high);
+            sm.saveState();
+            set.and(low);
+            assertTrue(set.isEmpty());
+            sm.restoreState();
+            assertFalse(set.intersects(low));
+            assertTrue(set.get(102));
+            sm.restoreState();
+
+            for (int i = 0; i < 200; i++)
+                assertTrue(set.get(i));
+            assertEquals(bytes, sm.getStatistics().estimatedBytes(),
+                    "The saved words must be released when restored");
+        } catch (NotImplementedException e) {
+            NotImplementedExceptionAssume.fail(e);
+        }
+    }
+
+}
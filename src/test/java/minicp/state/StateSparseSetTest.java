@@ -21,7 +21,9 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 
+import java.util.Random;
 import java.util.Set;
+import java.util.TreeSet;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -213,4 +215,47 @@ public class StateSparseSetTest extends StateManagerTest {
             e.print();
         }
     }
+    @ParameterizedTest
+    @MethodSource("getStateManager")
+    public void testRemoveRangesRandom(StateManager sm) {
+        Random rand = new Random(42);
+        for (int run = 0; run < 50; run++) {
+            int n = 1 + rand.nextInt(60);
+            int ofs = rand.nextInt(20) - 10;
+            StateSparseSet set = new StateSparseSet(sm, n, ofs);
+            TreeSet<Integer> expected = new TreeSet<>();
+            for (int v = ofs; v < ofs + n; v++)
+                expected.add(v);
+            int level = sm.getLevel();
+            while (!expected.isEmpty()) {
+                sm.saveState();
+                int v = ofs - 2 + rand.nextInt(n + 4);
+                switch (rand.nextInt(3)) {
+                    case 0:
+                        set.remove(v);
+                        expected.remove(v);
+                        break;
+                    case 1:
+                        set.removeBelow(v);
+                        expected.headSet(v).clear();
+                        break;
+                    default:
+                        set.removeAbove(v);
+                        expected.tailSet(v, false).clear();
+                }
+                assertEquals(expected.size(), set.size());
+                if (!expected.isEmpty()) {
+                    assertEquals(expected.first().intValue(), set.min());
+                    assertEquals(expected.last().intValue(), set.max());
+                }
+                for (int w = ofs; w < ofs + n; w++)
+                    assertEquals(expected.contains(w), set.contains(w));
+            }
+            sm.restoreStateUntil(level);
+            assertEquals(n, set.size());
+            assertEquals(ofs, set.min());
+            assertEquals(ofs + n - 1, set.max());
+        }
+    }
+
 }
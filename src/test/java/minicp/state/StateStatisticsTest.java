@@ -0,0 +1,124 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+
+package minicp.state;
+
+import minicp.search.DFSearch;
+import minicp.search.SearchStatistics;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.Arrays;
+
+import static minicp.cp.BranchingScheme.EMPTY;
+import static minicp.cp.BranchingScheme.branch;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StateStatisticsTest extends StateManagerTest {
+
+    @ParameterizedTest
+    @MethodSource("getStateManager")
+    public void testCounters(StateManager sm) {
+        StateInt[] a = new StateInt[10];
+        for (int i = 0; i < a.length; i++)
+            a[i] = sm.makeStateInt(0);
+        sm.saveState();
+        for (int l = 1; l <= 5; l++) {
+            for (StateInt x : a)
+                x.setValue(l);
+            sm.saveState();
+        }
+        StateStatistics stats = sm.getStatistics();
+        assertEquals(5, stats.level());
+        assertEquals(6, stats.numberOfSaves());
+        assertEquals(0, stats.numberOfRestores());
+        assertTrue(stats.entries() >= 40);
+        assertEquals(stats.entries(), Arrays.stream(stats.entriesPerLevel()).sum());
+        assertEquals(stats.entries() * StateStatistics.PRIMITIVE_ENTRY_BYTES, stats.estimatedBytes());
+        assertEquals(stats.entries(), stats.peakEntries());
+
+        sm.restoreStateUntil(-1);
+        stats = sm.getStatistics();
+        assertEquals(-1, stats.level());
+        assertEquals(0, stats.entries());
+        assertEquals(6, stats.numberOfRestores());
+        assertTrue(stats.peakEntries() >= 40);
+        assertTrue(stats.peakEstimatedBytes() >= 40 * StateStatistics.PRIMITIVE_ENTRY_BYTES);
+        assertTrue(stats.savesPerSecond() > 0);
+        for (StateInt x : a)
+            assertEquals(0, x.value());
+    }
+
+    @ParameterizedTest
+    @MethodSource("getStateManager")
+    public void testMemoryLimit(StateManager sm) {
+        StateInt[] a = new StateInt[100];
+        for (int i = 0; i < a.length; i++)
+            a[i] = sm.makeStateInt(0);
+        StateInt depth = sm.makeStateInt(0);
+        sm.setMemoryLimit(1000 * StateStatistics.PRIMITIVE_ENTRY_BYTES);
+
+        // an infinite search modifying every state at each node
+        DFSearch dfs = new DFSearch(sm, () -> branch(() -> {
+            depth.increment();
+            for (StateInt x : a)
+                x.increment();
+        }));
+        SearchStatistics stats = dfs.solve();
+
+        assertTrue(stats.isMemoryLimitReached());
+        assertFalse(stats.isCompleted());
+        assertTrue(stats.numberOfNodes() >= 9);
+        assertEquals(-1, sm.getLevel());
+        assertEquals(0, depth.value());
+
+        sm.setMemoryLimit(0);
+        DFSearch bounded = new DFSearch(sm, () -> depth.value() < 20 ? branch(() -> {
+            depth.increment();
+            for (StateInt x : a)
+                x.increment();
+        }) : EMPTY);
+        stats = bounded.solve();
+        assertTrue(stats.isCompleted());
+        assertFalse(stats.isMemoryLimitReached());
+    }
+
+    @ParameterizedTest
+    @MethodSource("getStateManager")
+    public void testSelfTrailedStructures(StateManager sm) {
+        StateIntArray a = new StateIntArray(sm, 1000, 0);
+        long root = sm.getStatistics().estimatedBytes();
+        sm.saveState();
+        for (int i = 0; i < a.length(); i++)
+            a.increment(i);
+        // the trail of the array is part of the estimate
+        assertTrue(sm.getStatistics().estimatedBytes() >= root + 1000 * 8);
+        sm.restoreState();
+        assertEquals(root, sm.getStatistics().estimatedBytes());
+
+        // and of the memory limit
+        sm.setMemoryLimit(5000 * 8);
+        DFSearch dfs = new DFSearch(sm, () -> branch(() -> {
+            for (int i = 0; i < a.length(); i++)
+                a.increment(i);
+        }));
+        SearchStatistics stats = dfs.solve();
+        assertTrue(stats.isMemoryLimitReached());
+        assertTrue(stats.numberOfNodes() <= 10);
+        assertEquals(-1, sm.getLevel());
+        assertEquals(root, sm.getStatistics().estimatedBytes());
+        assertEquals(0, a.get(0));
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+
+package minicp.state;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.Random;
+import java.util.Stack;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StateUnionFindTest extends StateManagerTest {
+
+    @ParameterizedTest
+    @MethodSource("getStateManager")
+    public void testExample(StateManager sm) {
+        StateUnionFind uf = new StateUnionFind(sm, 6);
+        assertEquals(6, uf.nSets());
+
+        sm.saveState();
+
+        assertTrue(uf.union(0, 1));
+        assertTrue(uf.union(2, 3));
+        assertFalse(uf.union(1, 0));
+        assertTrue(uf.sameSet(0, 1));
+        assertFalse(uf.sameSet(1, 2));
+        assertEquals(4, uf.nSets());
+
+        sm.saveState();
+
+        assertTrue(uf.union(1, 3));
+        assertTrue(uf.sameSet(0, 2));
+        assertEquals(4, uf.size(3));
+        assertEquals(3, uf.nSets());
+
+        sm.restoreState();
+
+        assertFalse(uf.sameSet(0, 2));
+        assertEquals(2, uf.size(3));
+        assertEquals(4, uf.nSets());
+
+        sm.restoreState();
+
+        assertFalse(uf.sameSet(0, 1));
+        assertEquals(1, uf.size(0));
+        assertEquals(6, uf.nSets());
+    }
+
+    @ParameterizedTest
+    @MethodSource("getStateManager")
+    public void testRandomAgainstLabels(StateManager sm) {
+        Random rand = new Random(42);
+        int n = 30;
+        StateUnionFind uf = new StateUnionFind(sm, n);
+        // label[i] is the smallest value in the set of i
+        Stack<int[]> expected = new Stack<>();
+        int[] label = new int[n];
+        for (int i = 0; i < n; i++)
+            label[i] = i;
+        for (int iter = 0; iter < 2000; iter++) {
+            int action = rand.nextInt(6);
+            if (action == 0 && expected.size() < 30) {
+                sm.saveState();
+                expected.push(label.clone());
+            } else if (action == 1 && !expected.isEmpty()) {
+                sm.restoreState();
+                label = expected.pop();
+            } else {
+                int i = rand.nextInt(n);
+                int j = rand.nextInt(n);
+                int li = label[i], lj = label[j];
+                assertEquals(li != lj, uf.union(i, j));
+                for (int k = 0; k < n; k++)
+                    if (label[k] == li || label[k] == lj)
+                        label[k] = Math.min(li, lj);
+            }
+            int nSets = 0;
+            for (int i = 0; i < n; i++) {
+                if (label[i] == i) nSets++;
+                int size = 0;
+                for (int j = 0; j < n; j++) {
+                    assertEquals(label[i] == label[j], uf.sameSet(i, j));
+                    if (label[i] == label[j]) size++;
+                }
+                assertEquals(size, uf.size(i));
+            }
+            assertEquals(nSets, uf.nSets());
+        }
+    }
+
+}